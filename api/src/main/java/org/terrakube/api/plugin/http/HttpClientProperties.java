@@ -0,0 +1,23 @@
+package org.terrakube.api.plugin.http;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.http.client")
+public class HttpClientProperties {
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 20;
+    private long connectTimeout = 5000;
+    private long readTimeout = 30000;
+    private long connectionRequestTimeout = 5000;
+    private long idleTimeout = 60;
+    private long timeToLive = 300;
+}
@@ -62,6 +62,7 @@ public class WorkspaceService {
     private String hostname;
 
     public WorkspaceService(@Value("${org.terrakube.hostname}") String hostname,
+            RestTemplate restTemplate,
             WorkspaceRepository workspaceRepository,
             HistoryRepository historyRepository,
             StorageTypeService storageTypeService,
@@ -70,7 +71,7 @@ public class WorkspaceService {
             VariableRepository variableRepositor,
             WorkspaceTagRepository workspaceTagRepository,
             TagRepository tagRepository) {
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplate;
         this.workspaceRepository = workspaceRepository;
         this.historyRepository = historyRepository;
         this.storageTypeService = storageTypeService;
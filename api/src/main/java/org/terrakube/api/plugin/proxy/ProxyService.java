@@ -26,7 +26,7 @@ import java.util.regex.Pattern;
 @Service
 public class ProxyService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final WorkspaceRepository workspaceRepository;
     private final VariableRepository variableRepository;
@@ -34,7 +34,8 @@ public class ProxyService {
 
     public static final Map<String, String> VARS = new HashMap<>();
 
-    public ProxyService(WorkspaceRepository workspaceRepository, VariableRepository variableRepository, GlobalVarRepository globalVarRepository) {
+    public ProxyService(RestTemplate restTemplate, WorkspaceRepository workspaceRepository, VariableRepository variableRepository, GlobalVarRepository globalVarRepository) {
+        this.restTemplate = restTemplate;
         this.workspaceRepository = workspaceRepository;
         this.variableRepository = variableRepository;
         this.globalVarRepository = globalVarRepository;
@@ -4,14 +4,15 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.time.DateUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorService;
 import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowStep;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowType;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.ScheduleTemplate;
+import org.terrakube.api.plugin.scheduler.queue.WorkspaceQueueService;
 import org.terrakube.api.plugin.softdelete.SoftDeleteService;
 import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
 import org.terrakube.api.repository.*;
@@ -19,6 +20,7 @@ import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.JobVia;
 import org.terrakube.api.rs.job.step.Step;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
@@ -32,6 +34,8 @@ import org.terrakube.api.rs.workspace.schedule.Schedule;
 import java.text.ParseException;
 import java.util.*;
 
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.FINAL_STATUS;
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.JOB_EXPIRATION_HOURS;
 import static org.terrakube.api.plugin.scheduler.ScheduleJobService.PREFIX_JOB_CONTEXT;
 
 @AllArgsConstructor
@@ -39,6 +43,7 @@ import static org.terrakube.api.plugin.scheduler.ScheduleJobService.PREFIX_JOB_C
 @Getter
 @Setter
 @Slf4j
+@DisallowConcurrentExecution
 public class ScheduleJob implements org.quartz.Job {
     private final ScheduleRepository scheduleRepository;
     private final TemplateRepository templateRepository;
@@ -62,17 +67,19 @@ public class ScheduleJob implements org.quartz.Job {
     
     GitHubWebhookService gitHubWebhookService;
 
+    WorkspaceQueueService workspaceQueueService;
+
     @Transactional
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
         int jobId = jobExecutionContext.getJobDetail().getJobDataMap().getInt(JOB_ID);
         Job job = jobRepository.getReferenceById(jobId);
+        removePollingTrigger(jobExecutionContext);
+        scheduleJobService.recordTransitionLatency(jobExecutionContext, job.getStatus());
 
-        Date jobExpiration = DateUtils.addHours(job.getCreatedDate(), 6);
-        Date currentTime = new Date(System.currentTimeMillis());
-        log.info("Job {} should be completed before {}, current time {}", job.getId(), jobExpiration, currentTime);
-        if (currentTime.after(jobExpiration)) {
-            log.error("Job has been running for more than 6 hours, cancelling running job");
+        log.info("Job {} should be completed before {}, current time {}", job.getId(), scheduleJobService.getJobExpiration(job), new Date(System.currentTimeMillis()));
+        if (scheduleJobService.isExpired(job)) {
+            log.error("Job has been running for more than {} hours, cancelling running job", JOB_EXPIRATION_HOURS);
             try {
                 job.setStatus(JobStatus.failed);
                 jobRepository.save(job);
@@ -81,6 +88,7 @@ public class ScheduleJob implements org.quartz.Job {
                 updateJobStepsWithStatus(job.getId(), JobStatus.failed);
                 updateJobStatusOnVcs(job, JobStatus.unknown);
                 removeJobContext(job, jobExecutionContext);
+                scheduleJobService.dispatchNextJob(job.getWorkspace());
             } catch (Exception e) {
                 log.error(e.getMessage());
             }
@@ -95,18 +103,14 @@ public class ScheduleJob implements org.quartz.Job {
         }
 
         if (job.getWorkspace().isLocked()) {
-            log.warn("Job {}, Workspace is locked. It must be unlocked before Terrakube can execute it.", jobId);
+            log.warn("Job {}, Workspace is locked. It will be dispatched again when the workspace is unlocked.", jobId);
             return;
         }
 
         log.info("Checking Job {} Status {}", job.getId(), job.getStatus());
         log.info("Checking previous jobs....");
-        Optional<List<Job>> previousJobs = jobRepository.findByWorkspaceAndStatusNotInAndIdLessThan(job.getWorkspace(),
-                Arrays.asList(JobStatus.failed, JobStatus.completed, JobStatus.rejected, JobStatus.cancelled, JobStatus.noChanges),
-                job.getId()
-        );
-        if (previousJobs.isPresent() && !previousJobs.get().isEmpty()) {
-            log.warn("Job {} is waiting for previous jobs to be completed...", jobId);
+        if (!FINAL_STATUS.contains(job.getStatus()) && !workspaceQueueService.isHead(job)) {
+            log.warn("Job {} is waiting for previous jobs to be completed, it will be dispatched when they finish", jobId);
         } else {
 
             switch (job.getStatus()) {
@@ -115,13 +119,14 @@ public class ScheduleJob implements org.quartz.Job {
                     if(job.isPlanChanges()) {
                         redisTemplate.delete(String.valueOf(job.getId()));
                         executePendingJob(job, jobExecutionContext);
-                        removeJobContext(job, jobExecutionContext);
                     } else {
                         log.warn("Job {} completed with no changes...", jobId);
                         completeJob(job);
                         redisTemplate.delete(String.valueOf(job.getId()));
                         updateJobStepsWithStatus(job.getId(), JobStatus.notExecuted);
                         updateJobStatusOnVcs(job, JobStatus.completed);
+                        removeJobContext(job, jobExecutionContext);
+                        scheduleJobService.dispatchNextJob(job.getWorkspace());
                     }
                     break;
                 case approved:
@@ -135,6 +140,7 @@ public class ScheduleJob implements org.quartz.Job {
                     removeJobContext(job, jobExecutionContext);
                     ephemeralExecutorService.deleteEphemeralJob(job);
                     updateJobStatusOnVcs(job, JobStatus.completed);
+                    scheduleJobService.dispatchNextJob(job.getWorkspace());
                     break;
                 case cancelled:
                 case failed:
@@ -145,6 +151,7 @@ public class ScheduleJob implements org.quartz.Job {
                     updateJobStatusOnVcs(job, JobStatus.failed);
                     removeJobContext(job, jobExecutionContext);
                     ephemeralExecutorService.deleteEphemeralJob(job);
+                    scheduleJobService.dispatchNextJob(job.getWorkspace());
                     break;
                 default:
                     log.info("Job {} Status {}", job.getId(), job.getStatus());
@@ -156,10 +163,11 @@ public class ScheduleJob implements org.quartz.Job {
     private void executePendingJob(Job job, JobExecutionContext jobExecutionContext) {
         job = tclService.initJobConfiguration(job);
 
-        Optional<Flow> flow = Optional.ofNullable(tclService.getNextFlow(job));
+        Optional<FlowStep> flowStep = Optional.ofNullable(tclService.getNextFlowStep(job));
+        Optional<Flow> flow = flowStep.map(FlowStep::getFlow);
         if (flow.isPresent()) {
             log.info("Execute command: {} \n {}", flow.get().getType(), flow.get().getCommands());
-            String stepId = tclService.getCurrentStepId(job);
+            String stepId = flowStep.get().getStepId();
             FlowType tempFlowType = FlowType.valueOf(flow.get().getType());
             switch (tempFlowType) {
                 case terraformPlanDestroy:
@@ -176,6 +184,7 @@ public class ScheduleJob implements org.quartz.Job {
                         Step step = stepRepository.getReferenceById(UUID.fromString(stepId));
                         step.setName("Error sending to executor, check logs");
                         stepRepository.save(step);
+                        dispatchStatusChange(job);
                     }
                     break;
                 case approval:
@@ -220,6 +229,7 @@ public class ScheduleJob implements org.quartz.Job {
                         job.setStatus(JobStatus.failed);
                         jobRepository.save(job);
                     }
+                    dispatchStatusChange(job);
                     break;
                 case yamlError:
                     log.error("Terrakube Template error, please verify the template definition");
@@ -227,6 +237,8 @@ public class ScheduleJob implements org.quartz.Job {
                     jobRepository.save(job);
                     updateJobStepsWithStatus(job.getId(), JobStatus.failed);
                     updateJobStatusOnVcs(job, JobStatus.unknown);
+                    removeJobContext(job, jobExecutionContext);
+                    scheduleJobService.dispatchNextJob(job.getWorkspace());
                     break;
                 default:
                     log.error("FlowType not supported");
@@ -235,6 +247,7 @@ public class ScheduleJob implements org.quartz.Job {
         } else {
             completeJob(job);
             removeJobContext(job, jobExecutionContext);
+            scheduleJobService.dispatchNextJob(job.getWorkspace());
         }
     }
 
@@ -283,25 +296,44 @@ public class ScheduleJob implements org.quartz.Job {
 
     private void removeJobContext(Job job, JobExecutionContext jobExecutionContext) {
         try {
-            Boolean triggerByStatusChange = jobExecutionContext.getJobDetail().getJobDataMap().getBooleanFromString("isTriggerFromStatusChange");
-            if(!triggerByStatusChange.booleanValue()) {
-                log.info("Deleting Schedule Job Context {}, InstanceId {}", PREFIX_JOB_CONTEXT + job.getId(), jobExecutionContext.getFireInstanceId());
+            JobKey jobKey = jobExecutionContext.getJobDetail().getKey();
+            log.info("Deleting Schedule Job Context {}, InstanceId {}", jobKey, jobExecutionContext.getFireInstanceId());
+            jobExecutionContext.getScheduler().deleteJob(jobKey);
+            if (!jobKey.getName().equals(PREFIX_JOB_CONTEXT + job.getId())) {
                 jobExecutionContext.getScheduler().deleteJob(new JobKey(PREFIX_JOB_CONTEXT + job.getId()));
-            } else {
-                String jobIdentity = jobExecutionContext.getJobDetail().getJobDataMap().getString("identity");
-                jobExecutionContext.getScheduler().deleteJob(new JobKey(jobIdentity));
             }
         } catch (SchedulerException e) {
             log.error(e.getMessage());
         }
     }
 
+    private void removePollingTrigger(JobExecutionContext jobExecutionContext) {
+        // Job contexts created by older versions were polled every 30 seconds, now they are dispatched on status changes
+        if (jobExecutionContext.getTrigger().mayFireAgain()) {
+            try {
+                log.warn("Removing polling trigger {}", jobExecutionContext.getTrigger().getKey());
+                jobExecutionContext.getScheduler().unscheduleJob(jobExecutionContext.getTrigger().getKey());
+            } catch (SchedulerException e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+
+    private void dispatchStatusChange(Job job) {
+        try {
+            scheduleJobService.createJobContextNow(job);
+        } catch (SchedulerException e) {
+            log.error(e.getMessage());
+        }
+    }
+
     private void executeApprovedJobs(Job job) {
         job = tclService.initJobConfiguration(job);
-        Optional<Flow> flow = Optional.ofNullable(tclService.getNextFlow(job));
+        Optional<FlowStep> flowStep = Optional.ofNullable(tclService.getNextFlowStep(job));
+        Optional<Flow> flow = flowStep.map(FlowStep::getFlow);
         if (flow.isPresent()) {
             log.info("Execute command: {} \n {}", flow.get().getType(), flow.get().getCommands());
-            String stepId = tclService.getCurrentStepId(job);
+            String stepId = flowStep.get().getStepId();
             job.setApprovalTeam("");
             jobRepository.save(job);
             if (executorService.execute(job, stepId, flow.get()) != null)
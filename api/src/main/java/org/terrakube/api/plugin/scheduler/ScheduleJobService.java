@@ -1,23 +1,28 @@
 package org.terrakube.api.plugin.scheduler;
 
 import java.text.ParseException;
-import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.time.DateUtils;
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
-import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.plugin.scheduler.queue.WorkspaceQueueService;
 import org.terrakube.api.repository.StepRepository;
 import org.terrakube.api.repository.WorkspaceRepository;
 import org.terrakube.api.rs.job.Job;
@@ -25,6 +30,8 @@ import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.step.Step;
 import org.terrakube.api.rs.workspace.Workspace;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,7 +42,20 @@ public class ScheduleJobService {
 
     public static final String PREFIX_JOB = "TerrakubeV2_Trigger_";
     public static final String PREFIX_JOB_CONTEXT = "TerrakubeV2_Job_";
-    public static final int JOB_CONTEXT_INTERVAL = 30;
+    public static final String DISPATCH_EVENT = "dispatchEvent";
+    public static final String DISPATCH_TIME = "dispatchTime";
+    public static final String DISPATCH_EVENT_CREATED = "created";
+    public static final String DISPATCH_EVENT_STATUS_CHANGE = "statusChange";
+    public static final String DISPATCH_EVENT_WORKSPACE_QUEUE = "workspaceQueue";
+    public static final String DISPATCH_EVENT_RECONCILIATION = "reconciliation";
+    public static final List<JobStatus> FINAL_STATUS = Arrays.asList(JobStatus.failed, JobStatus.completed,
+            JobStatus.rejected, JobStatus.cancelled, JobStatus.noChanges);
+    public static final List<JobStatus> DISPATCH_STATUS = Arrays.asList(JobStatus.pending, JobStatus.approved);
+    public static final List<JobStatus> ACTIVE_STATUS = Arrays.asList(JobStatus.pending, JobStatus.approved,
+            JobStatus.queue, JobStatus.running, JobStatus.waitingApproval);
+    public static final int JOB_EXPIRATION_HOURS = 6;
+    private static final String METRIC_DISPATCH = "terrakube.scheduler.dispatch";
+    private static final String METRIC_TRANSITION_LATENCY = "terrakube.scheduler.transition.latency";
 
     Scheduler scheduler;
 
@@ -43,6 +63,10 @@ public class ScheduleJobService {
 
     WorkspaceRepository workspaceRepository;
 
+    WorkspaceQueueService workspaceQueueService;
+
+    MeterRegistry meterRegistry;
+
     public void createJobTrigger(String cronExpression, String triggerId) throws ParseException, SchedulerException {
 
         JobDataMap jobDataMap = new JobDataMap();
@@ -68,58 +92,90 @@ public class ScheduleJobService {
     }
 
     public void createJobContext(Job job) throws ParseException, SchedulerException {
-
-        JobDataMap jobDataMap = new JobDataMap();
-        jobDataMap.put(ScheduleJob.JOB_ID, job.getId());
-
-        JobDetail jobDetail = JobBuilder.newJob().ofType(ScheduleJob.class)
-                .storeDurably()
-                .setJobData(jobDataMap)
-                .withIdentity(PREFIX_JOB_CONTEXT + job.getId())
-                .withDescription(String.valueOf(job.getId()))
-                .build();
-
-        Trigger trigger = TriggerBuilder.newTrigger()
-                .forJob(jobDetail)
-                .withIdentity(PREFIX_JOB_CONTEXT + job.getId())
-                .withDescription(String.valueOf(job.getId()))
-                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(JOB_CONTEXT_INTERVAL).repeatForever())
-                .startAt(Date.from(Instant.now().plusSeconds(JOB_CONTEXT_INTERVAL)))
-                .build();
-
-        log.info("Create Job Context {}", jobDetail.getKey());
+        log.info("Create Job Context {}", PREFIX_JOB_CONTEXT + job.getId());
 
         Workspace workspace = job.getWorkspace();
         workspaceRepository.save(workspace);
-        scheduler.scheduleJob(jobDetail, trigger);
-        scheduler.triggerJob(jobDetail.getKey());
+        workspaceQueueService.enqueue(job);
+        dispatchJob(job, DISPATCH_EVENT_CREATED);
     }
 
     public void createJobContextNow(Job job) throws SchedulerException {
+        log.info("Running Job Context Now: {}", job.getId());
+        dispatchJob(job, DISPATCH_EVENT_STATUS_CHANGE);
+    }
+
+    /**
+     * Wake up the first active job in the workspace queue, used when a job reaches a final status
+     * or the workspace is unlocked so the next job does not wait for the reconciliation sweep.
+     */
+    public void dispatchNextJob(Workspace workspace) {
+        if (workspace == null) {
+            return;
+        }
+        Optional<Job> nextJob = workspaceQueueService.advance(workspace);
+        if (nextJob.isPresent() && DISPATCH_STATUS.contains(nextJob.get().getStatus())) {
+            try {
+                log.info("Dispatch next job {} in workspace {}", nextJob.get().getId(), workspace.getId());
+                dispatchJob(nextJob.get(), DISPATCH_EVENT_WORKSPACE_QUEUE);
+            } catch (SchedulerException e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+
+    public void dispatchJob(Job job, String dispatchEvent) throws SchedulerException {
+        JobKey jobKey = new JobKey(PREFIX_JOB_CONTEXT + job.getId());
 
-        String random = UUID.randomUUID().toString();
         JobDataMap jobDataMap = new JobDataMap();
         jobDataMap.put(ScheduleJob.JOB_ID, job.getId());
-        jobDataMap.put("isTriggerFromStatusChange", "true");
-        jobDataMap.put("identity", PREFIX_JOB_CONTEXT + job.getId() + "_" + random);
 
         JobDetail jobDetail = JobBuilder.newJob().ofType(ScheduleJob.class)
                 .storeDurably()
                 .setJobData(jobDataMap)
-                .withIdentity(PREFIX_JOB_CONTEXT + job.getId() + "_" + random)
+                .withIdentity(jobKey)
                 .withDescription(String.valueOf(job.getId()))
                 .build();
 
+        JobDataMap triggerDataMap = new JobDataMap();
+        triggerDataMap.put(DISPATCH_EVENT, dispatchEvent);
+        triggerDataMap.put(DISPATCH_TIME, System.currentTimeMillis());
+
         Trigger trigger = TriggerBuilder.newTrigger()
-                .forJob(jobDetail)
-                .withIdentity(PREFIX_JOB_CONTEXT + job.getId() + "_" + random)
+                .forJob(jobKey)
+                .withIdentity(PREFIX_JOB_CONTEXT + job.getId() + "_" + UUID.randomUUID())
                 .withDescription(String.valueOf(job.getId()))
+                .usingJobData(triggerDataMap)
                 .startNow()
                 .build();
 
-        log.info("Running Job Context Now: {}, Identity: {}", job.getId(),
-                PREFIX_JOB_CONTEXT + job.getId() + "_" + random);
-        scheduler.scheduleJob(jobDetail, trigger);
+        // All the events for the same job share one durable job detail, ScheduleJob is not allowed to run
+        // concurrently so duplicated events are executed one after the other and the later ones are a no-op
+        scheduler.addJob(jobDetail, true);
+        scheduler.scheduleJob(trigger);
+        meterRegistry.counter(METRIC_DISPATCH, "event", dispatchEvent).increment();
+        log.debug("Dispatch job {} event {} trigger {}", job.getId(), dispatchEvent, trigger.getKey());
+    }
+
+    public Date getJobExpiration(Job job) {
+        return DateUtils.addHours(job.getCreatedDate(), JOB_EXPIRATION_HOURS);
+    }
+
+    public boolean isExpired(Job job) {
+        return job.getCreatedDate() != null && new Date(System.currentTimeMillis()).after(getJobExpiration(job));
+    }
+
+    public void recordTransitionLatency(JobExecutionContext jobExecutionContext, JobStatus jobStatus) {
+        JobDataMap triggerDataMap = jobExecutionContext.getTrigger().getJobDataMap();
+        if (triggerDataMap.containsKey(DISPATCH_TIME)) {
+            long latency = System.currentTimeMillis() - triggerDataMap.getLong(DISPATCH_TIME);
+            Timer.builder(METRIC_TRANSITION_LATENCY)
+                    .description("Time between a job status change event and the scheduler handling it")
+                    .tag("event", triggerDataMap.getString(DISPATCH_EVENT))
+                    .tag("status", jobStatus.name())
+                    .register(meterRegistry)
+                    .record(Math.max(latency, 0), TimeUnit.MILLISECONDS);
+        }
     }
 
     public void deleteJobTrigger(String triggerId) throws ParseException, SchedulerException {
@@ -0,0 +1,198 @@
+package org.terrakube.api.plugin.scheduler.job.tcl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Command;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.CommandConfig;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolve the commands imported by a template flow. The branch is resolved to a commit with ls-remote at most once
+ * per refresh interval, the parsed commands are cached by repository, branch, folder and commit, and commands.yaml
+ * is read directly from a bare mirror of the repository that is only fetched when the commit is not there yet.
+ */
+@Slf4j
+@Service
+public class ImportCommandsService {
+
+    private static final String MIRROR_DIRECTORY = "%s/.terraform-spring-boot/importCommands/mirror";
+    private static final String COMMANDS_FILE = "commands.yaml";
+    private static final String REMOTE_NAME = "origin";
+
+    private final long refreshInterval;
+    private final File mirrorDirectory;
+    private final Map<String, ResolvedBranch> resolvedBranches = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> repositoryLocks = new ConcurrentHashMap<>();
+    private final Cache<String, List<Command>> commandsCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofHours(6))
+            .build();
+
+    public ImportCommandsService(@Value("${org.terrakube.tcl.importCommands.refreshInterval:60}") long refreshInterval) {
+        this.refreshInterval = refreshInterval * 1000;
+        this.mirrorDirectory = new File(String.format(MIRROR_DIRECTORY, FileUtils.getUserDirectoryPath()));
+    }
+
+    public List<Command> getCommands(String repository, String branch, String folder) {
+        try {
+            String commitId = resolveBranch(repository, branch);
+            String cacheKey = String.join("|", repository, branch, folder, commitId);
+            List<Command> commands = commandsCache.getIfPresent(cacheKey);
+            if (commands == null) {
+                commands = loadCommands(repository, branch, folder, commitId);
+                commandsCache.put(cacheKey, commands);
+            } else {
+                log.info("Using cached commands from {} branch {} folder {} commit {}", repository, branch, folder, commitId);
+            }
+            return commands;
+        } catch (IOException | GitAPIException e) {
+            log.error("Unable to import commands from {} branch {} folder {}: {}", repository, branch, folder, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private String resolveBranch(String repository, String branch) throws IOException, GitAPIException {
+        String branchKey = repository + "|" + branch;
+        ResolvedBranch resolvedBranch = resolvedBranches.get(branchKey);
+        long now = System.currentTimeMillis();
+        if (resolvedBranch != null && now - resolvedBranch.getCheckedAt() < refreshInterval) {
+            return resolvedBranch.getCommitId();
+        }
+
+        String commitId;
+        try {
+            commitId = getRemoteCommitId(repository, branch);
+        } catch (GitAPIException e) {
+            if (resolvedBranch == null) {
+                throw e;
+            }
+            log.warn("Unable to check import repository {}, using commit {}: {}", repository, resolvedBranch.getCommitId(), e.getMessage());
+            return resolvedBranch.getCommitId();
+        }
+        resolvedBranches.put(branchKey, new ResolvedBranch(commitId, now));
+        return commitId;
+    }
+
+    private String getRemoteCommitId(String repository, String branch) throws GitAPIException, IOException {
+        Map<String, Ref> refs = Git.lsRemoteRepository()
+                .setRemote(repository)
+                .setHeads(true)
+                .setTags(true)
+                .callAsMap();
+        Ref ref = refs.get(Constants.R_HEADS + branch);
+        if (ref == null) {
+            ref = refs.get(Constants.R_TAGS + branch);
+        }
+        if (ref == null) {
+            throw new IOException(String.format("Branch %s not found in %s", branch, repository));
+        }
+        return ref.getPeeledObjectId() != null ? ref.getPeeledObjectId().getName() : ref.getObjectId().getName();
+    }
+
+    private List<Command> loadCommands(String repository, String branch, String folder, String commitId) throws IOException, GitAPIException {
+        String commandsText = readCommandsFile(repository, folder, commitId);
+
+        log.info("Parsing commands from {} branch {} folder {} commit {}", repository, branch, folder, commitId);
+        Yaml yaml = new Yaml(new Constructor(CommandConfig.class, new LoaderOptions()));
+        CommandConfig commandConfig = yaml.load(commandsText);
+        log.info("Importing commands \n{}\n", commandsText);
+        return commandConfig != null && commandConfig.getCommands() != null ? commandConfig.getCommands() : new ArrayList<>();
+    }
+
+    private String readCommandsFile(String repository, String folder, String commitId) throws IOException, GitAPIException {
+        ReentrantLock lock = repositoryLocks.computeIfAbsent(repository, key -> new ReentrantLock());
+        lock.lock();
+        try (Git git = openMirror(repository, commitId)) {
+            Repository mirror = git.getRepository();
+            String path = getCommandsPath(folder);
+            try (RevWalk revWalk = new RevWalk(mirror)) {
+                RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitId));
+                try (TreeWalk treeWalk = TreeWalk.forPath(mirror, path, commit.getTree())) {
+                    if (treeWalk == null) {
+                        throw new IOException(String.format("File %s not found in %s commit %s", path, repository, commitId));
+                    }
+                    return new String(mirror.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Git openMirror(String repository, String commitId) throws IOException, GitAPIException {
+        File mirror = new File(mirrorDirectory, DigestUtils.sha256Hex(repository) + ".git");
+        Git git = new File(mirror, Constants.HEAD).exists() ? Git.open(mirror) : cloneMirror(repository, mirror);
+        if (!git.getRepository().getObjectDatabase().has(ObjectId.fromString(commitId))) {
+            log.info("Fetching import repository mirror {} for {}", mirror.getPath(), repository);
+            try {
+                git.fetch()
+                        .setRemote(REMOTE_NAME)
+                        .setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*"), new RefSpec("+refs/tags/*:refs/tags/*"))
+                        .setRemoveDeletedRefs(true)
+                        .call();
+            } catch (GitAPIException e) {
+                git.close();
+                throw e;
+            }
+        }
+        return git;
+    }
+
+    private Git cloneMirror(String repository, File mirror) throws IOException, GitAPIException {
+        log.info("Creating import repository mirror {} for {}", mirror.getPath(), repository);
+        FileUtils.deleteDirectory(mirror);
+        FileUtils.forceMkdir(mirrorDirectory);
+        try {
+            return Git.cloneRepository()
+                    .setURI(repository)
+                    .setDirectory(mirror)
+                    .setBare(true)
+                    .setCloneAllBranches(true)
+                    .call();
+        } catch (GitAPIException e) {
+            FileUtils.deleteDirectory(mirror);
+            throw e;
+        }
+    }
+
+    private String getCommandsPath(String folder) {
+        String path = folder.replaceAll("^/+|/+$", "");
+        return path.isEmpty() ? COMMANDS_FILE : path + "/" + COMMANDS_FILE;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ResolvedBranch {
+        private String commitId;
+        private long checkedAt;
+    }
+}
@@ -1,12 +1,12 @@
 package org.terrakube.api.plugin.scheduler.job.tcl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Service;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.*;
 import org.terrakube.api.repository.JobRepository;
@@ -20,9 +20,7 @@ import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.*;
 
 @AllArgsConstructor
@@ -32,11 +30,15 @@ import java.util.*;
 @Slf4j
 public class TclService {
 
-    private static final String IMPORT_DIRECTORY = "%s/.terraform-spring-boot/importCommands/%s";
-
     JobRepository jobRepository;
     StepRepository stepRepository;
     TemplateRepository templateRepository;
+    ImportCommandsService importCommandsService;
+
+    private final Cache<String, FlowConfig> flowConfigCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
 
     @Transactional
     public Job initJobConfiguration(Job job) {
@@ -75,22 +77,34 @@ public class TclService {
             return job;
     }
 
+    /**
+     * Parsed templates are cached by the hash of the encoded tcl, the cached flows are shared between jobs and must
+     * not be modified, getNextFlowStep returns a copy of the flow.
+     */
     private FlowConfig getFlowConfig(String tcl) {
+        if (tcl == null) {
+            log.error("Exception parsing yaml: job does not have a template");
+            return setErrorFlowYaml("Job does not have a template");
+        }
+        return flowConfigCache.get(DigestUtils.sha256Hex(tcl), key -> parseFlowConfig(tcl));
+    }
+
+    private FlowConfig parseFlowConfig(String tcl) {
         Yaml yaml = new Yaml(new Constructor(FlowConfig.class, new LoaderOptions()));
         FlowConfig flowConfig = null;
         try {
-            FlowConfig temp = yaml.load(new String(Base64.getDecoder().decode(tcl)));
-            log.info("FlowConfig: \n {}", temp);
             flowConfig = yaml.load(new String(Base64.getDecoder().decode(tcl)));
+            log.info("FlowConfig: \n {}", flowConfig);
 
             if (flowConfig.getFlow().isEmpty()) {
                 log.error("Exception parsing yaml: template with no flows");
-                return setErrorFlowYaml("Yaml Template does not have any flow");
+                flowConfig = setErrorFlowYaml("Yaml Template does not have any flow");
             }
         } catch (Exception ex) {
             log.error("Exception parsing yaml: {}", ex.getMessage());
             flowConfig = setErrorFlowYaml(ex.getMessage());
         }
+        flowConfig.setFlow(Collections.unmodifiableList(flowConfig.getFlow()));
         return flowConfig;
     }
 
@@ -108,112 +122,53 @@ public class TclService {
         return flowConfig;
     }
 
-    public Flow getNextFlow(Job job) {
-        TreeMap<Integer, Step> map = getPendingSteps(job);
-
-        if (!map.isEmpty()) {
-            log.info("Next Command: {}", map.firstKey());
-
-            Optional<Flow> nextFlow = getFlowConfig(job.getTcl())
-                    .getFlow()
-                    .stream()
-                    .filter(flow -> flow.getStep() == map.firstKey())
-                    .findFirst();
-
-            if (nextFlow.isPresent()) {
-                Flow finalFlow = nextFlow.get();
-                log.info("Checking import commands in YAML");
-                ImportComands importComands = finalFlow.getImportComands();
-                if (importComands != null) {
-                    log.info("Import commands from {} branch {} folder {}", importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]);
-                    finalFlow.setCommands(importCommands(importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]));
-                }
-
-                return finalFlow;
-
-            } else {
-                return null;
-            }
-        } else
+    /**
+     * Resolve the pending step with the lowest step number and its flow in the job template, null when the job does
+     * not have pending steps or the template does not have a flow for the step.
+     */
+    public FlowStep getNextFlowStep(Job job) {
+        Optional<Step> nextStep = stepRepository.findFirstByJobIdAndStatusOrderByStepNumber(job.getId(), JobStatus.pending);
+        if (nextStep.isEmpty())
             return null;
-    }
-
-    private List<Command> importCommands(String repository, String branch, String folder) {
-        List<Command> commands = new ArrayList<>();
-        try {
-            File importFolder = generateImportFolder();
-            log.info("Get commands text");
-            String commandsText = getCommandList(repository, branch, folder, generateImportFolder());
-
-            log.info("Parsing yaml file");
-            Yaml yaml = new Yaml(new Constructor(CommandConfig.class, new LoaderOptions()));
-            CommandConfig temp = yaml.load(commandsText);
-
-            commands = temp.getCommands();
 
-            log.info("Importing commands \n{}\n", commandsText);
+        int stepNumber = nextStep.get().getStepNumber();
+        log.info("Next Command: {}", stepNumber);
 
-            log.info("Cleaning temp directory");
-            FileUtils.cleanDirectory(importFolder);
-        } catch (IOException e) {
-            log.error(e.getMessage());
-        }
-        return commands;
-    }
-
-    private String getCommandList(String repository, String branch, String folder, File folderImport) {
-        String commandList = "";
-        try {
-            log.info("Cloning template import repository");
-            Git.cloneRepository()
-                    .setURI(repository)
-                    .setDirectory(folderImport)
-                    .setBranch(branch)
-                    .call();
-            File importData = null;
-            if (folder.equals("/")) {
-                importData = new File(String.format("%s/commands.yaml", folderImport.getCanonicalPath()));
-            } else {
-                importData = new File(String.format("%s/%s/commands.yaml", folderImport.getCanonicalPath(), folder));
+        Optional<Flow> nextFlow = getFlowConfig(job.getTcl())
+                .getFlow()
+                .stream()
+                .filter(flow -> flow.getStep() == stepNumber)
+                .findFirst();
+
+        if (nextFlow.isPresent()) {
+            Flow finalFlow = copyFlow(nextFlow.get());
+            log.info("Checking import commands in YAML");
+            ImportComands importComands = finalFlow.getImportComands();
+            if (importComands != null) {
+                log.info("Import commands from {} branch {} folder {}", importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]);
+                finalFlow.setCommands(importCommandsService.getCommands(importComands.getRepository(), importComands.getBranch(), importComands.getFolder().split(",")[0]));
             }
 
-            log.info("Reading commands.yaml file");
-            commandList = FileUtils.readFileToString(importData, Charset.defaultCharset());
-        } catch (IOException | GitAPIException e) {
-            log.error(e.getMessage());
-        }
-        return commandList;
-    }
-
-    private File generateImportFolder() {
-        log.info("Creating import folder");
-        String importCommandFolder = String.format(IMPORT_DIRECTORY, FileUtils.getUserDirectoryPath(), UUID.randomUUID());
-        File importFolder = new File(importCommandFolder);
-        try {
-            if (!importFolder.exists()) {
-                log.info("Creating new import folder for {}", importCommandFolder);
-                FileUtils.forceMkdir(importFolder);
-            } else {
-                FileUtils.cleanDirectory(importFolder);
-            }
-        } catch (IOException e) {
-            log.error(e.getMessage());
+            return new FlowStep(finalFlow, nextStep.get().getId().toString());
+        } else {
+            return null;
         }
-        return importFolder;
-    }
-
-    private TreeMap<Integer, Step> getPendingSteps(Job job) {
-        final TreeMap<Integer, Step> map = new TreeMap<>();
-        stepRepository.findByJobId(job.getId())
-                .stream()
-                .filter(step -> step.getStatus().equals(JobStatus.pending))
-                .forEach(step -> map.put(Integer.valueOf(step.getStepNumber()), step));
-        log.info("Pending steps {}", map.size());
-        return map;
     }
 
-    public String getCurrentStepId(Job job) {
-        return getPendingSteps(job).firstEntry().getValue().getId().toString();
+    private Flow copyFlow(Flow flow) {
+        Flow copy = new Flow();
+        copy.setType(flow.getType());
+        copy.setTeam(flow.getTeam());
+        copy.setName(flow.getName());
+        copy.setIgnoreError(flow.isIgnoreError());
+        copy.setError(flow.getError());
+        copy.setStep(flow.getStep());
+        copy.setCommands(flow.getCommands());
+        copy.setTemplates(flow.getTemplates());
+        copy.setInputsEnv(flow.getInputsEnv());
+        copy.setInputsTerraform(flow.getInputsTerraform());
+        copy.setImportComands(flow.getImportComands());
+        return copy;
     }
 
     private String getTemplateTcl(String templateId) {
@@ -18,16 +18,12 @@ import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
 import org.terrakube.api.plugin.token.dynamic.DynamicCredentialsService;
 import org.terrakube.api.plugin.vcs.TokenService;
 import org.terrakube.api.repository.*;
-import org.terrakube.api.rs.collection.Collection;
-import org.terrakube.api.rs.collection.Reference;
-import org.terrakube.api.rs.collection.item.Item;
 import org.terrakube.api.rs.globalvar.Globalvar;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.ssh.Ssh;
 import org.terrakube.api.rs.vcs.Vcs;
 import org.terrakube.api.rs.workspace.parameters.Category;
-import org.terrakube.api.rs.workspace.parameters.Variable;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 
@@ -64,9 +60,9 @@ public class ExecutorService {
     @Autowired
     TokenService tokenService;
     @Autowired
-    private VariableRepository variableRepository;
+    private ResolvedVariablesService resolvedVariablesService;
     @Autowired
-    private ReferenceRepository referenceRepository;
+    private RestTemplate restTemplate;
 
     @Transactional
     public ExecutorContext execute(Job job, String stepId, Flow flow) {
@@ -114,21 +110,12 @@ public class ExecutorService {
         environmentVariables.put("TF_IN_AUTOMATION", "1");
         environmentVariables.put("workspaceName", job.getWorkspace().getName());
         environmentVariables.put("organizationName", job.getOrganization().getName());
-        List<Variable> variableList = variableRepository.findByWorkspace(job.getWorkspace()).orElse(new ArrayList<>());
-        for (Variable variable : variableList) {
-            if (variable.getCategory().equals(Category.TERRAFORM)) {
-                log.info("Adding terraform");
-                terraformVariables.put(variable.getKey(), variable.getValue());
-            } else {
-                log.info("Adding environment variable");
-                environmentVariables.put(variable.getKey(), variable.getValue());
-            }
-            log.info("Variable Key: {} Value {}", variable.getKey(),
-                    variable.isSensitive() ? "sensitive" : variable.getValue());
-        }
+        ResolvedVariables resolvedVariables = resolvedVariablesService.getResolvedVariables(job.getWorkspace());
+        terraformVariables.putAll(resolvedVariables.getWorkspaceVariables(Category.TERRAFORM));
+        environmentVariables.putAll(resolvedVariables.getWorkspaceVariables(Category.ENV));
 
-        environmentVariables = loadOtherEnvironmentVariables(job, flow, environmentVariables);
-        terraformVariables = loadOtherTerraformVariables(job, flow, terraformVariables);
+        environmentVariables = loadOtherEnvironmentVariables(job, flow, resolvedVariables, environmentVariables);
+        terraformVariables = loadOtherTerraformVariables(job, flow, resolvedVariables, terraformVariables);
 
         executorContext.setVariables(terraformVariables);
         executorContext.setEnvironmentVariables(environmentVariables);
@@ -166,10 +153,19 @@ public class ExecutorService {
         executorContext.setRefreshOnly(job.isRefreshOnly());
         executorContext.setAgentUrl(getExecutorUrl(job));
         return executorContext.getEnvironmentVariables().containsKey("TERRAKUBE_ENABLE_EPHEMERAL_EXECUTOR")
-                ? ephemeralExecutorService.sendToEphemeralExecutor(job, executorContext)
+                ? sendToEphemeralExecutor(job, executorContext)
                 : sendToExecutor(job, executorContext);
     }
 
+    private ExecutorContext sendToEphemeralExecutor(Job job, ExecutorContext executorContext) {
+        ExecutorContext ephemeralContext = ephemeralExecutorService.sendToEphemeralExecutor(job, executorContext);
+        if (ephemeralContext != null) {
+            job.setStatus(JobStatus.queue);
+            jobRepository.save(job);
+        }
+        return ephemeralContext;
+    }
+
     private String getExecutorUrl(Job job) {
         String agentUrl = job.getWorkspace().getAgent() != null
                 ? job.getWorkspace().getAgent().getUrl() + "/api/v1/terraform-rs"
@@ -195,7 +191,6 @@ public class ExecutorService {
     }
 
     private ExecutorContext sendToExecutor(Job job, ExecutorContext executorContext) {
-        RestTemplate restTemplate = new RestTemplate();
         boolean executed = false;
         try {
             HttpHeaders headers = new HttpHeaders();
@@ -222,24 +217,24 @@ public class ExecutorService {
     }
 
     private HashMap<String, String> loadOtherEnvironmentVariables(Job job, Flow flow,
-            HashMap<String, String> workspaceEnvVariables) {
+            ResolvedVariables resolvedVariables, HashMap<String, String> workspaceEnvVariables) {
         if (flow.getInputsEnv() != null
                 || (flow.getImportComands() != null && flow.getImportComands().getInputsEnv() != null)) {
             if (flow.getImportComands() != null && flow.getImportComands().getInputsEnv() != null) {
                 log.info("Loading ENV inputs from ImportComands");
-                workspaceEnvVariables = loadInputData(job, Category.ENV,
+                workspaceEnvVariables = loadInputData(job, resolvedVariables, Category.ENV,
                         new HashMap(flow.getImportComands().getInputsEnv()), workspaceEnvVariables);
             }
 
             if (flow.getInputsEnv() != null) {
                 log.info("Loading ENV inputs from InputsEnv");
-                workspaceEnvVariables = loadInputData(job, Category.ENV, new HashMap(flow.getInputsEnv()),
+                workspaceEnvVariables = loadInputData(job, resolvedVariables, Category.ENV, new HashMap(flow.getInputsEnv()),
                         workspaceEnvVariables);
             }
 
         } else {
             log.info("Loading default env variables to job");
-            workspaceEnvVariables = loadDefault(job, Category.ENV, workspaceEnvVariables);
+            workspaceEnvVariables = loadDefault(resolvedVariables, Category.ENV, workspaceEnvVariables);
         }
 
         if (workspaceEnvVariables.containsKey("ENABLE_DYNAMIC_CREDENTIALS_AZURE")) {
@@ -275,79 +270,49 @@ public class ExecutorService {
     }
 
     private HashMap<String, String> loadOtherTerraformVariables(Job job, Flow flow,
-            HashMap<String, String> workspaceTerraformVariables) {
+            ResolvedVariables resolvedVariables, HashMap<String, String> workspaceTerraformVariables) {
         if (flow.getInputsTerraform() != null
                 || (flow.getImportComands() != null && flow.getImportComands().getInputsTerraform() != null)) {
             if (flow.getImportComands() != null && flow.getImportComands().getInputsTerraform() != null) {
                 log.info("Loading TERRAFORM inputs from ImportComands");
-                workspaceTerraformVariables = loadInputData(job, Category.TERRAFORM,
+                workspaceTerraformVariables = loadInputData(job, resolvedVariables, Category.TERRAFORM,
                         new HashMap(flow.getImportComands().getInputsTerraform()), workspaceTerraformVariables);
             }
 
             if (flow.getInputsTerraform() != null) {
                 log.info("Loading TERRAFORM inputs from InputsTerraform");
-                workspaceTerraformVariables = loadInputData(job, Category.TERRAFORM,
+                workspaceTerraformVariables = loadInputData(job, resolvedVariables, Category.TERRAFORM,
                         new HashMap(flow.getInputsTerraform()), workspaceTerraformVariables);
             }
 
         } else {
             log.info("Loading default env variables to job");
-            workspaceTerraformVariables = loadDefault(job, Category.TERRAFORM, workspaceTerraformVariables);
+            workspaceTerraformVariables = loadDefault(resolvedVariables, Category.TERRAFORM, workspaceTerraformVariables);
         }
         return workspaceTerraformVariables;
     }
 
-    private HashMap<String, String> loadInputData(Job job, Category categoryVar, HashMap<String, String> importFrom,
-            HashMap<String, String> importTo) {
+    private HashMap<String, String> loadInputData(Job job, ResolvedVariables resolvedVariables, Category categoryVar,
+            HashMap<String, String> importFrom, HashMap<String, String> importTo) {
         Map<String, String> finalWorkspaceEnvVariables = importTo;
+        Map<String, String> globalVariables = resolvedVariables.getGlobalVariables(categoryVar);
         importFrom.forEach((key, value) -> {
             java.lang.String searchValue = value.replace("$", "");
-            Globalvar globalvar = globalVarRepository.getGlobalvarByOrganizationAndCategoryAndKey(job.getOrganization(),
-                    categoryVar, searchValue);
+            String globalValue = globalVariables.get(searchValue);
             log.info("Searching globalvar {} ({}) in Org {} found {}", searchValue, categoryVar,
-                    job.getOrganization().getName(), (globalvar != null) ? true : false);
-            if (globalvar != null) {
-                finalWorkspaceEnvVariables.putIfAbsent(key, globalvar.getValue());
+                    job.getOrganization().getName(), globalVariables.containsKey(searchValue));
+            if (globalValue != null) {
+                finalWorkspaceEnvVariables.putIfAbsent(key, globalValue);
             }
         });
 
         return new HashMap(finalWorkspaceEnvVariables);
     }
 
-    private HashMap<String, String> loadDefault(Job job, Category category, HashMap<String, String> workspaceData) {
-        for (Globalvar globalvar : globalVarRepository.findByOrganization(job.getOrganization())) {
-            if (globalvar.getCategory().equals(category)) {
-                workspaceData.putIfAbsent(globalvar.getKey(), globalvar.getValue());
-                log.info("Adding {} Global Variable Key: {} Value {}", category, globalvar.getKey(),
-                        globalvar.isSensitive() ? "sensitive" : globalvar.getValue());
-            }
-        }
-
-        List<Reference> referenceList = referenceRepository.findByWorkspace(job.getWorkspace()).orElse(new ArrayList<>());
-
-        List<Collection> collectionList = new ArrayList();
-        for (Reference reference : referenceList) {
-            collectionList.add(reference.getCollection());
-        }
-
-        List<Collection> sortedList = collectionList.stream()
-                .sorted(Comparator.comparing(Collection::getPriority).reversed())
-                .toList();
-
-        sortedList.stream().forEach(collection -> {
-            log.info("Adding data from collection {} using priority {}", collection.getName(), collection.getPriority());
-
-            List<Item> itemList = new ArrayList();
-            itemList = collection.getItem();
-            for (Item item : itemList) {
-                if (item.getCategory().equals(category)) {
-                    workspaceData.putIfAbsent(item.getKey(), item.getValue());
-                }
-            }
-
-        });
-
-
+    private HashMap<String, String> loadDefault(ResolvedVariables resolvedVariables, Category category,
+            HashMap<String, String> workspaceData) {
+        resolvedVariables.getGlobalVariables(category).forEach(workspaceData::putIfAbsent);
+        resolvedVariables.getCollectionVariables(category).forEach(workspaceData::putIfAbsent);
         return workspaceData;
     }
 
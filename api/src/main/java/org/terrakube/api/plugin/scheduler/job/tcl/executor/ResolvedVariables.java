@@ -0,0 +1,33 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.terrakube.api.rs.workspace.parameters.Category;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Variables of a workspace resolved once for all the steps of its jobs: the workspace variables, the organization
+ * global variables and the items of the collections referenced by the workspace merged by priority.
+ */
+@Getter
+@AllArgsConstructor
+public class ResolvedVariables {
+    private UUID organizationId;
+    private Map<Category, Map<String, String>> workspaceVariables;
+    private Map<Category, Map<String, String>> globalVariables;
+    private Map<Category, Map<String, String>> collectionVariables;
+
+    public Map<String, String> getWorkspaceVariables(Category category) {
+        return workspaceVariables.getOrDefault(category, Map.of());
+    }
+
+    public Map<String, String> getGlobalVariables(Category category) {
+        return globalVariables.getOrDefault(category, Map.of());
+    }
+
+    public Map<String, String> getCollectionVariables(Category category) {
+        return collectionVariables.getOrDefault(category, Map.of());
+    }
+}
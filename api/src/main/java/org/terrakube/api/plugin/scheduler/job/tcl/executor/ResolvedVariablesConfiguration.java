@@ -0,0 +1,22 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@ConditionalOnProperty(prefix = "org.terrakube.executor.variables.cache", name = "pubsub", havingValue = "true", matchIfMissing = true)
+public class ResolvedVariablesConfiguration {
+
+    @Bean
+    RedisMessageListenerContainer resolvedVariablesListenerContainer(JedisConnectionFactory jedisConnectionFactory,
+                                                                     ResolvedVariablesService resolvedVariablesService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory);
+        container.addMessageListener(resolvedVariablesService, new ChannelTopic(ResolvedVariablesService.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,152 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.GlobalVarRepository;
+import org.terrakube.api.repository.ReferenceRepository;
+import org.terrakube.api.repository.VariableRepository;
+import org.terrakube.api.rs.collection.Collection;
+import org.terrakube.api.rs.collection.Reference;
+import org.terrakube.api.rs.collection.item.Item;
+import org.terrakube.api.rs.globalvar.Globalvar;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.parameters.Category;
+import org.terrakube.api.rs.workspace.parameters.Variable;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Cache of the resolved variables by workspace, every step of a job reads the variables from here instead of loading
+ * the workspace variables, global variables and collections again. Entries are invalidated by the Elide hooks of the
+ * variable entities and the invalidation is published over Redis to the other replicas, it is enabled by default and
+ * should only be turned off for a single replica. Entries also expire after ttl.
+ */
+@Slf4j
+@Service
+public class ResolvedVariablesService implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "terrakube:variables:invalidated";
+    private static final String WORKSPACE_PREFIX = "workspace:";
+    private static final String ORGANIZATION_PREFIX = "organization:";
+
+    private final VariableRepository variableRepository;
+    private final GlobalVarRepository globalVarRepository;
+    private final ReferenceRepository referenceRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final boolean pubSubEnabled;
+    private final Cache<UUID, ResolvedVariables> resolvedVariables;
+
+    public ResolvedVariablesService(VariableRepository variableRepository,
+                                    GlobalVarRepository globalVarRepository,
+                                    ReferenceRepository referenceRepository,
+                                    RedisTemplate<String, Object> redisTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${org.terrakube.executor.variables.cache.ttl:60}") long ttl,
+                                    @Value("${org.terrakube.executor.variables.cache.maxSize:10000}") long maxSize,
+                                    @Value("${org.terrakube.executor.variables.cache.pubsub:true}") boolean pubSubEnabled) {
+        this.variableRepository = variableRepository;
+        this.globalVarRepository = globalVarRepository;
+        this.referenceRepository = referenceRepository;
+        this.redisTemplate = redisTemplate;
+        this.pubSubEnabled = pubSubEnabled;
+        this.resolvedVariables = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resolvedVariables, "terrakube.executor.variables");
+    }
+
+    public ResolvedVariables getResolvedVariables(Workspace workspace) {
+        return resolvedVariables.get(workspace.getId(), workspaceId -> resolve(workspace));
+    }
+
+    private ResolvedVariables resolve(Workspace workspace) {
+        log.info("Resolving variables for workspace {}", workspace.getId());
+        Map<Category, Map<String, String>> workspaceVariables = new EnumMap<>(Category.class);
+        for (Variable variable : variableRepository.findByWorkspace(workspace).orElse(new ArrayList<>())) {
+            workspaceVariables.computeIfAbsent(variable.getCategory(), category -> new LinkedHashMap<>())
+                    .put(variable.getKey(), variable.getValue());
+            log.info("Variable Key: {} Value {}", variable.getKey(),
+                    variable.isSensitive() ? "sensitive" : variable.getValue());
+        }
+
+        Map<Category, Map<String, String>> globalVariables = new EnumMap<>(Category.class);
+        for (Globalvar globalvar : globalVarRepository.findByOrganization(workspace.getOrganization())) {
+            globalVariables.computeIfAbsent(globalvar.getCategory(), category -> new LinkedHashMap<>())
+                    .putIfAbsent(globalvar.getKey(), globalvar.getValue());
+            log.info("{} Global Variable Key: {} Value {}", globalvar.getCategory(), globalvar.getKey(),
+                    globalvar.isSensitive() ? "sensitive" : globalvar.getValue());
+        }
+
+        List<Collection> collectionList = new ArrayList<>();
+        for (Reference reference : referenceRepository.findByWorkspaceWithItems(workspace)) {
+            collectionList.add(reference.getCollection());
+        }
+        collectionList.sort(Comparator.comparing(Collection::getPriority).reversed());
+
+        Map<Category, Map<String, String>> collectionVariables = new EnumMap<>(Category.class);
+        for (Collection collection : collectionList) {
+            log.info("Adding data from collection {} using priority {}", collection.getName(), collection.getPriority());
+            for (Item item : collection.getItem()) {
+                collectionVariables.computeIfAbsent(item.getCategory(), category -> new LinkedHashMap<>())
+                        .putIfAbsent(item.getKey(), item.getValue());
+            }
+        }
+
+        return new ResolvedVariables(workspace.getOrganization().getId(), workspaceVariables, globalVariables,
+                collectionVariables);
+    }
+
+    public void invalidateWorkspace(UUID workspaceId) {
+        resolvedVariables.invalidate(workspaceId);
+        publish(WORKSPACE_PREFIX + workspaceId);
+    }
+
+    public void invalidateOrganization(UUID organizationId) {
+        invalidateLocalOrganization(organizationId);
+        publish(ORGANIZATION_PREFIX + organizationId);
+    }
+
+    private void invalidateLocalOrganization(UUID organizationId) {
+        resolvedVariables.asMap().values().removeIf(entry -> entry.getOrganizationId().equals(organizationId));
+    }
+
+    private void publish(String invalidation) {
+        if (pubSubEnabled) {
+            try {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, invalidation);
+            } catch (Exception e) {
+                log.error("Unable to publish variables invalidation {}: {}", invalidation, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object invalidation = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (invalidation == null) {
+            return;
+        }
+        log.debug("Variables invalidated on another instance: {}", invalidation);
+        try {
+            String value = invalidation.toString();
+            if (value.startsWith(WORKSPACE_PREFIX)) {
+                resolvedVariables.invalidate(UUID.fromString(value.substring(WORKSPACE_PREFIX.length())));
+            } else if (value.startsWith(ORGANIZATION_PREFIX)) {
+                invalidateLocalOrganization(UUID.fromString(value.substring(ORGANIZATION_PREFIX.length())));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid variables invalidation {}", invalidation);
+        }
+    }
+}
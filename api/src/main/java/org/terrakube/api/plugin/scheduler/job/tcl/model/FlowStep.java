@@ -0,0 +1,13 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@AllArgsConstructor
+public class FlowStep {
+    private Flow flow;
+    private String stepId;
+}
@@ -0,0 +1,102 @@
+package org.terrakube.api.plugin.scheduler.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.WorkspaceQueueRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.queue.WorkspaceQueue;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.FINAL_STATUS;
+
+/**
+ * FIFO run queue for each workspace. The persisted head pointer is the job that is allowed to run, it is only
+ * replaced when the queue is empty or the head job reaches a final status, and always with a conditional update on
+ * the current value so every replica reads the same head from the database.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class WorkspaceQueueService {
+
+    private static final int MAX_ADVANCE = 100;
+
+    WorkspaceQueueRepository workspaceQueueRepository;
+    JobRepository jobRepository;
+
+    public boolean isHead(Job job) {
+        Long head = getHead(job.getWorkspace());
+        return head != null && head == job.getId();
+    }
+
+    public void enqueue(Job job) {
+        // A job is only set as head when the queue is empty, otherwise it waits until the current head finishes
+        UUID workspaceId = job.getWorkspace().getId();
+        if (workspaceQueueRepository.findHeadJobId(workspaceId).isEmpty()) {
+            moveHead(workspaceId, null, (long) job.getId());
+        }
+    }
+
+    /**
+     * Return the current head of the workspace queue, moving the persisted pointer to the oldest active job when the
+     * head job already reached a final status.
+     */
+    public Optional<Job> advance(Workspace workspace) {
+        Long head = getHead(workspace);
+        return head == null ? Optional.empty() : jobRepository.findById(head.intValue());
+    }
+
+    private Long getHead(Workspace workspace) {
+        UUID workspaceId = workspace.getId();
+        Long head = workspaceQueueRepository.findHeadJobId(workspaceId).orElse(null);
+
+        for (int i = 0; i < MAX_ADVANCE; i++) {
+            Optional<Job> headJob = head == null ? Optional.empty() : jobRepository.findById(head.intValue());
+            if (headJob.isPresent() && !FINAL_STATUS.contains(headJob.get().getStatus())) {
+                break;
+            }
+
+            // A job committed late with an older id is picked up here once the current head finishes
+            Long nextHead = jobRepository.findFirstByWorkspaceAndStatusNotInOrderByIdAsc(workspace, FINAL_STATUS)
+                    .map(job -> (long) job.getId())
+                    .orElse(null);
+            if (Objects.equals(head, nextHead)) {
+                break;
+            }
+
+            log.info("Workspace {} queue head moved from {} to {}", workspaceId, head, nextHead);
+            if (!moveHead(workspaceId, head, nextHead)) {
+                // Another instance moved the head first, read it again
+                nextHead = workspaceQueueRepository.findHeadJobId(workspaceId).orElse(null);
+            }
+            head = nextHead;
+        }
+        return head;
+    }
+
+    private boolean moveHead(UUID workspaceId, Long currentHead, Long nextHead) {
+        int updated = currentHead == null
+                ? workspaceQueueRepository.updateEmptyHead(workspaceId, nextHead)
+                : workspaceQueueRepository.updateHead(workspaceId, currentHead, nextHead);
+
+        if (updated == 0 && currentHead == null && !workspaceQueueRepository.existsById(workspaceId)) {
+            try {
+                WorkspaceQueue workspaceQueue = new WorkspaceQueue();
+                workspaceQueue.setWorkspaceId(workspaceId);
+                workspaceQueue.setHeadJobId(nextHead);
+                workspaceQueueRepository.saveAndFlush(workspaceQueue);
+                updated = 1;
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Workspace {} queue was created by another instance", workspaceId);
+            }
+        }
+        return updated > 0;
+    }
+}
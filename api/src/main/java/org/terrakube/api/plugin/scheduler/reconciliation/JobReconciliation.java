@@ -0,0 +1,75 @@
+package org.terrakube.api.plugin.scheduler.reconciliation;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.job.Job;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.ACTIVE_STATUS;
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.DISPATCH_EVENT_RECONCILIATION;
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.DISPATCH_STATUS;
+
+@Service
+@Slf4j
+@AllArgsConstructor
+@DisallowConcurrentExecution
+public class JobReconciliation implements org.quartz.Job {
+
+    JobRepository jobRepository;
+    ScheduleJobService scheduleJobService;
+
+    @Transactional
+    @Override
+    public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        Set<UUID> workspaces = new HashSet<>();
+        int dispatched = 0;
+        int expired = 0;
+        for (Job job : jobRepository.findAllByStatusInOrderByIdAsc(ACTIVE_STATUS)) {
+            if (job.getWorkspace() == null) {
+                continue;
+            }
+            boolean head = workspaces.add(job.getWorkspace().getId());
+
+            // A job left in queue, running or waitingApproval (for example after an executor crash) is never
+            // dispatched by a status change, ScheduleJob fails an expired job in any status and dispatches the next
+            // job in the workspace queue
+            if (scheduleJobService.isExpired(job)) {
+                log.warn("Reconciliation expiring job {} with status {} created {}", job.getId(), job.getStatus(), job.getCreatedDate());
+                if (dispatch(job)) {
+                    expired++;
+                }
+                continue;
+            }
+
+            // Only the oldest active job in each workspace can move forward, the rest are dispatched when it finishes
+            if (head && DISPATCH_STATUS.contains(job.getStatus())) {
+                log.info("Reconciliation dispatch for job {} with status {}", job.getId(), job.getStatus());
+                if (dispatch(job)) {
+                    dispatched++;
+                }
+            }
+        }
+        log.info("Job reconciliation completed, {} workspaces with active jobs, {} jobs dispatched, {} expired jobs", workspaces.size(), dispatched, expired);
+    }
+
+    private boolean dispatch(Job job) {
+        try {
+            scheduleJobService.dispatchJob(job, DISPATCH_EVENT_RECONCILIATION);
+            return true;
+        } catch (SchedulerException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.terrakube.api.plugin.scheduler.reconciliation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.text.ParseException;
+
+@Service
+@Slf4j
+public class JobReconciliationService {
+
+    private static final String PREFIX_JOB_RECONCILIATION = "TerrakubeV2_JobReconciliation";
+
+    @Autowired
+    Scheduler scheduler;
+
+    @Value("${org.terrakube.scheduler.reconciliation.schedule:0 */5 * ? * *}")
+    String reconciliationSchedule;
+
+    @Transactional
+    @PostConstruct
+    public void initJobReconciliation() {
+        try {
+            log.info("Setup job reconciliation sweep using schedule {}", reconciliationSchedule);
+            JobDetail jobDetail = scheduler.getJobDetail(new JobKey(PREFIX_JOB_RECONCILIATION));
+            if (jobDetail != null) {
+                log.info("Delete Old Quartz Job for job reconciliation");
+                scheduler.deleteJob(new JobKey(PREFIX_JOB_RECONCILIATION));
+            }
+            setupJobReconciliation(reconciliationSchedule);
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    public void setupJobReconciliation(String quartzSchedule) throws ParseException, SchedulerException {
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put("JobReconciliation", "JobReconciliationV1");
+
+        JobDetail jobDetail = JobBuilder.newJob().ofType(JobReconciliation.class)
+                .storeDurably()
+                .setJobData(jobDataMap)
+                .withIdentity(PREFIX_JOB_RECONCILIATION)
+                .withDescription("JobReconciliationV1")
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .startNow()
+                .forJob(jobDetail)
+                .withIdentity(PREFIX_JOB_RECONCILIATION)
+                .withDescription("JobReconciliationV1")
+                .withSchedule(CronScheduleBuilder.cronSchedule(new CronExpression(quartzSchedule)))
+                .build();
+
+        log.info("Create Schedule Job Trigger for job reconciliation {}", jobDetail.getKey());
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+}
@@ -0,0 +1,50 @@
+package org.terrakube.api.plugin.scheduler.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.plugin.vcs.provider.github.GitHubTokenService;
+import org.terrakube.api.repository.GitHubAppTokenRepository;
+import org.terrakube.api.rs.vcs.GitHubAppToken;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+@AllArgsConstructor
+@DisallowConcurrentExecution
+public class GitHubAppTokenRefresh implements org.quartz.Job {
+
+    private static final long INSTALLATION_TOKEN_LIFETIME = TimeUnit.HOURS.toMillis(1);
+
+    GitHubAppTokenRepository gitHubAppTokenRepository;
+    GitHubTokenService gitHubTokenService;
+
+    @Transactional
+    @Override
+    public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        Date refreshBefore = new Date(System.currentTimeMillis() - INSTALLATION_TOKEN_LIFETIME + gitHubTokenService.getRefreshAhead());
+        List<GitHubAppToken> gitHubAppTokens = gitHubAppTokenRepository.findByUpdatedDateBeforeOrUpdatedDateIsNull(refreshBefore);
+        int refreshed = 0;
+        for (GitHubAppToken gitHubAppToken : gitHubAppTokens) {
+            try {
+                gitHubTokenService.refreshGitHubAppToken(gitHubAppToken);
+                refreshed++;
+            } catch (JsonProcessingException | NoSuchAlgorithmException | InvalidKeySpecException | RuntimeException e) {
+                log.error("Failed to refresh token for GitHub installation {} on organization/user {}, error {}", gitHubAppToken.getId(), gitHubAppToken.getOwner(), e.getMessage());
+            }
+        }
+        if (!gitHubAppTokens.isEmpty()) {
+            log.info("GitHub App token refresh sweep refreshed {} of {} tokens", refreshed, gitHubAppTokens.size());
+        }
+    }
+}
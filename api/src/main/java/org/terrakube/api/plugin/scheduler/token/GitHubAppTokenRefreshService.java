@@ -0,0 +1,73 @@
+package org.terrakube.api.plugin.scheduler.token;
+
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.text.ParseException;
+
+/**
+ * Single Quartz sweep refreshing all the GitHub App installation tokens close to expiration. It replaces the
+ * trigger that was created for every token, those triggers are removed when the service starts.
+ */
+@Service
+@Slf4j
+public class GitHubAppTokenRefreshService {
+
+    private static final String PREFIX_GITHUB_APP_TOKEN_REFRESH = "TerrakubeV2_GitHubAppTokenRefresh";
+    private static final String PREFIX_GITHUB_APP_TOKEN_LEGACY = "TerrakubeV2_GitHubAppToken_";
+
+    @Autowired
+    Scheduler scheduler;
+
+    @Value("${org.terrakube.github.app.token.refreshSchedule:0 */5 * ? * *}")
+    String refreshSchedule;
+
+    @PostConstruct
+    public void initGitHubAppTokenRefresh() {
+        try {
+            deleteLegacyTriggers();
+            log.info("Setup GitHub App token refresh sweep using schedule {}", refreshSchedule);
+            JobDetail jobDetail = scheduler.getJobDetail(new JobKey(PREFIX_GITHUB_APP_TOKEN_REFRESH));
+            if (jobDetail != null) {
+                log.info("Delete Old Quartz Job for GitHub App token refresh");
+                scheduler.deleteJob(new JobKey(PREFIX_GITHUB_APP_TOKEN_REFRESH));
+            }
+            setupGitHubAppTokenRefresh(refreshSchedule);
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    private void deleteLegacyTriggers() throws SchedulerException {
+        for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyJobGroup())) {
+            if (jobKey.getName().startsWith(PREFIX_GITHUB_APP_TOKEN_LEGACY)) {
+                log.info("Delete GitHub App token Quartz Job {}", jobKey.getName());
+                scheduler.deleteJob(jobKey);
+            }
+        }
+    }
+
+    public void setupGitHubAppTokenRefresh(String quartzSchedule) throws ParseException, SchedulerException {
+        JobDetail jobDetail = JobBuilder.newJob().ofType(GitHubAppTokenRefresh.class)
+                .storeDurably()
+                .withIdentity(PREFIX_GITHUB_APP_TOKEN_REFRESH)
+                .withDescription("GitHubAppTokenRefreshV1")
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .startNow()
+                .forJob(jobDetail)
+                .withIdentity(PREFIX_GITHUB_APP_TOKEN_REFRESH)
+                .withDescription("GitHubAppTokenRefreshV1")
+                .withSchedule(CronScheduleBuilder.cronSchedule(new CronExpression(quartzSchedule)))
+                .build();
+
+        log.info("Create Schedule Job Trigger for GitHub App token refresh {}", jobDetail.getKey());
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+}
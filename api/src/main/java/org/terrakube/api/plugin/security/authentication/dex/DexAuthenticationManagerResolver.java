@@ -3,8 +3,11 @@ package org.terrakube.api.plugin.security.authentication.dex;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Header;
 import io.jsonwebtoken.Jwt;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -12,22 +15,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
 import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtDecoders;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
-import org.terrakube.api.repository.PatRepository;
-import org.terrakube.api.repository.TeamTokenRepository;
-import org.terrakube.api.rs.token.group.Group;
-import org.terrakube.api.rs.token.pat.Pat;
+import org.terrakube.api.plugin.token.revocation.TokenRevocationService;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The authentication managers are created once per issuer type and reused for every request. The Dex decoder is
+ * created on first use from the issuer discovery document, its remote JWK source caches the key set and fetches it
+ * again when a token is signed with an unknown key id.
+ */
 @Builder
 @Getter
 @Setter
@@ -36,40 +43,66 @@ public class DexAuthenticationManagerResolver implements AuthenticationManagerRe
 
     private static final String jwtTypePat="Terrakube";
     private static final String jwtTypeInternal="TerrakubeInternal";
+    private static final String jwtTypeDex="Dex";
+    private static final String AUTHENTICATION_METRIC = "terrakube.api.authentication";
+    private static final JwtParser untrustedParser = Jwts.parserBuilder().build();
     private String dexIssuerUri;
     private String patJwtSecret;
     private String internalJwtSecret;
-    private PatRepository patRepository;
-    private TeamTokenRepository teamTokenRepository;
+    private TokenRevocationService tokenRevocationService;
+    private MeterRegistry meterRegistry;
+    @Builder.Default
+    private Map<String, AuthenticationManager> authenticationManagers = new ConcurrentHashMap<>();
 
     @Override
     public AuthenticationManager resolve(HttpServletRequest request) {
-        ProviderManager providerManager = null;
         String issuer = "";
         try{
-            issuer = getIssuer(request);
-            if (isTokenDeleted(getTokenId(request))){
+            Claims claims = getUntrustedClaims(request);
+            issuer = claims.getIssuer();
+            if (tokenRevocationService.isTokenDeleted(claims.getId(), claims.getExpiration())){
                 //FORCE TOKEN TO USE INTERNAL AUTH SO IT CAN ALWAYS FAIL
                 issuer = jwtTypeInternal;
             }
         }catch (Exception ex){
             log.info(ex.getMessage());
         }
-        switch (issuer) {
+        String issuerType = issuer == null ? "" : issuer;
+        switch (issuerType) {
             case jwtTypePat:
                 log.debug("Using Terrakube Authentication Provider");
-                providerManager = new ProviderManager(new JwtAuthenticationProvider(getJwtEncoder(jwtTypePat)));
                 break;
             case jwtTypeInternal:
                 log.debug("Using Terrakube Internal Authentication Provider");
-                providerManager = new ProviderManager(new JwtAuthenticationProvider(getJwtEncoder(jwtTypeInternal)));
                 break;
             default:
                 log.debug("Using Dex JWT Authentication Provider");
-                providerManager = new ProviderManager(new JwtAuthenticationProvider(JwtDecoders.fromIssuerLocation(this.dexIssuerUri)));
+                issuerType = jwtTypeDex;
                 break;
         }
-        return providerManager;
+        return authenticationManagers.computeIfAbsent(issuerType, this::createAuthenticationManager);
+    }
+
+    private AuthenticationManager createAuthenticationManager(String issuerType) {
+        JwtDecoder jwtDecoder = issuerType.equals(jwtTypeDex) ? JwtDecoders.fromIssuerLocation(this.dexIssuerUri) : getJwtEncoder(issuerType);
+        ProviderManager providerManager = new ProviderManager(new JwtAuthenticationProvider(jwtDecoder));
+        if (meterRegistry == null) {
+            return providerManager;
+        }
+
+        Timer successTimer = Timer.builder(AUTHENTICATION_METRIC).tag("issuer", issuerType).tag("outcome", "success").register(meterRegistry);
+        Timer failureTimer = Timer.builder(AUTHENTICATION_METRIC).tag("issuer", issuerType).tag("outcome", "failure").register(meterRegistry);
+        return authentication -> {
+            long start = System.nanoTime();
+            boolean authenticated = false;
+            try {
+                Authentication result = providerManager.authenticate(authentication);
+                authenticated = true;
+                return result;
+            } finally {
+                (authenticated ? successTimer : failureTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
     }
 
     private JwtDecoder getJwtEncoder(String issuerType) {
@@ -78,45 +111,13 @@ public class DexAuthenticationManagerResolver implements AuthenticationManagerRe
         return NimbusJwtDecoder.withSecretKey(jwtSecretKey).macAlgorithm(MacAlgorithm.HS256).build();
     }
 
-    private String getIssuer(HttpServletRequest request) {
+    private Claims getUntrustedClaims(HttpServletRequest request) {
         String token = request.getHeader("authorization").replace("Bearer ", "");
         String withoutSignature = token.substring(0, token.lastIndexOf('.') + 1);
-        Jwt<Header, Claims> untrusted = Jwts.parserBuilder().build().parseClaimsJwt(withoutSignature);
-        log.debug("Token {}", token);
-        log.debug("Token Without Signature {}", withoutSignature);
+        Jwt<Header, Claims> untrusted = untrustedParser.parseClaimsJwt(withoutSignature);
         log.debug("Issuer {}", untrusted.getBody().getIssuer());
-
-        return untrusted.getBody().getIssuer();
-    }
-
-    private String getTokenId(HttpServletRequest request) {
-        String searchToken = request.getHeader("authorization").replace("Bearer ", "");
-        String withoutSignature = searchToken.substring(0, searchToken.lastIndexOf('.') + 1);
-        Jwt<Header, Claims> untrusted = Jwts.parserBuilder().build().parseClaimsJwt(withoutSignature);
         log.debug("TokenId {}", untrusted.getBody().getId());
 
-        return untrusted.getBody().getId();
-    }
-
-    private boolean isTokenDeleted(String tokenId) {
-        if (tokenId != null) {
-            Optional<Pat> searchPat = patRepository.findById(UUID.fromString(tokenId));
-            Optional<Group> searchGroupToken = teamTokenRepository.findById(UUID.fromString(tokenId));
-            if (searchPat.isPresent()) {
-                Pat pat = searchPat.get();
-                if (pat.isDeleted()) {
-                    return true;
-                } else return false;
-            }
-
-            if (searchGroupToken.isPresent()) {
-                Group group = searchGroupToken.get();
-                if (group.isDeleted()) {
-                    return true;
-                } else return false;
-            }
-        }
-
-        return false;
+        return untrusted.getBody();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package org.terrakube.api.plugin.security.authentication.dex;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -14,8 +15,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import org.terrakube.api.repository.PatRepository;
-import org.terrakube.api.repository.TeamTokenRepository;
+import org.terrakube.api.plugin.token.revocation.TokenRevocationService;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Arrays;
@@ -31,8 +31,8 @@ public class DexWebSecurityAdapter {
         public SecurityFilterChain filterChain(HttpSecurity http,
                         @Value("${org.terrakube.token.issuer-uri}") String issuerUri,
                         @Value("${org.terrakube.token.pat}") String patJwtSecret,
-                        @Value("${org.terrakube.token.internal}") String internalJwtSecret, PatRepository patRepository,
-                        TeamTokenRepository teamTokenRepository) throws Exception {
+                        @Value("${org.terrakube.token.internal}") String internalJwtSecret, TokenRevocationService tokenRevocationService,
+                        MeterRegistry meterRegistry) throws Exception {
                 http.cors(Customizer.withDefaults())
                                 .csrf(crsf -> crsf.ignoringRequestMatchers("/remote/tfe/v2/configuration-versions/*",
                                                 "/tfstate/v1/archive/*/terraform.tfstate",
@@ -70,8 +70,8 @@ public class DexWebSecurityAdapter {
                                                         .dexIssuerUri(issuerUri)
                                                         .patJwtSecret(patJwtSecret)
                                                         .internalJwtSecret(internalJwtSecret)
-                                                        .patRepository(patRepository)
-                                                        .teamTokenRepository(teamTokenRepository)
+                                                        .tokenRevocationService(tokenRevocationService)
+                                                        .meterRegistry(meterRegistry)
                                                         .build();
                                         oauth2.authenticationManagerResolver(authenticationManagerResolver);
                                 });
@@ -0,0 +1,42 @@
+package org.terrakube.api.plugin.security.groups;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Groups of the authenticated principal resolved once per request. Security checks evaluated for every entity of a
+ * collection use the group set and reuse the decisions already taken for the same organization.
+ */
+@Getter
+public class AuthorizationContext {
+
+    private final Set<String> groups;
+    private final boolean internal;
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    public AuthorizationContext(Set<String> groups, boolean internal) {
+        this.groups = groups;
+        this.internal = internal;
+    }
+
+    public boolean isMember(String group) {
+        return groups.contains(group);
+    }
+
+    public boolean isServiceMember(String group) {
+        return internal || groups.contains(group);
+    }
+
+    public boolean resolve(String decisionKey, BooleanSupplier decision) {
+        Boolean result = decisions.get(decisionKey);
+        if (result == null) {
+            result = decision.getAsBoolean();
+            decisions.put(decisionKey, result);
+        }
+        return result;
+    }
+}
@@ -13,4 +13,6 @@ public interface GroupService {
 
      boolean isMemberWithLimitedAccessV2(User user, Organization organization);
 
+    AuthorizationContext getAuthorizationContext(User user);
+
 }
@@ -1,5 +1,7 @@
 package org.terrakube.api.plugin.security.groups.dex;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.yahoo.elide.core.security.User;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,15 +9,21 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.security.groups.AuthorizationContext;
 import org.terrakube.api.plugin.security.groups.GroupService;
 import org.terrakube.api.repository.AccessRepository;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.terrakube.api.rs.workspace.access.Access;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @AllArgsConstructor
@@ -30,34 +38,35 @@ public class DexGroupServiceImpl implements GroupService {
 
     private static final String REDIS_ORG_LIMITED = "org_%s_%s";
 
+    // The authentication token is created for every request, weak keys drop the context once the request is done
+    private final Cache<Object, AuthorizationContext> authorizationContexts = Caffeine.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
     @Override
     public boolean isMember(User user, String group) {
-        JwtAuthenticationToken principal = ((JwtAuthenticationToken) user.getPrincipal());
-        boolean isMember = false;
-        for (String groupName : toStringArray((java.util.ArrayList) principal.getTokenAttributes().get("groups"))) {
-            if (groupName.equals(group))
-                isMember = true;
-        }
-        log.debug("{} is member {} {}", principal.getTokenAttributes().get("name"), group, isMember);
+        boolean isMember = getAuthorizationContext(user).isMember(group);
+        log.debug("{} is member {} {}", user.getName(), group, isMember);
         return isMember;
     }
 
     @Override
     public boolean isServiceMember(User user, String group) {
-        JwtAuthenticationToken principal = ((JwtAuthenticationToken) user.getPrincipal());
-        boolean isMember = principal.getTokenAttributes().get("iss").equals("TerrakubeInternal")? true: false;
-        if(!isMember) {
-            for (String groupName : toStringArray((java.util.ArrayList) principal.getTokenAttributes().get("groups"))) {
-                if (groupName.equals(group))
-                    isMember = true;
-            }
-            log.debug("{} is member {} {}", principal.getTokenAttributes().get("name"), group, isMember);
-        }else{
-            log.debug("TerrakubeInternal Client Service Group Membership");
-        }
+        boolean isMember = getAuthorizationContext(user).isServiceMember(group);
+        log.debug("{} is service member {} {}", user.getName(), group, isMember);
         return isMember;
     }
 
+    @Override
+    public AuthorizationContext getAuthorizationContext(User user) {
+        return authorizationContexts.get(user.getPrincipal(), principal -> {
+            Map<String, Object> tokenAttributes = ((JwtAuthenticationToken) principal).getTokenAttributes();
+            Set<String> groups = new HashSet<>(Arrays.asList(toStringArray((java.util.ArrayList) tokenAttributes.get("groups"))));
+            return new AuthorizationContext(groups, "TerrakubeInternal".equals(tokenAttributes.get("iss")));
+        });
+    }
+
     private String[] toStringArray(java.util.ArrayList array) {
         if (array == null)
             return new String[0];
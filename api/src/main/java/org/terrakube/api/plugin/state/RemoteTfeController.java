@@ -26,10 +26,12 @@ import org.terrakube.api.plugin.state.model.workspace.WorkspaceError;
 import org.terrakube.api.plugin.state.model.workspace.WorkspaceList;
 import org.terrakube.api.plugin.state.model.workspace.state.consumers.StateConsumerList;
 import org.terrakube.api.plugin.state.model.workspace.tags.TagDataList;
+import org.terrakube.api.plugin.storage.StorageResourceWriter;
 
 import java.nio.charset.StandardCharsets;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.security.Principal;
@@ -46,6 +48,8 @@ public class RemoteTfeController {
 
     RemoteTfeService remoteTfeService;
 
+    StorageResourceWriter storageResourceWriter;
+
     @Transactional
     @GetMapping(produces = "application/vnd.api+json", path = "organizations/{organizationName}/entitlement-set")
     public ResponseEntity<EntitlementData> getOrgEntitlementSet(
@@ -101,11 +105,13 @@ public class RemoteTfeController {
     @GetMapping(produces = "application/vnd.api+json", path = "organizations/{organizationName}/workspaces")
     public ResponseEntity<WorkspaceList> listWorkspace(@PathVariable("organizationName") String organizationName,
             @RequestParam("search[tags]") Optional<String> searchTags,
-            @RequestParam("search[name]") Optional<String> searchName, Principal principal) {
+            @RequestParam("search[name]") Optional<String> searchName,
+            @RequestParam(name = "page[number]", defaultValue = "1") int pageNumber,
+            @RequestParam(name = "page[size]", defaultValue = "20") int pageSize, Principal principal) {
         log.info("Searching Tags: {} {}", organizationName, searchTags.isPresent() ? searchTags.get() : null);
         log.info("Searching Names: {} {}", organizationName, searchName.isPresent() ? searchName.get() : null);
         return ResponseEntity.of(Optional.ofNullable(remoteTfeService.listWorkspace(organizationName, searchTags,
-                searchName, (JwtAuthenticationToken) principal)));
+                searchName, pageNumber, pageSize, (JwtAuthenticationToken) principal)));
     }
 
     @Transactional
@@ -243,15 +249,19 @@ public class RemoteTfeController {
 
     @Transactional
     @GetMapping(produces = "application/vnd.api+json", path = "/workspaces/{workspaceId}/runs")
-    public ResponseEntity<RunsDataList> getWorkspaceRuns(@PathVariable("workspaceId") String workspaceId) {
+    public ResponseEntity<RunsDataList> getWorkspaceRuns(@PathVariable("workspaceId") String workspaceId,
+            @RequestParam(name = "page[number]", defaultValue = "1") int pageNumber,
+            @RequestParam(name = "page[size]", defaultValue = "20") int pageSize) {
         log.info("Get workspace runs for {}", workspaceId);
-        return ResponseEntity.ok(remoteTfeService.getWorkspaceRuns(workspaceId));
+        return ResponseEntity.ok(remoteTfeService.getWorkspaceRuns(workspaceId, pageNumber, pageSize));
     }
 
     @Transactional
     @GetMapping(produces = "application/vnd.api+json", path = "/organizations/{organizationName}/runs/queue")
-    public ResponseEntity<RunsDataList> getRunQueue(@PathVariable("organizationName") String organizationName) {
-        return ResponseEntity.ok(remoteTfeService.getRunsQueue(organizationName));
+    public ResponseEntity<RunsDataList> getRunQueue(@PathVariable("organizationName") String organizationName,
+            @RequestParam(name = "page[number]", defaultValue = "1") int pageNumber,
+            @RequestParam(name = "page[size]", defaultValue = "20") int pageSize) {
+        return ResponseEntity.ok(remoteTfeService.getRunsQueue(organizationName, pageNumber, pageSize));
     }
 
     @GetMapping(produces = "application/vnd.api+json", path = "/runs/{runsId}/run-events")
@@ -324,8 +334,8 @@ public class RemoteTfeController {
     }
 
     @GetMapping(value = "configuration-versions/{planId}/terraformContent.tar.gz", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public @ResponseBody byte[] getTerraformPlanBinary(@PathVariable("planId") String planId) {
-        return remoteTfeService.getContentFile(planId);
+    public void getTerraformPlanBinary(@PathVariable("planId") String planId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        storageResourceWriter.write(remoteTfeService.getContentFileResource(planId), MediaType.APPLICATION_OCTET_STREAM, request, response);
     }
 
 }
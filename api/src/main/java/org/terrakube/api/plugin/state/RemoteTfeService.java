@@ -5,13 +5,14 @@ import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
-import org.apache.commons.text.TextStringBuilder;
 import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.connection.stream.StreamOffset;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.terrakube.api.plugin.scheduler.ScheduleJobService;
@@ -21,6 +22,8 @@ import org.terrakube.api.plugin.state.model.configuration.ConfigurationData;
 import org.terrakube.api.plugin.state.model.configuration.ConfigurationModel;
 import org.terrakube.api.plugin.state.model.entitlement.EntitlementData;
 import org.terrakube.api.plugin.state.model.entitlement.EntitlementModel;
+import org.terrakube.api.plugin.state.model.generic.Meta;
+import org.terrakube.api.plugin.state.model.generic.Pagination;
 import org.terrakube.api.plugin.state.model.generic.Resource;
 import org.terrakube.api.plugin.state.model.organization.OrganizationData;
 import org.terrakube.api.plugin.state.model.organization.OrganizationModel;
@@ -48,6 +51,7 @@ import org.terrakube.api.plugin.state.model.workspace.state.consumers.StateConsu
 import org.terrakube.api.plugin.state.model.workspace.tags.TagDataList;
 import org.terrakube.api.plugin.state.model.workspace.vcs.VcsRepo;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.streaming.LogsOffsetService;
 import org.terrakube.api.plugin.token.team.TeamTokenService;
 import org.terrakube.api.repository.*;
 import org.terrakube.api.rs.Organization;
@@ -73,6 +77,10 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class RemoteTfeService {
 
+    private static final List<JobStatus> CURRENT_RUN_STATUS = Arrays.asList(JobStatus.pending, JobStatus.running,
+            JobStatus.queue, JobStatus.waitingApproval);
+    private static final int MAX_PAGE_SIZE = 100;
+
     private JobRepository jobRepository;
     private ContentRepository contentRepository;
     private OrganizationRepository organizationRepository;
@@ -83,8 +91,6 @@ public class RemoteTfeService {
     private String hostname;
     private StorageTypeService storageTypeService;
     private StepRepository stepRepository;
-    @SuppressWarnings("rawtypes")
-    private RedisTemplate redisTemplate;
     private int executorCount;
 
     private TagRepository tagRepository;
@@ -97,6 +103,8 @@ public class RemoteTfeService {
 
     private AccessRepository accessRepository;
 
+    private LogsOffsetService logsOffsetService;
+
     public RemoteTfeService(JobRepository jobRepository,
                             ContentRepository contentRepository,
                             OrganizationRepository organizationRepository,
@@ -107,13 +115,13 @@ public class RemoteTfeService {
                             @Value("${org.terrakube.hostname}") String hostname,
                             StorageTypeService storageTypeService,
                             StepRepository stepRepository,
-                            @SuppressWarnings("rawtypes") RedisTemplate redisTemplate,
                             @Value("${org.terrakube.executor.replicas}") int executorCount,
                             TagRepository tagRepository,
                             WorkspaceTagRepository workspaceTagRepository,
                             TeamTokenService teamTokenService,
                             ArchiveRepository archiveRepository,
-                            AccessRepository accessRepository) {
+                            AccessRepository accessRepository,
+                            LogsOffsetService logsOffsetService) {
         this.jobRepository = jobRepository;
         this.contentRepository = contentRepository;
         this.organizationRepository = organizationRepository;
@@ -124,13 +132,13 @@ public class RemoteTfeService {
         this.hostname = hostname;
         this.storageTypeService = storageTypeService;
         this.stepRepository = stepRepository;
-        this.redisTemplate = redisTemplate;
         this.executorCount = executorCount;
         this.tagRepository = tagRepository;
         this.workspaceTagRepository = workspaceTagRepository;
         this.teamTokenService = teamTokenService;
         this.archiveRepository = archiveRepository;
         this.accessRepository = accessRepository;
+        this.logsOffsetService = logsOffsetService;
     }
 
     private boolean validateTerrakubeUser(JwtAuthenticationToken currentUser) {
@@ -319,79 +327,105 @@ public class RemoteTfeService {
         if (workspace.isPresent()) {
             log.info("Found Workspace Id: {} Terraform: {}", workspace.get().getId().toString(),
                     workspace.get().getTerraformVersion());
-            WorkspaceData workspaceData = new WorkspaceData();
+            Optional<Job> currentJob = jobRepository.findFirstByWorkspaceAndStatusInOrderByIdAsc(workspace.get(),
+                    CURRENT_RUN_STATUS);
+            return getWorkspaceData(workspace.get(), otherAttributes, currentUser, currentJob);
+        } else {
+            return null;
+        }
 
-            WorkspaceModel workspaceModel = new WorkspaceModel();
-            workspaceModel.setId(workspace.get().getId().toString());
-            workspaceModel.setType("workspaces");
-            Map<String, Object> attributes = new HashMap<>();
-            attributes.put("name", workspaceName);
-            attributes.put("terraform-version", workspace.get().getTerraformVersion());
-            attributes.put("locked", workspace.get().isLocked());
-            attributes.put("auto-apply", false);
-            attributes.put("execution-mode", workspace.get().getExecutionMode());
-            attributes.put("global-remote-state", true);
-
-            if (workspace.get().getFolder() != null
-                    && (workspace.get().getVcs() != null || workspace.get().getSsh() != null)
-                    && !workspace.get().getFolder().split(",")[0].equals("/")) {
-                attributes.put("working-directory", workspace.get().getFolder().split(",")[0]);
-            }
+    }
 
-            boolean isManageWorkspace = validateUserManageWorkspace(workspace.get().getOrganization(), currentUser) || validateLimitedManageWorkspace(workspace.get(), currentUser);
-            boolean isManageJob = validateUserManageJob(workspace.get(), currentUser);
-
-            Map<String, Boolean> defaultAttributes = new HashMap<>();
-            defaultAttributes.put("can-create-state-versions", isManageWorkspace);
-            defaultAttributes.put("can-destroy", isManageWorkspace);
-            defaultAttributes.put("can-force-unlock", isManageWorkspace);
-            defaultAttributes.put("can-lock", isManageWorkspace);
-            defaultAttributes.put("can-manage-run-tasks", isManageWorkspace);
-            defaultAttributes.put("can-manage-tags", isManageWorkspace);
-            defaultAttributes.put("can-queue-apply", isManageJob);
-            defaultAttributes.put("can-queue-destroy", isManageWorkspace);
-            defaultAttributes.put("can-queue-run", isManageJob);
-            defaultAttributes.put("can-read-settings", true);
-            defaultAttributes.put("can-read-state-versions", isManageWorkspace);
-            defaultAttributes.put("can-read-variable", true);
-            defaultAttributes.put("can-unlock", isManageWorkspace);
-            defaultAttributes.put("can-update", isManageWorkspace);
-            defaultAttributes.put("can-update-variable", isManageWorkspace);
-            defaultAttributes.put("can-read-assessment-result", isManageWorkspace);
-            defaultAttributes.put("can-force-delete", isManageWorkspace);
-            // defaultAttributes.put("structured-run-output-enabled", true);
-
-            attributes.put("permissions", defaultAttributes);
-
-            if (workspace.get().getVcs() != null) {
-                VcsRepo vcsRepo = new VcsRepo();
-                vcsRepo.setBranch(workspace.get().getBranch());
-                vcsRepo.setRepositoryHttpUrl(workspace.get().getSource());
-                attributes.put("vcs-repo", vcsRepo);
-            }
+    /**
+     * Build the workspaces of a list with one query for the access of every workspace and one query for the current
+     * runs, instead of loading each workspace again by name.
+     */
+    private List<WorkspaceModel> getWorkspaceModels(List<Workspace> workspaces, JwtAuthenticationToken currentUser) {
+        List<WorkspaceModel> workspaceModels = new ArrayList<>();
+        if (workspaces.isEmpty())
+            return workspaceModels;
+
+        workspaceRepository.fetchAccess(workspaces);
+        Map<UUID, Job> currentJobs = new HashMap<>();
+        jobRepository.findAllByWorkspaceInAndStatusInOrderByIdAsc(workspaces, CURRENT_RUN_STATUS)
+                .forEach(job -> currentJobs.putIfAbsent(job.getWorkspace().getId(), job));
+
+        for (Workspace workspace : workspaces) {
+            workspaceModels.add(getWorkspaceData(workspace, new HashMap<>(), currentUser,
+                    Optional.ofNullable(currentJobs.get(workspace.getId()))).getData());
+        }
+        return workspaceModels;
+    }
 
-            otherAttributes.forEach((key, value) -> attributes.putIfAbsent(key, value));
+    private WorkspaceData getWorkspaceData(Workspace workspace, Map<String, Object> otherAttributes,
+                                           JwtAuthenticationToken currentUser, Optional<Job> currentJob) {
+        WorkspaceData workspaceData = new WorkspaceData();
+
+        WorkspaceModel workspaceModel = new WorkspaceModel();
+        workspaceModel.setId(workspace.getId().toString());
+        workspaceModel.setType("workspaces");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("name", workspace.getName());
+        attributes.put("terraform-version", workspace.getTerraformVersion());
+        attributes.put("locked", workspace.isLocked());
+        attributes.put("auto-apply", false);
+        attributes.put("execution-mode", workspace.getExecutionMode());
+        attributes.put("global-remote-state", true);
+
+        if (workspace.getFolder() != null
+                && (workspace.getVcs() != null || workspace.getSsh() != null)
+                && !workspace.getFolder().split(",")[0].equals("/")) {
+            attributes.put("working-directory", workspace.getFolder().split(",")[0]);
+        }
 
-            workspaceModel.setAttributes(attributes);
-            workspaceData.setData(workspaceModel);
+        boolean isManageWorkspace = validateUserManageWorkspace(workspace.getOrganization(), currentUser) || validateLimitedManageWorkspace(workspace, currentUser);
+        boolean isManageJob = validateUserManageJob(workspace, currentUser);
+
+        Map<String, Boolean> defaultAttributes = new HashMap<>();
+        defaultAttributes.put("can-create-state-versions", isManageWorkspace);
+        defaultAttributes.put("can-destroy", isManageWorkspace);
+        defaultAttributes.put("can-force-unlock", isManageWorkspace);
+        defaultAttributes.put("can-lock", isManageWorkspace);
+        defaultAttributes.put("can-manage-run-tasks", isManageWorkspace);
+        defaultAttributes.put("can-manage-tags", isManageWorkspace);
+        defaultAttributes.put("can-queue-apply", isManageJob);
+        defaultAttributes.put("can-queue-destroy", isManageWorkspace);
+        defaultAttributes.put("can-queue-run", isManageJob);
+        defaultAttributes.put("can-read-settings", true);
+        defaultAttributes.put("can-read-state-versions", isManageWorkspace);
+        defaultAttributes.put("can-read-variable", true);
+        defaultAttributes.put("can-unlock", isManageWorkspace);
+        defaultAttributes.put("can-update", isManageWorkspace);
+        defaultAttributes.put("can-update-variable", isManageWorkspace);
+        defaultAttributes.put("can-read-assessment-result", isManageWorkspace);
+        defaultAttributes.put("can-force-delete", isManageWorkspace);
+        // defaultAttributes.put("structured-run-output-enabled", true);
+
+        attributes.put("permissions", defaultAttributes);
+
+        if (workspace.getVcs() != null) {
+            VcsRepo vcsRepo = new VcsRepo();
+            vcsRepo.setBranch(workspace.getBranch());
+            vcsRepo.setRepositoryHttpUrl(workspace.getSource());
+            attributes.put("vcs-repo", vcsRepo);
+        }
 
-            Optional<Job> currentJob = jobRepository.findFirstByWorkspaceAndStatusInOrderByIdAsc(workspace.get(),
-                    Arrays.asList(JobStatus.pending, JobStatus.running, JobStatus.queue, JobStatus.waitingApproval));
-            if (currentJob.isPresent()) {
-                log.info("Found Current Job Id: {}", currentJob.get().getId());
-                workspaceModel.setRelationships(new org.terrakube.api.plugin.state.model.workspace.Relationships());
-                CurrentRunModel currentRunModel = new CurrentRunModel();
-                currentRunModel.setData(new Resource());
-                currentRunModel.getData().setId(String.valueOf(currentJob.get().getId()));
-                currentRunModel.getData().setType("runs");
-                workspaceModel.getRelationships().setCurrentRun(currentRunModel);
-            }
+        otherAttributes.forEach((key, value) -> attributes.putIfAbsent(key, value));
 
-            return workspaceData;
-        } else {
-            return null;
+        workspaceModel.setAttributes(attributes);
+        workspaceData.setData(workspaceModel);
+
+        if (currentJob.isPresent()) {
+            log.info("Found Current Job Id: {}", currentJob.get().getId());
+            workspaceModel.setRelationships(new org.terrakube.api.plugin.state.model.workspace.Relationships());
+            CurrentRunModel currentRunModel = new CurrentRunModel();
+            currentRunModel.setData(new Resource());
+            currentRunModel.getData().setId(String.valueOf(currentJob.get().getId()));
+            currentRunModel.getData().setType("runs");
+            workspaceModel.getRelationships().setCurrentRun(currentRunModel);
         }
 
+        return workspaceData;
     }
 
     StateConsumerList getWorkspaceStateConsumers(String workspaceId, JwtAuthenticationToken currentUser) {
@@ -403,13 +437,12 @@ public class RemoteTfeService {
 
         workspaceFound.ifPresent(workspaceData -> {
             log.info("Workspace found {}, generating workspace list from organization", workspaceData.getName());
-            workspaceData.getOrganization().getWorkspace().forEach(workspace -> {
-                if (!workspace.getId().toString().equals(workspaceId)) {
-                    log.info("Adding workspace {} as state consumers", workspace.getName());
-                    stateConsumerList.getData().add(getWorkspace(workspace.getOrganization().getName(),
-                            workspace.getName(), new HashMap(), currentUser).getData());
-                }
-            });
+            List<Workspace> consumers = workspaceData.getOrganization().getWorkspace()
+                    .stream()
+                    .filter(workspace -> !workspace.getId().toString().equals(workspaceId))
+                    .toList();
+            log.info("Adding {} workspaces as state consumers", consumers.size());
+            stateConsumerList.getData().addAll(getWorkspaceModels(consumers, currentUser));
         });
 
         return stateConsumerList;
@@ -417,47 +450,54 @@ public class RemoteTfeService {
     }
 
     WorkspaceList listWorkspace(String organizationName, Optional<String> searchTags, Optional<String> searchName,
-                                JwtAuthenticationToken currentUser) {
+                                int pageNumber, int pageSize, JwtAuthenticationToken currentUser) {
         WorkspaceList workspaceList = new WorkspaceList();
-        workspaceList.setData(new ArrayList());
+        Pageable pageable = getPageable(pageNumber, pageSize).withSort(Sort.by("name"));
+        Page<Workspace> workspacePage = Page.empty(pageable);
 
         if (searchTags.isPresent()) {
-            String searchTagData = searchTags.get();
-            List<String> listTags = Arrays.stream(searchTagData.split(",")).toList();
-            log.info("Searching workspaces with tags: {}", searchTags);
-            for (Workspace workspace : organizationRepository.getOrganizationByName(organizationName).getWorkspace()) {
-                List<WorkspaceTag> workspaceTagList = workspace.getWorkspaceTag();
-                int matchingTags = 0;
-
-                for (WorkspaceTag workspaceTag : workspaceTagList) {
-                    Tag tag = tagRepository.getReferenceById(UUID.fromString(workspaceTag.getTagId()));
-                    if (listTags.indexOf(tag.getName()) > -1) {
-                        matchingTags++;
-                    }
-                }
-                log.info("Workspace {} Tags Count {} Searching Tag Quantity {} Matched {}", workspace.getName(),
-                        workspaceTagList.size(), listTags.size(), matchingTags);
-                if (matchingTags == listTags.size()) {
-                    workspaceList.getData().add(
-                            getWorkspace(organizationName, workspace.getName(), new HashMap(), currentUser).getData());
-                }
+            Set<String> listTags = Arrays.stream(searchTags.get().split(","))
+                    .map(String::trim)
+                    .filter(tag -> !tag.isEmpty())
+                    .collect(Collectors.toSet());
+            log.info("Searching workspaces with tags: {}", listTags);
+            List<Tag> tags = tagRepository.findByOrganizationNameAndNameIn(organizationName, listTags);
+            Set<String> foundTags = tags.stream().map(Tag::getName).collect(Collectors.toSet());
+            if (!listTags.isEmpty() && foundTags.containsAll(listTags)) {
+                List<String> tagIds = tags.stream().map(tag -> tag.getId().toString()).toList();
+                workspacePage = workspaceRepository.findByOrganizationNameAndTags(organizationName,
+                        searchName.orElse(""), tagIds, listTags.size(), pageable);
             }
+        } else if (searchName.isPresent()) {
+            log.info("Searching workspaces with name prefix: {}", searchName.get());
+            workspacePage = workspaceRepository.findByOrganizationNameAndNameStartingWith(organizationName,
+                    searchName.get(), pageable);
         }
 
-        if (searchName.isPresent()) {
-            String searchNameData = searchName.get();
-            log.info("Searching workspaces with name prefix: {}", searchNameData);
-            Optional<List<Workspace>> workspaceListByName = workspaceRepository
-                    .findWorkspacesByOrganizationNameAndNameStartingWith(organizationName, searchNameData);
-            if (workspaceListByName.isPresent())
-                for (Workspace workspace : workspaceListByName.get()) {
-                    workspaceList.getData().add(
-                            getWorkspace(organizationName, workspace.getName(), new HashMap(), currentUser).getData());
-                }
-        }
+        log.info("Workspaces found {} page {} of {}", workspacePage.getTotalElements(), pageable.getPageNumber() + 1,
+                workspacePage.getTotalPages());
+        workspaceList.setData(getWorkspaceModels(workspacePage.getContent(), currentUser));
+        workspaceList.setMeta(getMeta(workspacePage));
         return workspaceList;
     }
 
+    private PageRequest getPageable(int pageNumber, int pageSize) {
+        return PageRequest.of(Math.max(pageNumber, 1) - 1, Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE));
+    }
+
+    private Meta getMeta(Page<?> page) {
+        Pagination pagination = new Pagination();
+        pagination.setCurrentPage(page.getNumber() + 1);
+        pagination.setPageSize(page.getSize());
+        pagination.setPrevPage(page.hasPrevious() ? page.getNumber() : null);
+        pagination.setNextPage(page.hasNext() ? page.getNumber() + 2 : null);
+        pagination.setTotalPages(page.getTotalPages());
+        pagination.setTotalCount(page.getTotalElements());
+        Meta meta = new Meta();
+        meta.setPagination(pagination);
+        return meta;
+    }
+
     boolean updateWorkspaceTags(String workspaceId, TagDataList tagDataList) {
         Workspace workspace = workspaceRepository.getReferenceById(UUID.fromString(workspaceId));
         tagDataList.getData().forEach(tagModel -> {
@@ -560,6 +600,9 @@ public class RemoteTfeService {
                 workspace.getOrganization().getId().toString());
         workspace.setLocked(locked);
         workspaceRepository.save(workspace);
+        if (!locked) {
+            scheduleJobService.dispatchNextJob(workspace);
+        }
         String organizationName = workspace.getOrganization().getName();
         Map<String, Object> otherAttributes = new HashMap<>();
 
@@ -802,8 +845,8 @@ public class RemoteTfeService {
         return searchConfiguration(contentId);
     }
 
-    byte[] getContentFile(String contentId) {
-        return storageTypeService.getContentFile(contentId);
+    org.springframework.core.io.Resource getContentFileResource(String contentId) {
+        return storageTypeService.getContentFileResource(contentId);
     }
 
     ConfigurationData searchConfiguration(String contentId) {
@@ -902,83 +945,12 @@ public class RemoteTfeService {
         Job job = jobRepository.getReferenceById(Integer.valueOf(runId));
 
         if (job.getWorkspace() != null) {
-            RunsData runsData = new RunsData();
-            RunsModel runsModel = new RunsModel();
-            runsModel.setId("run-" + runId);
-            runsModel.setType("runs");
-            runsModel.setAttributes(new HashMap<>());
-
-            String planStatus = "running";
-
-            switch (job.getStatus()) {
-                case completed:
-                    planStatus = "finished";
-                    break;
-                case pending:
-                    // check if any step is in status pending else we need to return running
-                    // check if workspace is not lock return running too
-                    Optional<Step> optionalStep = stepRepository.findFirstByJobIdOrderByStepNumber(job.getId());
-                    if (optionalStep.isPresent()) {
-                        Step step = optionalStep.get();
-                        if (step.getStatus().equals(JobStatus.pending)) {
-                            planStatus = "pending";
-                        } else {
-                            planStatus = "running";
-                        }
-                    } else {
-                        planStatus = "pending";
-                    }
-                    break;
-                case running:
-                case queue:
-                    planStatus = "running";
-                    break;
-                case failed:
-                    planStatus = "errored";
-                    break;
-                default:
-                    planStatus = "unknown";
-                    break;
-            }
-
-            runsModel.getAttributes().put("status", planStatus);
-            runsModel.getAttributes().put("has-changes", job.isPlanChanges());
-            runsModel.getAttributes().put("resource-additions", 1);
-            runsModel.getAttributes().put("resource-changes", 1);
-            runsModel.getAttributes().put("resource-destructions", 0);
-
-            HashMap<String, Object> actions = new HashMap<>();
-            actions.put("is-confirmable", true);
-            actions.put("is-discardable", true);
-            runsModel.getAttributes().put("actions", actions);
-
-            HashMap<String, Object> permissions = new HashMap<>();
-            permissions.put("can-apply", true);
-            runsModel.getAttributes().put("permissions", permissions);
-
-            runsData.setData(runsModel);
-            Relationships relationships = new Relationships();
-            org.terrakube.api.plugin.state.model.runs.PlanModel planModel = new org.terrakube.api.plugin.state.model.runs.PlanModel();
-            planModel.setData(new Resource());
-            planModel.getData().setType("plans");
-            planModel.getData().setId(String.valueOf(runId));
-            relationships.setPlan(planModel);
-
-            ApplyModel applyModel = new ApplyModel();
-            applyModel.setData(new Resource());
-            applyModel.getData().setType("applies");
-            applyModel.getData().setId(String.valueOf(runId));
-            relationships.setApply(applyModel);
-
-            org.terrakube.api.plugin.state.model.runs.WorkspaceModel workspaceModel = new org.terrakube.api.plugin.state.model.runs.WorkspaceModel();
-            workspaceModel.setData(new Resource());
-            workspaceModel.getData().setId(job.getWorkspace().getId().toString());
-            workspaceModel.getData().setType("workspaces");
-            relationships.setWorkspace(workspaceModel);
-
-            RunEventsModel runEventsModel = new RunEventsModel();
-            runEventsModel.setData(new ArrayList<Resource>());
-            relationships.setRunEventsModel(runEventsModel);
+            // check if any step is in status pending else we need to return running
+            Optional<JobStatus> firstStepStatus = job.getStatus() == JobStatus.pending
+                    ? stepRepository.findFirstByJobIdOrderByStepNumber(job.getId()).map(Step::getStatus)
+                    : Optional.empty();
+            RunsData runsData = getRunsData(runId, job.getWorkspace().getId(), getPlanStatus(job.getStatus(), firstStepStatus),
+                    job.isPlanChanges());
 
             log.info("Included: {}", include);
             // if(include != null && include.equals("workspace")){
@@ -987,61 +959,118 @@ public class RemoteTfeService {
             // job.getWorkspace().getName(), new HashMap<>()));
             // }
 
-            runsData.getData().setRelationships(relationships);
-
             log.info("{}", runsData.toString());
             return runsData;
         } else
             return null;
     }
 
-    RunsDataList getRunsQueue(String organizationName) {
-        RunsDataList runsDataList = new RunsDataList();
-        runsDataList.setData(new ArrayList<RunsModel>());
-        List<Job> jobList = jobRepository.findAllByOrganizationNameAndStatusInOrderByIdAsc(
-                organizationName,
-                Arrays.asList(
-                        JobStatus.pending,
-                        JobStatus.running,
-                        JobStatus.queue,
-                        JobStatus.waitingApproval));
-
-        int runQueue = 0;
-        for (Job job : jobList) {
-            log.info("Run Queue {} job {}", runQueue, job.getId());
-            Optional<RunsData> runsData = Optional.ofNullable(getRun(job.getId(), null));
-            if (runsData.isPresent()) {
-                RunsModel runsModel = runsData.get().getData();
-                runsModel.getAttributes().put("position-in-queue", runQueue);
-                runsDataList.getData().add(runsModel);
-                runQueue = runQueue + 1;
-            }
+    private String getPlanStatus(JobStatus jobStatus, Optional<JobStatus> firstStepStatus) {
+        switch (jobStatus) {
+            case completed:
+                return "finished";
+            case pending:
+                // check if workspace is not lock return running too
+                return firstStepStatus.map(stepStatus -> stepStatus.equals(JobStatus.pending) ? "pending" : "running")
+                        .orElse("pending");
+            case running:
+            case queue:
+                return "running";
+            case failed:
+                return "errored";
+            default:
+                return "unknown";
+        }
+    }
+
+    private RunsData getRunsData(int runId, UUID workspaceId, String planStatus, boolean planChanges) {
+        RunsData runsData = new RunsData();
+        RunsModel runsModel = new RunsModel();
+        runsModel.setId("run-" + runId);
+        runsModel.setType("runs");
+        runsModel.setAttributes(new HashMap<>());
+
+        runsModel.getAttributes().put("status", planStatus);
+        runsModel.getAttributes().put("has-changes", planChanges);
+        runsModel.getAttributes().put("resource-additions", 1);
+        runsModel.getAttributes().put("resource-changes", 1);
+        runsModel.getAttributes().put("resource-destructions", 0);
+
+        HashMap<String, Object> actions = new HashMap<>();
+        actions.put("is-confirmable", true);
+        actions.put("is-discardable", true);
+        runsModel.getAttributes().put("actions", actions);
+
+        HashMap<String, Object> permissions = new HashMap<>();
+        permissions.put("can-apply", true);
+        runsModel.getAttributes().put("permissions", permissions);
+
+        runsData.setData(runsModel);
+        Relationships relationships = new Relationships();
+        org.terrakube.api.plugin.state.model.runs.PlanModel planModel = new org.terrakube.api.plugin.state.model.runs.PlanModel();
+        planModel.setData(new Resource());
+        planModel.getData().setType("plans");
+        planModel.getData().setId(String.valueOf(runId));
+        relationships.setPlan(planModel);
+
+        ApplyModel applyModel = new ApplyModel();
+        applyModel.setData(new Resource());
+        applyModel.getData().setType("applies");
+        applyModel.getData().setId(String.valueOf(runId));
+        relationships.setApply(applyModel);
+
+        org.terrakube.api.plugin.state.model.runs.WorkspaceModel workspaceModel = new org.terrakube.api.plugin.state.model.runs.WorkspaceModel();
+        workspaceModel.setData(new Resource());
+        workspaceModel.getData().setId(workspaceId.toString());
+        workspaceModel.getData().setType("workspaces");
+        relationships.setWorkspace(workspaceModel);
+
+        RunEventsModel runEventsModel = new RunEventsModel();
+        runEventsModel.setData(new ArrayList<Resource>());
+        relationships.setRunEventsModel(runEventsModel);
+
+        runsData.getData().setRelationships(relationships);
+        return runsData;
+    }
+
+    RunsDataList getRunsQueue(String organizationName, int pageNumber, int pageSize) {
+        Page<JobRepository.RunSummary> runs = jobRepository.findRunQueueByOrganizationName(organizationName,
+                CURRENT_RUN_STATUS, getPageable(pageNumber, pageSize));
+
+        RunsDataList runsDataList = getRunsDataList(runs);
+        long runQueue = runs.getPageable().getOffset();
+        for (RunsModel runsModel : runsDataList.getData()) {
+            log.info("Run Queue {} job {}", runQueue, runsModel.getId());
+            runsModel.getAttributes().put("position-in-queue", runQueue);
+            runQueue = runQueue + 1;
         }
-        runsDataList.setCurrentPage(1);
-        runsDataList.setTotalPages(1);
         return runsDataList;
     }
 
-    RunsDataList getWorkspaceRuns(String workspaceId) {
-        RunsDataList runsDataList = new RunsDataList();
-        runsDataList.setData(new ArrayList<RunsModel>());
-        Optional<Workspace> workspaceList = workspaceRepository.findById(UUID.fromString(workspaceId));
-        if (!workspaceList.isPresent()) {
+    RunsDataList getWorkspaceRuns(String workspaceId, int pageNumber, int pageSize) {
+        Optional<Workspace> workspace = workspaceRepository.findById(UUID.fromString(workspaceId));
+        if (!workspace.isPresent()) {
+            RunsDataList runsDataList = new RunsDataList();
+            runsDataList.setData(new ArrayList<RunsModel>());
             return runsDataList;
         }
-        Workspace workspace = workspaceList.get();
-        jobRepository.findAllByWorkspaceAndStatusInOrderByIdDesc(workspace, Arrays.asList(
-                JobStatus.pending,
-                JobStatus.running,
-                JobStatus.queue,
-                JobStatus.waitingApproval)).forEach(job -> {
-            log.info("Run Workspace {} job {}", workspace.getName(), job.getId());
-            Optional<RunsData> runsData = Optional.ofNullable(getRun(job.getId(), null));
-            runsDataList.getData().add(runsData.get().getData());
-        });
 
-        runsDataList.setCurrentPage(1);
-        runsDataList.setTotalPages(1);
+        log.info("Run Workspace {}", workspace.get().getName());
+        return getRunsDataList(jobRepository.findRunsByWorkspace(workspace.get(), CURRENT_RUN_STATUS,
+                getPageable(pageNumber, pageSize)));
+    }
+
+    private RunsDataList getRunsDataList(Page<JobRepository.RunSummary> runs) {
+        RunsDataList runsDataList = new RunsDataList();
+        runsDataList.setData(new ArrayList<RunsModel>());
+        for (JobRepository.RunSummary run : runs.getContent()) {
+            String planStatus = getPlanStatus(run.getStatus(), Optional.ofNullable(run.getFirstStepStatus()));
+            runsDataList.getData().add(getRunsData(run.getJobId(), run.getWorkspaceId(), planStatus,
+                    run.getPlanChanges()).getData());
+        }
+        runsDataList.setCurrentPage(runs.getNumber() + 1);
+        runsDataList.setTotalPages(runs.getTotalPages());
+        runsDataList.setMeta(getMeta(runs));
         return runsDataList;
     }
 
@@ -1108,6 +1137,7 @@ public class RemoteTfeService {
             job.setStatus(JobStatus.cancelled);
             jobRepository.save(job);
             scheduleJobService.deleteJobContext(job.getId());
+            scheduleJobService.dispatchNextJob(job.getWorkspace());
         } catch (ParseException | SchedulerException e) {
             log.error(e.getMessage());
         }
@@ -1195,65 +1225,22 @@ public class RemoteTfeService {
     }
 
     byte[] getPlanLogs(int planId, int offset, int limit) {
-        Job job = jobRepository.getReferenceById(Integer.valueOf(planId));
-        byte[] logs = "".getBytes();
-        TextStringBuilder logsOutput = new TextStringBuilder();
-        if (job.getStep() != null && !job.getStep().isEmpty())
-            for (Step step : job.getStep()) {
-                if (step.getStepNumber() == 100) {
-                    log.info("Checking logs for plan: {}", step.getId());
-
-                    try {
-                        @SuppressWarnings("unchecked")
-                        List<MapRecord<String, String, String>> messagesPlan = redisTemplate.opsForStream()
-                                .read(StreamOffset.fromStart(String.valueOf(job.getId())),
-                                        StreamOffset.latest(String.valueOf(job.getId())));
-
-                        for (MapRecord<String, String, String> mapRecord : messagesPlan) {
-                            Map<String, String> streamData = (Map<String, String>) mapRecord.getValue();
-                            logsOutput.appendln(streamData.get("output"));
-                        }
-
-                        String logsOutputString = logsOutput.toString();
-                        int potentialEndIndex = limit + offset;
-                        int endIndex = logsOutputString.length() > potentialEndIndex ? potentialEndIndex
-                                : logsOutputString.length();
-                        logs = logsOutputString.substring(offset, endIndex).getBytes(StandardCharsets.UTF_8);
-                        log.debug("{}", logs);
-                    } catch (Exception ex) {
-                        log.debug(ex.getMessage());
-                    }
-                }
-            }
-        return logs;
+        return getRunLogs(planId, offset, limit);
     }
 
     byte[] getApplyLogs(int planId, int offset, int limit) {
+        return getRunLogs(planId, offset, limit);
+    }
+
+    private byte[] getRunLogs(int planId, int offset, int limit) {
         Job job = jobRepository.getReferenceById(Integer.valueOf(planId));
         byte[] logs = "".getBytes();
-        TextStringBuilder logsOutputApply = new TextStringBuilder();
         if (job.getStep() != null && !job.getStep().isEmpty())
             for (Step step : job.getStep()) {
                 if (step.getStepNumber() == 100) {
-                    log.debug("Checking logs stepId for apply: {}", step.getId());
-
+                    log.debug("Checking logs for step: {} offset {} limit {}", step.getId(), offset, limit);
                     try {
-                        @SuppressWarnings("unchecked")
-                        List<MapRecord<String, String, String>> messagesApply = redisTemplate.opsForStream().read(
-                                StreamOffset.fromStart(String.valueOf(job.getId())),
-                                StreamOffset.latest(String.valueOf(job.getId())));
-
-                        for (MapRecord<String, String, String> mapRecord : messagesApply) {
-                            Map<String, String> streamData = (Map<String, String>) mapRecord.getValue();
-                            logsOutputApply.appendln(streamData.get("output"));
-                        }
-
-                        String logsOutputString = logsOutputApply.toString();
-                        int potentialEndIndex = limit + offset;
-                        int endIndex = logsOutputString.length() > potentialEndIndex ? potentialEndIndex
-                                : logsOutputString.length();
-                        logs = logsOutputString.substring(offset, endIndex).getBytes(StandardCharsets.UTF_8);
-                        log.debug("{}", logs);
+                        logs = logsOffsetService.readLogs(String.valueOf(job.getId()), offset, limit);
                     } catch (Exception ex) {
                         log.debug(ex.getMessage());
                     }
@@ -0,0 +1,12 @@
+package org.terrakube.api.plugin.state.model.generic;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class Meta {
+    Pagination pagination;
+}
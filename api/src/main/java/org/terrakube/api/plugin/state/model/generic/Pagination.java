@@ -0,0 +1,24 @@
+package org.terrakube.api.plugin.state.model.generic;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class Pagination {
+    @JsonProperty("current-page")
+    int currentPage;
+    @JsonProperty("page-size")
+    int pageSize;
+    @JsonProperty("prev-page")
+    Integer prevPage;
+    @JsonProperty("next-page")
+    Integer nextPage;
+    @JsonProperty("total-pages")
+    int totalPages;
+    @JsonProperty("total-count")
+    long totalCount;
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.terrakube.api.plugin.state.model.generic.Meta;
 
 import java.util.List;
 
@@ -16,4 +17,5 @@ public class RunsDataList {
     int currentPage;
     @JsonProperty("total-pages")
     int totalPages;
+    Meta meta;
 }
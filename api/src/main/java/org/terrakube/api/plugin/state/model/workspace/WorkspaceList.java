@@ -2,6 +2,7 @@ package org.terrakube.api.plugin.state.model.workspace;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.terrakube.api.plugin.state.model.generic.Meta;
 
 import java.util.List;
 
@@ -10,4 +11,6 @@ import java.util.List;
 public class WorkspaceList {
 
     List<WorkspaceModel> data;
+
+    Meta meta;
 }
@@ -0,0 +1,79 @@
+package org.terrakube.api.plugin.storage;
+
+import lombok.Getter;
+import org.springframework.http.HttpRange;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Body of a storage object opened for a download together with the range and the total length taken from the same
+ * read, so the Content-Range header always describes the bytes that are sent.
+ */
+@Getter
+public class StorageContent implements Closeable {
+
+    private final long start;
+    private final long end;
+    private final long totalLength;
+    private final boolean partial;
+    private final boolean satisfiable;
+    private InputStream inputStream;
+
+    private StorageContent(long start, long end, long totalLength, boolean partial, boolean satisfiable) {
+        this.start = start;
+        this.end = end;
+        this.totalLength = totalLength;
+        this.partial = partial;
+        this.satisfiable = satisfiable;
+    }
+
+    /**
+     * Resolve the requested range against the total length of the object. The whole object is returned when there is
+     * no range, when the object is empty or when the length is unknown.
+     */
+    public static StorageContent resolve(HttpRange range, long totalLength) {
+        if (range == null || totalLength <= 0) {
+            return new StorageContent(0, totalLength - 1, totalLength, false, true);
+        }
+        try {
+            long start = range.getRangeStart(totalLength);
+            if (start < totalLength) {
+                return new StorageContent(start, range.getRangeEnd(totalLength), totalLength, true, true);
+            }
+        } catch (IllegalArgumentException e) {
+            // invalid range for the length of the object
+        }
+        return new StorageContent(0, -1, totalLength, false, false);
+    }
+
+    /**
+     * Range returned by the storage backend, the content range has the format "bytes start-end/total".
+     */
+    public static StorageContent fromContentRange(String contentRange) {
+        String[] rangeAndTotal = contentRange.substring(contentRange.indexOf(' ') + 1).split("/");
+        String[] startAndEnd = rangeAndTotal[0].split("-");
+        long totalLength = "*".equals(rangeAndTotal[1]) ? -1 : Long.parseLong(rangeAndTotal[1]);
+        return new StorageContent(Long.parseLong(startAndEnd[0]), Long.parseLong(startAndEnd[1]), totalLength, true, true);
+    }
+
+    public StorageContent withInputStream(InputStream inputStream) {
+        this.inputStream = inputStream;
+        return this;
+    }
+
+    /**
+     * Number of bytes in the body or -1 when the length of the object is unknown.
+     */
+    public long getLength() {
+        return partial ? end - start + 1 : totalLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.terrakube.api.plugin.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.HttpRange;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Object in the storage backend that is read as a stream instead of being loaded in memory. The implementations can
+ * read a byte range directly from the storage so HTTP Range requests do not need to download the whole object.
+ */
+public abstract class StorageResource extends AbstractResource {
+
+    /**
+     * Open the object, or only the requested range, with the length taken from the same read from the storage. Returns
+     * null when the object does not exist.
+     */
+    public abstract StorageContent open(HttpRange range) throws IOException;
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        StorageContent storageContent = open(null);
+        if (storageContent == null) {
+            throw new FileNotFoundException(getDescription());
+        }
+        return storageContent.getInputStream();
+    }
+
+    /**
+     * Content for a range rejected by the storage. Any range of an empty object is rejected and it is sent as an empty
+     * body, null is returned when the range is valid for the current length because the object was replaced.
+     */
+    protected StorageContent rangeNotSatisfiable(HttpRange range, long contentLength) {
+        StorageContent storageContent = StorageContent.resolve(range, contentLength);
+        if (contentLength == 0) {
+            return storageContent.withInputStream(InputStream.nullInputStream());
+        }
+        return storageContent.isSatisfiable() ? null : storageContent;
+    }
+
+}
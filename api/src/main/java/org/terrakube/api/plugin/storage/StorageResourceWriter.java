@@ -0,0 +1,119 @@
+package org.terrakube.api.plugin.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Write a storage resource to the HTTP response without loading it in memory. A single byte range from the Range
+ * header is supported. Storage resources are opened with one read that returns the body and the length of the same
+ * object version, other resources are read from the range offset.
+ */
+@Slf4j
+@Component
+public class StorageResourceWriter {
+
+    private static final String ACCEPT_RANGES_BYTES = "bytes";
+
+    public void write(Resource resource, MediaType mediaType, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(mediaType.toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, ACCEPT_RANGES_BYTES);
+
+        if (resource instanceof StorageResource storageResource && !"HEAD".equalsIgnoreCase(request.getMethod())) {
+            writeStorageContent(storageResource, getRange(request), response);
+            return;
+        }
+
+        if (resource == null || !resource.exists()) {
+            sendEmptyResponse(response);
+            return;
+        }
+
+        long contentLength = resource.contentLength();
+        if (contentLength < 0) {
+            log.debug("Unknown content length for {}, sending full content", resource.getDescription());
+            response.setStatus(HttpServletResponse.SC_OK);
+            if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+                try (InputStream inputStream = resource.getInputStream()) {
+                    StreamUtils.copy(inputStream, response.getOutputStream());
+                }
+            }
+            return;
+        }
+
+        StorageContent storageContent = StorageContent.resolve(getRange(request), contentLength);
+        if (!sendHeaders(storageContent, response) || storageContent.getLength() == 0 || "HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+
+        OutputStream outputStream = response.getOutputStream();
+        try (InputStream inputStream = resource.getInputStream()) {
+            StreamUtils.copyRange(inputStream, outputStream, storageContent.getStart(), storageContent.getEnd());
+        }
+        outputStream.flush();
+    }
+
+    private void writeStorageContent(StorageResource storageResource, HttpRange range, HttpServletResponse response) throws IOException {
+        try (StorageContent storageContent = storageResource.open(range)) {
+            if (storageContent == null) {
+                sendEmptyResponse(response);
+                return;
+            }
+            if (!sendHeaders(storageContent, response) || storageContent.getLength() == 0) {
+                return;
+            }
+            OutputStream outputStream = response.getOutputStream();
+            StreamUtils.copy(storageContent.getInputStream(), outputStream);
+            outputStream.flush();
+        }
+    }
+
+    private boolean sendHeaders(StorageContent storageContent, HttpServletResponse response) {
+        if (!storageContent.isSatisfiable()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + storageContent.getTotalLength());
+            return false;
+        }
+        if (storageContent.isPartial()) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%s", storageContent.getStart(), storageContent.getEnd(),
+                    storageContent.getTotalLength() < 0 ? "*" : storageContent.getTotalLength()));
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        if (storageContent.getLength() >= 0) {
+            response.setContentLengthLong(storageContent.getLength());
+        }
+        return true;
+    }
+
+    private HttpRange getRange(HttpServletRequest request) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void sendEmptyResponse(HttpServletResponse response) {
+        log.info("Resource not found, sending empty response");
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentLength(0);
+    }
+}
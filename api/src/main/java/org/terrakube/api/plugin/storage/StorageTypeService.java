@@ -1,5 +1,8 @@
 package org.terrakube.api.plugin.storage;
 
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 
@@ -7,16 +10,44 @@ public interface StorageTypeService {
 
     byte[] getStepOutput(String organizationId, String jobId, String stepId);
 
+    Resource getStepOutputResource(String organizationId, String jobId, String stepId);
+
     byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId);
 
+    Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId);
+
     byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName);
 
+    Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName);
+
     void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId);
 
+    /**
+     * Store the json state of a history entry, an IOException is thrown if the content could not be stored completely
+     */
+    void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException;
+
     byte[] getCurrentTerraformState(String organizationId, String workspaceId);
 
+    Resource getCurrentTerraformStateResource(String organizationId, String workspaceId);
+
     void uploadState(String organizationId, String workspaceId, String terraformState, String historyId);
 
+    /**
+     * Store the raw state of a history entry and make it the current workspace state, the current state is only
+     * replaced once the content was stored completely, otherwise an IOException is thrown
+     */
+    void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException;
+
+    void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException;
+
+    /**
+     * Store a content addressed state blob, the blob is only visible once the content was stored completely
+     */
+    void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException;
+
+    Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash);
+
     String saveContext(int jobId, String jobContext);
 
     String getContext(int jobId);
@@ -25,6 +56,8 @@ public interface StorageTypeService {
 
     byte[] getContentFile(String contentId);
 
+    Resource getContentFileResource(String contentId);
+
     void deleteModuleStorage(String organizationName, String moduleName, String providerName);
 
     void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList);
@@ -0,0 +1,92 @@
+package org.terrakube.api.plugin.storage.aws;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpRange;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+@AllArgsConstructor
+public class AwsStorageResource extends StorageResource {
+
+    private static final int NOT_FOUND = 404;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private S3Client s3client;
+    private String bucketName;
+    private String objectKey;
+
+    @Override
+    public boolean exists() {
+        return headObject() != null;
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        HeadObjectResponse headObjectResponse = headObject();
+        if (headObjectResponse == null) {
+            throw new FileNotFoundException(getDescription());
+        }
+        return headObjectResponse.contentLength();
+    }
+
+    @Override
+    public StorageContent open(HttpRange range) throws IOException {
+        GetObjectRequest.Builder getObjectRequest = GetObjectRequest.builder().bucket(bucketName).key(objectKey);
+        if (range != null) {
+            getObjectRequest.range("bytes=" + range);
+        }
+        try {
+            ResponseInputStream<GetObjectResponse> inputStream = s3client.getObject(getObjectRequest.build());
+            GetObjectResponse getObjectResponse = inputStream.response();
+            StorageContent storageContent = getObjectResponse.contentRange() != null
+                    ? StorageContent.fromContentRange(getObjectResponse.contentRange())
+                    : StorageContent.resolve(null, getObjectResponse.contentLength());
+            return storageContent.withInputStream(inputStream);
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return null;
+            }
+            if (range != null && e.statusCode() == RANGE_NOT_SATISFIABLE) {
+                // the error does not include the object size, it is only needed for the Content-Range of the 416
+                HeadObjectResponse headObjectResponse = headObject();
+                if (headObjectResponse == null) {
+                    return null;
+                }
+                StorageContent storageContent = rangeNotSatisfiable(range, headObjectResponse.contentLength());
+                if (storageContent != null) {
+                    return storageContent;
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("S3 object [%s/%s]", bucketName, objectKey);
+    }
+
+    private HeadObjectResponse headObject() {
+        try {
+            return s3client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(objectKey).build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.StringUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.sshd.common.util.io.IoUtils;
+import org.springframework.core.io.Resource;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -12,10 +14,13 @@ import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
@@ -33,6 +38,10 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
 
     private static final String TERRAFORM_TAR_GZ = "content/%s/terraformContent.tar.gz";
 
+    private static final String BUCKET_STATE_BLOB = "tfstate/%s/%s/blobs/%s.gz";
+
+    private static final int MULTIPART_PART_SIZE = 8 * 1024 * 1024;
+
     @NonNull
     private S3Client s3client;
 
@@ -68,21 +77,121 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         log.info("Upload Object {} completed", blobKey);
     }
 
+    /**
+     * A single PutObject or CompleteMultipartUpload only makes the object visible once the whole content was
+     * received, a failed upload is aborted so the previous version of the object is kept.
+     */
+    private void uploadStreamToBucket(String bucketName, String blobKey, InputStream inputStream, long contentLength) throws IOException {
+        if (contentLength >= 0 && contentLength <= MULTIPART_PART_SIZE) {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(blobKey)
+                    .build();
+            s3client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, contentLength));
+            log.info("Upload Object {} completed", blobKey);
+            return;
+        }
+
+        byte[] buffer = new byte[MULTIPART_PART_SIZE];
+        int read = IOUtils.read(inputStream, buffer);
+        if (read < buffer.length) {
+            checkContentLength(blobKey, read, contentLength);
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(blobKey)
+                    .build();
+            s3client.putObject(putObjectRequest, RequestBody.fromBytes(Arrays.copyOf(buffer, read)));
+            log.info("Upload Object {} completed", blobKey);
+            return;
+        }
+
+        String uploadId = s3client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(blobKey)
+                .build()).uploadId();
+        try {
+            List<CompletedPart> completedParts = new ArrayList<>();
+            long totalBytes = 0;
+            int partNumber = 1;
+            // the last part is skipped when it is empty, the body was an exact multiple of the part size
+            while (read > 0) {
+                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(blobKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .build();
+                String eTag = s3client.uploadPart(uploadPartRequest, RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, read), read)).eTag();
+                completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                totalBytes += read;
+                partNumber++;
+                read = read == buffer.length ? IOUtils.read(inputStream, buffer) : 0;
+            }
+            checkContentLength(blobKey, totalBytes, contentLength);
+
+            s3client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(blobKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.info("Multipart upload {} completed with {} parts", blobKey, completedParts.size());
+        } catch (IOException | RuntimeException e) {
+            s3client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(blobKey)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    private void checkContentLength(String blobKey, long received, long contentLength) throws IOException {
+        if (contentLength >= 0 && received != contentLength) {
+            throw new IOException(String.format("Incomplete upload for %s, received %d of %d bytes", blobKey, received, contentLength));
+        }
+    }
+
+    private void copyObjectInBucket(String bucketName, String sourceKey, String destinationKey) {
+        s3client.copyObject(CopyObjectRequest.builder()
+                .sourceBucket(bucketName)
+                .sourceKey(sourceKey)
+                .destinationBucket(bucketName)
+                .destinationKey(destinationKey)
+                .build());
+        log.info("Copy Object {} to {} completed", sourceKey, destinationKey);
+    }
+
     @Override
     public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
         return downloadObjectFromBucket(bucketName, String.format(BUCKET_LOCATION_OUTPUT, organizationId, jobId, stepId));
     }
 
+    @Override
+    public Resource getStepOutputResource(String organizationId, String jobId, String stepId) {
+        return new AwsStorageResource(s3client, bucketName, String.format(BUCKET_LOCATION_OUTPUT, organizationId, jobId, stepId));
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         return downloadObjectFromBucket(bucketName, String.format(BUCKET_STATE_LOCATION, organizationId, workspaceId, jobId, stepId));
     }
 
+    @Override
+    public Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId) {
+        return new AwsStorageResource(s3client, bucketName, String.format(BUCKET_STATE_LOCATION, organizationId, workspaceId, jobId, stepId));
+    }
+
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
         return downloadObjectFromBucket(bucketName, String.format(BUCKET_STATE_JSON, organizationId, workspaceId, stateFileName));
     }
 
+    @Override
+    public Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName) {
+        return new AwsStorageResource(s3client, bucketName, String.format(BUCKET_STATE_JSON, organizationId, workspaceId, stateFileName));
+    }
+
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
         String blobKey = String.format("tfstate/%s/%s/state/%s.json", organizationId, workspaceId, stateJsonHistoryId);
@@ -95,6 +204,18 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         return downloadObjectFromBucket(bucketName, String.format("tfstate/%s/%s/terraform.tfstate", organizationId, workspaceId));
     }
 
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException {
+        String blobKey = String.format("tfstate/%s/%s/state/%s.json", organizationId, workspaceId, stateJsonHistoryId);
+        log.info("terraformJsonStateFile: {}", blobKey);
+        uploadStreamToBucket(bucketName, blobKey, stateJson, contentLength);
+    }
+
+    @Override
+    public Resource getCurrentTerraformStateResource(String organizationId, String workspaceId) {
+        return new AwsStorageResource(s3client, bucketName, String.format("tfstate/%s/%s/terraform.tfstate", organizationId, workspaceId));
+    }
+
     @Override
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         String blobKey = String.format("tfstate/%s/%s/terraform.tfstate", organizationId, workspaceId);
@@ -105,6 +226,36 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         uploadStringToBucket(bucketName, rawBlobKey, terraformState);
     }
 
+    @Override
+    public void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException {
+        String blobKey = String.format("tfstate/%s/%s/terraform.tfstate", organizationId, workspaceId);
+        String rawBlobKey = String.format("tfstate/%s/%s/state/%s.raw.json", organizationId, workspaceId, historyId);
+        log.info("terraformStateFile: {}", blobKey);
+        log.info("terraformRawStateFile: {}", rawBlobKey);
+        // the history copy is written first, the current state is only replaced when the whole body was received
+        uploadStreamToBucket(bucketName, rawBlobKey, terraformState, contentLength);
+        copyObjectInBucket(bucketName, rawBlobKey, blobKey);
+    }
+
+    @Override
+    public void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException {
+        String blobKey = String.format("tfstate/%s/%s/terraform.tfstate", organizationId, workspaceId);
+        log.info("terraformStateFile: {}", blobKey);
+        uploadStreamToBucket(bucketName, blobKey, terraformState, contentLength);
+    }
+
+    @Override
+    public void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException {
+        String blobKey = String.format(BUCKET_STATE_BLOB, organizationId, workspaceId, blobHash);
+        log.info("terraformStateBlob: {}", blobKey);
+        uploadStreamToBucket(bucketName, blobKey, blob, contentLength);
+    }
+
+    @Override
+    public Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash) {
+        return new AwsStorageResource(s3client, bucketName, String.format(BUCKET_STATE_BLOB, organizationId, workspaceId, blobHash));
+    }
+
     @Override
     public String saveContext(int jobId, String jobContext) {
         String blobKey = String.format(CONTEXT_JSON, jobId);
@@ -156,6 +307,11 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         }
     }
 
+    @Override
+    public Resource getContentFileResource(String contentId) {
+        return new AwsStorageResource(s3client, bucketName, String.format(TERRAFORM_TAR_GZ, contentId));
+    }
+
     @Override
     public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
         String registryPath = String.format("registry/%s/%s/%s/", organizationName, moduleName, providerName);
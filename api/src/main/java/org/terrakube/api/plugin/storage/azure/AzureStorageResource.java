@@ -0,0 +1,73 @@
+package org.terrakube.api.plugin.storage.azure;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import lombok.AllArgsConstructor;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.http.HttpRange;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+@AllArgsConstructor
+public class AzureStorageResource extends StorageResource {
+
+    private static final int NOT_FOUND = 404;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private BlobClient blobClient;
+
+    @Override
+    public boolean exists() {
+        return Boolean.TRUE.equals(blobClient.exists());
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        if (!exists()) {
+            throw new FileNotFoundException(getDescription());
+        }
+        return blobClient.getProperties().getBlobSize();
+    }
+
+    @Override
+    public StorageContent open(HttpRange range) throws IOException {
+        // a suffix range needs the blob size to know its offset, it is read from the start of the blob and skipped
+        long offset = range == null || range.toString().startsWith("-") ? 0 : range.getRangeStart(Long.MAX_VALUE);
+        try {
+            // the blob size comes from the first download of the stream and the next reads are bound to its ETag
+            BlobInputStream inputStream = blobClient.openInputStream(new BlobRange(offset), null);
+            StorageContent storageContent = StorageContent.resolve(range, inputStream.getProperties().getBlobSize());
+            if (!storageContent.isSatisfiable()) {
+                inputStream.close();
+                return storageContent;
+            }
+            inputStream.skipNBytes(storageContent.getStart() - offset);
+            return storageContent.withInputStream(BoundedInputStream.builder()
+                    .setInputStream(inputStream)
+                    .setMaxCount(storageContent.getLength())
+                    .get());
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                return null;
+            }
+            if (e.getStatusCode() == RANGE_NOT_SATISFIABLE) {
+                // the error does not include the blob size, it is only needed for the Content-Range of the 416
+                StorageContent storageContent = rangeNotSatisfiable(range, blobClient.getProperties().getBlobSize());
+                if (storageContent != null) {
+                    return storageContent;
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("Azure blob [%s/%s]", blobClient.getContainerName(), blobClient.getBlobName());
+    }
+}
@@ -1,19 +1,24 @@
 package org.terrakube.api.plugin.storage.azure;
 
 import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import com.azure.core.util.polling.LongRunningOperationStatus;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.models.BlobListDetails;
 import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 @Slf4j
@@ -29,6 +34,10 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
 
     private static final String TERRAFORM_TAR_GZ = "content/%s/terraformContent.tar.gz";
 
+    private static final String STATE_BLOB = "%s/%s/blobs/%s.gz";
+
+    private static final Duration COPY_POLL_INTERVAL = Duration.ofSeconds(1);
+
     @NonNull
     BlobServiceClient blobServiceClient;
 
@@ -45,6 +54,12 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public Resource getStepOutputResource(String organizationId, String jobId, String stepId) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
+        return new AzureStorageResource(containerClient.getBlobClient(String.format("%s/%s/%s.tfoutput", organizationId, jobId, stepId)));
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
@@ -59,6 +74,12 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+        return new AzureStorageResource(containerClient.getBlobClient(String.format("%s/%s/%s/%s/terraformLibrary.tfPlan", organizationId, workspaceId, jobId, stepId)));
+    }
+
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
@@ -72,6 +93,12 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+        return new AzureStorageResource(containerClient.getBlobClient(String.format("%s/%s/state/%s.json", organizationId, workspaceId, stateFileName)));
+    }
+
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
         BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
@@ -97,6 +124,21 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException {
+        BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+
+        String stateFileName = String.format("%s/%s/state/%s.json", organizationId, workspaceId, stateJsonHistoryId);
+        log.info("New State JSON Az Storage: {}", stateFileName);
+        uploadStream(contextContainerClient.getBlobClient(stateFileName), stateJson, contentLength);
+    }
+
+    @Override
+    public Resource getCurrentTerraformStateResource(String organizationId, String workspaceId) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+        return new AzureStorageResource(containerClient.getBlobClient(String.format("%s/%s/terraform.tfstate", organizationId, workspaceId)));
+    }
+
     @Override
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
@@ -114,6 +156,65 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         rawBlobClient.upload(rawBinaryData, true);
     }
 
+    @Override
+    public void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException {
+        BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+
+        String stateFileName = String.format("%s/%s/terraform.tfstate", organizationId, workspaceId);
+        String rawStateFileName = String.format("%s/%s/state/%s.raw.json", organizationId, workspaceId, historyId);
+        log.info("New State File Az Storage: {}", stateFileName);
+        log.info("New State Raw File Az Storage: {}", rawStateFileName);
+        BlobClient blobClient = contextContainerClient.getBlobClient(stateFileName);
+        BlobClient rawBlobClient = contextContainerClient.getBlobClient(rawStateFileName);
+
+        // the blocks are only committed once the whole body was received, the history copy is written first and
+        // the current state is only replaced when that upload succeeded
+        uploadStream(rawBlobClient, terraformState, contentLength);
+        LongRunningOperationStatus copyStatus;
+        try {
+            copyStatus = blobClient.beginCopy(rawBlobClient.getBlobUrl(), COPY_POLL_INTERVAL).waitForCompletion().getStatus();
+        } catch (RuntimeException e) {
+            throw new IOException(e);
+        }
+        if (copyStatus != LongRunningOperationStatus.SUCCESSFULLY_COMPLETED) {
+            throw new IOException(String.format("Copy of %s to %s finished with status %s", rawStateFileName, stateFileName, copyStatus));
+        }
+    }
+
+    /**
+     * With a known length the client fails the upload before the block list is committed when the stream ends early.
+     */
+    private void uploadStream(BlobClient blobClient, InputStream inputStream, long contentLength) throws IOException {
+        BinaryData binaryData = contentLength >= 0 ? BinaryData.fromStream(inputStream, contentLength) : BinaryData.fromStream(inputStream);
+        try {
+            blobClient.uploadWithResponse(new BlobParallelUploadOptions(binaryData), null, Context.NONE);
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("Upload of %s failed: %s", blobClient.getBlobName(), e.getMessage()), e);
+        }
+    }
+
+    @Override
+    public void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException {
+        BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+        String stateFileName = String.format("%s/%s/terraform.tfstate", organizationId, workspaceId);
+        log.info("New State File Az Storage: {}", stateFileName);
+        uploadStream(contextContainerClient.getBlobClient(stateFileName), terraformState, contentLength);
+    }
+
+    @Override
+    public void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException {
+        BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+        String blobName = String.format(STATE_BLOB, organizationId, workspaceId, blobHash);
+        log.info("New State Blob Az Storage: {}", blobName);
+        uploadStream(contextContainerClient.getBlobClient(blobName), blob, contentLength);
+    }
+
+    @Override
+    public Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+        return new AzureStorageResource(containerClient.getBlobClient(String.format(STATE_BLOB, organizationId, workspaceId, blobHash)));
+    }
+
     @Override
     public String saveContext(int jobId, String jobContext) {
         BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
@@ -176,6 +277,12 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         }
     }
 
+    @Override
+    public Resource getContentFileResource(String contentId) {
+        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_TERRAFORM_CONTENT);
+        return new AzureStorageResource(containerClient.getBlobClient(String.format(TERRAFORM_TAR_GZ, contentId)));
+    }
+
     @Override
     public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
         String moduleFolderPath = String.format("%s/%s/%s", organizationName, moduleName, providerName);
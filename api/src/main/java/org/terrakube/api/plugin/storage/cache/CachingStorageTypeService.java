@@ -0,0 +1,704 @@
+package org.terrakube.api.plugin.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpRange;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache in front of the remote storage backends. Small objects are kept in heap and bigger objects in a local
+ * directory, both caches are LRU and bounded by size. Only objects that never change once written are cached (the
+ * plan file and output of a step, the state of a history entry and the content files); the current workspace state
+ * and the job context are always read from the backend.
+ * <p>
+ * Cache files are kept in a directory owned by the instance, and only files created by the cache are removed from it.
+ * A cache miss is streamed from the backend and copied to the cache while it is sent, a file evicted after the lookup
+ * is read again from the backend.
+ * Writes invalidate the local entry once the backend write is done and publish the invalidation to the other replicas.
+ */
+@Slf4j
+public class CachingStorageTypeService implements StorageTypeService, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "terrakube:storage:invalidated";
+    private static final String KEY_INVALIDATION = "key:";
+    private static final String PREFIX_INVALIDATION = "prefix:";
+    private static final String CACHE_SUBDIRECTORY = "objects";
+    private static final String LOCK_FILE = ".lock";
+    private static final int CACHE_FILL_THREADS = 2;
+    private static final int CACHE_FILL_QUEUE = 64;
+    private static final Pattern INSTANCE_DIRECTORY_NAME = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String TEMP_FILE_PREFIX = "download";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final Pattern CACHE_FILE_NAME = Pattern.compile(
+            "([0-9a-f]{64}-[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})|(" + TEMP_FILE_PREFIX + "\\d+\\" + TEMP_FILE_SUFFIX + ")");
+
+    private static final String OUTPUT_KEY = "tfoutput/%s/%s/%s";
+    private static final String OUTPUT_JOB_PREFIX = "tfoutput/%s/%s/";
+    private static final String PLAN_KEY = "tfstate/%s/%s/%s/%s/plan";
+    private static final String STATE_JSON_KEY = "tfstate/%s/%s/state/%s";
+    private static final String WORKSPACE_PREFIX = "tfstate/%s/%s/";
+    private static final String CONTENT_KEY = "content/%s";
+    private static final String RAW_STATE_SUFFIX = ".raw";
+
+    private final StorageTypeService storageTypeService;
+    private final StorageCacheProperties storageCacheProperties;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Path cacheDirectory;
+    private final FileChannel cacheDirectoryLock;
+    private final ThreadPoolExecutor cacheFillExecutor;
+    private final Set<String> pendingFills = ConcurrentHashMap.newKeySet();
+    private final Cache<String, byte[]> heapCache;
+    private final Cache<String, Path> diskCache;
+
+    public CachingStorageTypeService(StorageTypeService storageTypeService, StorageCacheProperties storageCacheProperties, RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) throws IOException {
+        this.storageTypeService = storageTypeService;
+        this.storageCacheProperties = storageCacheProperties;
+        this.redisTemplate = redisTemplate;
+        Path instancesDirectory = Files.createDirectories(Paths.get(storageCacheProperties.getDirectory(), CACHE_SUBDIRECTORY));
+        this.cacheDirectory = Files.createDirectories(instancesDirectory.resolve(UUID.randomUUID().toString()));
+        this.cacheDirectoryLock = FileChannel.open(cacheDirectory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.cacheDirectoryLock.lock();
+        deleteStaleCacheDirectories(instancesDirectory);
+
+        this.cacheFillExecutor = new ThreadPoolExecutor(CACHE_FILL_THREADS, CACHE_FILL_THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(CACHE_FILL_QUEUE));
+        this.cacheFillExecutor.allowCoreThreadTimeOut(true);
+
+        this.heapCache = Caffeine.newBuilder()
+                .maximumWeight(storageCacheProperties.getMaxHeapSize())
+                .weigher((String key, byte[] value) -> value.length)
+                .recordStats()
+                .build();
+        this.diskCache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, storageCacheProperties.getMaxDiskSize() / FileUtils.ONE_KB))
+                .weigher((String key, Path path) -> weightInKb(path))
+                .removalListener((String key, Path path, RemovalCause cause) -> deleteCacheFile(path))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, heapCache, "terrakube.storage.heap");
+        CaffeineCacheMetrics.monitor(meterRegistry, diskCache, "terrakube.storage.disk");
+        log.info("Storage cache directory {}, max disk size {}, max heap size {}", cacheDirectory, storageCacheProperties.getMaxDiskSize(), storageCacheProperties.getMaxHeapSize());
+    }
+
+    @Override
+    public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
+        return getBytes(String.format(OUTPUT_KEY, organizationId, jobId, stepId),
+                () -> storageTypeService.getStepOutput(organizationId, jobId, stepId));
+    }
+
+    @Override
+    public Resource getStepOutputResource(String organizationId, String jobId, String stepId) {
+        return getResource(String.format(OUTPUT_KEY, organizationId, jobId, stepId),
+                () -> storageTypeService.getStepOutputResource(organizationId, jobId, stepId));
+    }
+
+    @Override
+    public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
+        return getBytes(String.format(PLAN_KEY, organizationId, workspaceId, jobId, stepId),
+                () -> storageTypeService.getTerraformPlan(organizationId, workspaceId, jobId, stepId));
+    }
+
+    @Override
+    public Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId) {
+        return getResource(String.format(PLAN_KEY, organizationId, workspaceId, jobId, stepId),
+                () -> storageTypeService.getTerraformPlanResource(organizationId, workspaceId, jobId, stepId));
+    }
+
+    @Override
+    public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
+        return getBytes(String.format(STATE_JSON_KEY, organizationId, workspaceId, stateFileName),
+                () -> storageTypeService.getTerraformStateJson(organizationId, workspaceId, stateFileName));
+    }
+
+    @Override
+    public Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName) {
+        return getResource(String.format(STATE_JSON_KEY, organizationId, workspaceId, stateFileName),
+                () -> storageTypeService.getTerraformStateJsonResource(organizationId, workspaceId, stateFileName));
+    }
+
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
+        try {
+            storageTypeService.uploadTerraformStateJson(organizationId, workspaceId, stateJson, stateJsonHistoryId);
+        } finally {
+            invalidate(String.format(STATE_JSON_KEY, organizationId, workspaceId, stateJsonHistoryId));
+        }
+    }
+
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException {
+        try {
+            storageTypeService.uploadTerraformStateJson(organizationId, workspaceId, stateJson, contentLength, stateJsonHistoryId);
+        } finally {
+            invalidate(String.format(STATE_JSON_KEY, organizationId, workspaceId, stateJsonHistoryId));
+        }
+    }
+
+    @Override
+    public byte[] getCurrentTerraformState(String organizationId, String workspaceId) {
+        return storageTypeService.getCurrentTerraformState(organizationId, workspaceId);
+    }
+
+    @Override
+    public Resource getCurrentTerraformStateResource(String organizationId, String workspaceId) {
+        return storageTypeService.getCurrentTerraformStateResource(organizationId, workspaceId);
+    }
+
+    @Override
+    public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
+        try {
+            storageTypeService.uploadState(organizationId, workspaceId, terraformState, historyId);
+        } finally {
+            invalidate(String.format(STATE_JSON_KEY, organizationId, workspaceId, historyId + RAW_STATE_SUFFIX));
+        }
+    }
+
+    @Override
+    public void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException {
+        try {
+            storageTypeService.uploadState(organizationId, workspaceId, terraformState, contentLength, historyId);
+        } finally {
+            invalidate(String.format(STATE_JSON_KEY, organizationId, workspaceId, historyId + RAW_STATE_SUFFIX));
+        }
+    }
+
+    @Override
+    public void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException {
+        storageTypeService.uploadCurrentState(organizationId, workspaceId, terraformState, contentLength);
+    }
+
+    @Override
+    public void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException {
+        storageTypeService.uploadStateBlob(organizationId, workspaceId, blobHash, blob, contentLength);
+    }
+
+    @Override
+    public Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash) {
+        return storageTypeService.getStateBlobResource(organizationId, workspaceId, blobHash);
+    }
+
+    @Override
+    public String saveContext(int jobId, String jobContext) {
+        return storageTypeService.saveContext(jobId, jobContext);
+    }
+
+    @Override
+    public String getContext(int jobId) {
+        return storageTypeService.getContext(jobId);
+    }
+
+    @Override
+    public void createContentFile(String contentId, InputStream inputStream) {
+        try {
+            storageTypeService.createContentFile(contentId, inputStream);
+        } finally {
+            invalidate(String.format(CONTENT_KEY, contentId));
+        }
+    }
+
+    @Override
+    public byte[] getContentFile(String contentId) {
+        return getBytes(String.format(CONTENT_KEY, contentId), () -> storageTypeService.getContentFile(contentId));
+    }
+
+    @Override
+    public Resource getContentFileResource(String contentId) {
+        return getResource(String.format(CONTENT_KEY, contentId), () -> storageTypeService.getContentFileResource(contentId));
+    }
+
+    @Override
+    public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
+        storageTypeService.deleteModuleStorage(organizationName, moduleName, providerName);
+    }
+
+    @Override
+    public void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList) {
+        try {
+            storageTypeService.deleteWorkspaceOutputData(organizationId, jobList);
+        } finally {
+            for (Integer jobId : jobList) {
+                invalidatePrefix(String.format(OUTPUT_JOB_PREFIX, organizationId, jobId));
+            }
+        }
+    }
+
+    @Override
+    public void deleteWorkspaceStateData(String organizationId, String workspaceId) {
+        try {
+            storageTypeService.deleteWorkspaceStateData(organizationId, workspaceId);
+        } finally {
+            invalidatePrefix(String.format(WORKSPACE_PREFIX, organizationId, workspaceId));
+        }
+    }
+
+    private byte[] getBytes(String key, Supplier<byte[]> loader) {
+        byte[] cached = heapCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path cachedFile = diskCache.getIfPresent(key);
+        if (cachedFile != null) {
+            try {
+                return Files.readAllBytes(cachedFile);
+            } catch (NoSuchFileException e) {
+                log.debug("Cache file for {} was evicted, reading from storage", key);
+                diskCache.asMap().remove(key, cachedFile);
+            } catch (IOException e) {
+                log.warn("Unable to read cache file for {}: {}", key, e.getMessage());
+                diskCache.asMap().remove(key, cachedFile);
+            }
+        }
+
+        byte[] data = loader.get();
+        if (data != null && data.length > 0) {
+            if (data.length <= storageCacheProperties.getMaxHeapObjectSize()) {
+                heapCache.put(key, data);
+            } else if (data.length <= storageCacheProperties.getMaxObjectSize()) {
+                writeCacheFile(key, new ByteArrayInputStream(data));
+            }
+        }
+        return data;
+    }
+
+    private Resource getResource(String key, Supplier<Resource> loader) {
+        Resource resource = loader.get();
+        return resource instanceof StorageResource storageResource ? new CachedStorageResource(key, storageResource) : resource;
+    }
+
+    /**
+     * Open the cached copy of the object. The cache file is opened before it is read so an eviction after the lookup
+     * does not affect the read; a file that is already gone is a cache miss.
+     */
+    private StorageContent openCached(String key, HttpRange range) {
+        byte[] cached = heapCache.getIfPresent(key);
+        if (cached != null) {
+            StorageContent storageContent = StorageContent.resolve(range, cached.length);
+            return storageContent.isSatisfiable()
+                    ? storageContent.withInputStream(new ByteArrayInputStream(cached, (int) storageContent.getStart(), (int) storageContent.getLength()))
+                    : storageContent;
+        }
+
+        Path cachedFile = diskCache.getIfPresent(key);
+        if (cachedFile == null) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(cachedFile, StandardOpenOption.READ);
+            StorageContent storageContent = StorageContent.resolve(range, channel.size());
+            if (!storageContent.isSatisfiable()) {
+                channel.close();
+                return storageContent;
+            }
+            channel.position(storageContent.getStart());
+            return storageContent.withInputStream(BoundedInputStream.builder()
+                    .setInputStream(Channels.newInputStream(channel))
+                    .setMaxCount(storageContent.getLength())
+                    .get());
+        } catch (NoSuchFileException e) {
+            log.debug("Cache file for {} was evicted, reading from storage", key);
+            diskCache.asMap().remove(key, cachedFile);
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read cache file for {}: {}", key, e.getMessage());
+            IOUtils.closeQuietly(channel);
+            diskCache.asMap().remove(key, cachedFile);
+            return null;
+        }
+    }
+
+    /**
+     * Copy the bytes read from the backend to the cache, in heap when the object is small enough and in a cache file
+     * otherwise. The stream is returned unchanged when a cache file can not be created.
+     */
+    private InputStream teeToCache(String key, InputStream inputStream, long totalLength) {
+        if (totalLength > 0 && totalLength <= storageCacheProperties.getMaxHeapObjectSize()) {
+            return new CacheFillInputStream(key, inputStream, totalLength, null, new ByteArrayOutputStream((int) totalLength));
+        }
+        try {
+            Path tempFile = Files.createTempFile(cacheDirectory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+            return new CacheFillInputStream(key, inputStream, totalLength, tempFile, Files.newOutputStream(tempFile));
+        } catch (IOException e) {
+            log.warn("Unable to create cache file for {}: {}", key, e.getMessage());
+            return inputStream;
+        }
+    }
+
+    /**
+     * A range request does not read the whole object, the object is downloaded in the background so the next request
+     * is served from the cache.
+     */
+    private void fillInBackground(String key, StorageResource resource, long totalLength) {
+        if (totalLength <= 0 || totalLength > storageCacheProperties.getMaxObjectSize() || !pendingFills.add(key)) {
+            return;
+        }
+        try {
+            cacheFillExecutor.execute(() -> {
+                try (StorageContent storageContent = resource.open(null)) {
+                    if (storageContent != null && storageContent.isSatisfiable() && storageContent.getLength() != 0) {
+                        try (InputStream inputStream = teeToCache(key, storageContent.getInputStream(), storageContent.getTotalLength())) {
+                            inputStream.transferTo(OutputStream.nullOutputStream());
+                        }
+                    }
+                } catch (IOException e) {
+                    log.warn("Unable to cache {}: {}", key, e.getMessage());
+                } finally {
+                    pendingFills.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Storage cache fill queue is full, {} is not cached", key);
+            pendingFills.remove(key);
+        }
+    }
+
+    private Path writeCacheFile(String key, InputStream inputStream) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(cacheDirectory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+            long maxObjectSize = storageCacheProperties.getMaxObjectSize();
+            long size = Files.copy(BoundedInputStream.builder()
+                    .setInputStream(inputStream)
+                    .setMaxCount(maxObjectSize + 1)
+                    .get(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            if (size == 0 || size > maxObjectSize) {
+                deleteCacheFile(tempFile);
+                return null;
+            }
+            return moveToCache(key, tempFile);
+        } catch (IOException e) {
+            log.warn("Unable to write cache file for {}: {}", key, e.getMessage());
+            deleteCacheFile(tempFile);
+            return null;
+        }
+    }
+
+    private Path moveToCache(String key, Path tempFile) throws IOException {
+        Path cacheFile = cacheDirectory.resolve(DigestUtils.sha256Hex(key) + "-" + UUID.randomUUID());
+        Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+        diskCache.put(key, cacheFile);
+        return cacheFile;
+    }
+
+    private void invalidate(String key) {
+        invalidateLocal(key);
+        publish(KEY_INVALIDATION + key);
+    }
+
+    private void invalidatePrefix(String prefix) {
+        invalidateLocalPrefix(prefix);
+        publish(PREFIX_INVALIDATION + prefix);
+    }
+
+    private void invalidateLocal(String key) {
+        heapCache.invalidate(key);
+        diskCache.invalidate(key);
+    }
+
+    private void invalidateLocalPrefix(String prefix) {
+        heapCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        diskCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private void publish(String invalidation) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, invalidation);
+        } catch (Exception e) {
+            log.error("Unable to publish storage cache invalidation {}: {}", invalidation, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object invalidation = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (invalidation == null) {
+            return;
+        }
+        log.debug("Storage cache invalidated on another instance: {}", invalidation);
+        String value = invalidation.toString();
+        if (value.startsWith(KEY_INVALIDATION)) {
+            invalidateLocal(value.substring(KEY_INVALIDATION.length()));
+        } else if (value.startsWith(PREFIX_INVALIDATION)) {
+            invalidateLocalPrefix(value.substring(PREFIX_INVALIDATION.length()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cacheFillExecutor.shutdownNow();
+        heapCache.invalidateAll();
+        diskCache.invalidateAll();
+        deleteCacheDirectory(cacheDirectory);
+        IOUtils.closeQuietly(cacheDirectoryLock);
+    }
+
+    /**
+     * Every instance writes to its own directory and holds a lock on it while it is running, so replicas sharing the
+     * volume never remove files another instance is serving. Only the directories left by stopped instances, where the
+     * lock is free, are removed.
+     */
+    private void deleteStaleCacheDirectories(Path instancesDirectory) throws IOException {
+        try (Stream<Path> directories = Files.list(instancesDirectory)) {
+            directories.filter(Files::isDirectory)
+                    .filter(path -> !path.equals(cacheDirectory))
+                    .filter(path -> INSTANCE_DIRECTORY_NAME.matcher(path.getFileName().toString()).matches())
+                    .filter(this::isStale)
+                    .forEach(this::deleteCacheDirectory);
+        }
+    }
+
+    private boolean isStale(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock()) {
+            return lock != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        } catch (IOException e) {
+            // no lock file yet, the directory is being created by another instance
+            return false;
+        }
+    }
+
+    private void deleteCacheDirectory(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(path -> LOCK_FILE.equals(path.getFileName().toString()) || CACHE_FILE_NAME.matcher(path.getFileName().toString()).matches())
+                    .forEach(this::deleteCacheFile);
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Unable to delete cache directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private int weightInKb(Path path) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Files.size(path) / FileUtils.ONE_KB + 1);
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    private void deleteCacheFile(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete cache file {}", path);
+        }
+    }
+
+    /**
+     * Object read through the cache. A cache miss streams the backend read to the client and copies it to the cache at
+     * the same time, without extra metadata requests to the backend.
+     */
+    private class CachedStorageResource extends StorageResource {
+
+        private final String key;
+        private final StorageResource resource;
+
+        private CachedStorageResource(String key, StorageResource resource) {
+            this.key = key;
+            this.resource = resource;
+        }
+
+        @Override
+        public StorageContent open(HttpRange range) throws IOException {
+            StorageContent cached = openCached(key, range);
+            if (cached != null) {
+                return cached;
+            }
+
+            StorageContent storageContent = resource.open(range);
+            if (storageContent == null || !storageContent.isSatisfiable() || storageContent.getLength() == 0) {
+                return storageContent;
+            }
+            if (storageContent.isPartial()) {
+                fillInBackground(key, resource, storageContent.getTotalLength());
+                return storageContent;
+            }
+            if (storageContent.getTotalLength() > storageCacheProperties.getMaxObjectSize()) {
+                return storageContent;
+            }
+            // The uncompressed size of a state is unknown (-1), it is cached up to the max object size
+            return storageContent.withInputStream(teeToCache(key, storageContent.getInputStream(), storageContent.getTotalLength()));
+        }
+
+        @Override
+        public boolean exists() {
+            return heapCache.getIfPresent(key) != null || diskCache.getIfPresent(key) != null || resource.exists();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            byte[] cached = heapCache.getIfPresent(key);
+            if (cached != null) {
+                return cached.length;
+            }
+            Path cachedFile = diskCache.getIfPresent(key);
+            if (cachedFile != null) {
+                try {
+                    return Files.size(cachedFile);
+                } catch (IOException e) {
+                    diskCache.asMap().remove(key, cachedFile);
+                }
+            }
+            return resource.contentLength();
+        }
+
+        @Override
+        public String getDescription() {
+            return resource.getDescription();
+        }
+    }
+
+    /**
+     * Copy of the bytes read by the client. The copy is added to the cache when the stream is closed, only when the
+     * whole object was read and it is not bigger than the max object size.
+     */
+    private class CacheFillInputStream extends FilterInputStream {
+
+        private final String key;
+        private final long totalLength;
+        private final Path tempFile;
+        private OutputStream cacheOutput;
+        private long count;
+        private boolean completed;
+
+        private CacheFillInputStream(String key, InputStream inputStream, long totalLength, Path tempFile, OutputStream cacheOutput) {
+            super(inputStream);
+            this.key = key;
+            this.totalLength = totalLength;
+            this.tempFile = tempFile;
+            this.cacheOutput = cacheOutput;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value < 0) {
+                completed = true;
+            } else {
+                copy(new byte[]{(byte) value}, 0, 1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                completed = true;
+            } else {
+                copy(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            discard();
+            return super.skip(length);
+        }
+
+        private void copy(byte[] buffer, int offset, int length) {
+            if (cacheOutput == null || length == 0) {
+                return;
+            }
+            count += length;
+            if (count > storageCacheProperties.getMaxObjectSize()) {
+                discard();
+                return;
+            }
+            try {
+                cacheOutput.write(buffer, offset, length);
+            } catch (IOException e) {
+                log.warn("Unable to write cache file for {}: {}", key, e.getMessage());
+                discard();
+            }
+        }
+
+        private void discard() {
+            if (cacheOutput != null) {
+                IOUtils.closeQuietly(cacheOutput);
+                cacheOutput = null;
+                deleteCacheFile(tempFile);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                boolean whole = totalLength < 0 ? completed : count == totalLength;
+                if (cacheOutput != null && count > 0 && whole) {
+                    store();
+                } else {
+                    discard();
+                }
+            }
+        }
+
+        private void store() {
+            OutputStream output = cacheOutput;
+            cacheOutput = null;
+            try {
+                output.close();
+                if (tempFile == null) {
+                    heapCache.put(key, ((ByteArrayOutputStream) output).toByteArray());
+                } else {
+                    moveToCache(key, tempFile);
+                }
+            } catch (IOException e) {
+                log.warn("Unable to write cache file for {}: {}", key, e.getMessage());
+                deleteCacheFile(tempFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.terrakube.api.plugin.storage.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+
+@Configuration
+@ConditionalOnProperty(prefix = "org.terrakube.storage.cache", name = "enabled", havingValue = "true")
+public class StorageCacheConfiguration {
+
+    @Bean
+    RedisMessageListenerContainer storageCacheListenerContainer(JedisConnectionFactory jedisConnectionFactory,
+                                                                StorageTypeService storageTypeService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory);
+        if (storageTypeService instanceof CachingStorageTypeService cachingStorageTypeService) {
+            container.addMessageListener(cachingStorageTypeService, new ChannelTopic(CachingStorageTypeService.INVALIDATION_CHANNEL));
+        }
+        return container;
+    }
+}
@@ -0,0 +1,22 @@
+package org.terrakube.api.plugin.storage.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.storage.cache")
+public class StorageCacheProperties {
+    private boolean enabled;
+    private String directory;
+    private long maxDiskSize = 1073741824L;
+    private long maxHeapSize = 67108864L;
+    private long maxHeapObjectSize = 1048576L;
+    private long maxObjectSize = 268435456L;
+}
@@ -8,7 +8,11 @@ import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.cache.CachingStorageTypeService;
+import org.terrakube.api.plugin.storage.cache.StorageCacheProperties;
+import org.terrakube.api.plugin.storage.history.ContentAddressedStorageTypeService;
 import org.terrakube.api.plugin.storage.aws.AwsStorageTypeProperties;
 import org.terrakube.api.plugin.storage.aws.AwsStorageTypeServiceImpl;
 import org.terrakube.api.plugin.storage.azure.AzureStorageTypeProperties;
@@ -20,7 +24,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.terrakube.api.plugin.streaming.StreamingService;
+import org.terrakube.api.repository.HistoryRepository;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
@@ -46,7 +52,7 @@ import java.util.concurrent.CompletableFuture;
 public class StorageTypeAutoConfiguration {
 
     @Bean
-    public StorageTypeService terraformOutput(StreamingService streamingService, StorageTypeProperties storageTypeProperties, AzureStorageTypeProperties azureStorageTypeProperties, AwsStorageTypeProperties awsStorageTypeProperties, GcpStorageTypeProperties gcpStorageTypeProperties) {
+    public StorageTypeService terraformOutput(StreamingService streamingService, StorageTypeProperties storageTypeProperties, AzureStorageTypeProperties azureStorageTypeProperties, AwsStorageTypeProperties awsStorageTypeProperties, GcpStorageTypeProperties gcpStorageTypeProperties, HistoryRepository historyRepository, StorageCacheProperties storageCacheProperties, RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
         StorageTypeService storageTypeService = null;
         log.info("StorageType={}", storageTypeProperties.getType());
         switch (storageTypeProperties.getType()) {
@@ -127,6 +133,20 @@ public class StorageTypeAutoConfiguration {
             default:
                 storageTypeService = LocalStorageTypeServiceImpl.builder().build();
         }
+
+        if (storageTypeService != null && storageTypeProperties.isContentAddressedHistory()) {
+            log.info("Using content addressed state history");
+            storageTypeService = new ContentAddressedStorageTypeService(storageTypeService, historyRepository);
+        }
+
+        if (storageTypeService != null && storageCacheProperties.isEnabled() && storageTypeProperties.getType() != StorageTypeEnum.LOCAL) {
+            log.info("Using storage cache in {}", storageCacheProperties.getDirectory());
+            try {
+                storageTypeService = new CachingStorageTypeService(storageTypeService, storageCacheProperties, redisTemplate, meterRegistry);
+            } catch (IOException e) {
+                log.error("Unable to create storage cache, using storage without cache: {}", e.getMessage());
+            }
+        }
         return storageTypeService;
     }
 
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "org.terrakube.storage")
 public class StorageTypeProperties {
     private StorageTypeEnum type;
+    private boolean contentAddressedHistory;
 }
 
 enum StorageTypeEnum {
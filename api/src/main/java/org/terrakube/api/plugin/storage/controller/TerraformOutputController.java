@@ -3,11 +3,17 @@ package org.terrakube.api.plugin.storage.controller;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.terrakube.api.plugin.storage.StorageResourceWriter;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.terrakube.api.plugin.streaming.LogsTail;
 import org.terrakube.api.plugin.streaming.StreamingService;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 @AllArgsConstructor
@@ -20,21 +26,52 @@ public class TerraformOutputController {
 
     private StreamingService streamingService;
 
+    private StorageResourceWriter storageResourceWriter;
+
     @Transactional
     @GetMapping(
             value = "/organization/{organizationId}/job/{jobId}/step/{stepId}",
             produces = MediaType.APPLICATION_OCTET_STREAM_VALUE
     )
-    public @ResponseBody byte[] getFile(@PathVariable("organizationId") String organizationId, @PathVariable("jobId") String jobId, @PathVariable("stepId") String stepId) {
+    public void getFile(@PathVariable("organizationId") String organizationId, @PathVariable("jobId") String jobId, @PathVariable("stepId") String stepId, HttpServletRequest request, HttpServletResponse response) throws IOException {
         String tempLogs = streamingService.getCurrentLogs(stepId);
         
         if (tempLogs.length() > 0) {
             log.info("Reading output from redis stream....");
-            return tempLogs.getBytes(StandardCharsets.UTF_8);
+            byte[] currentLogs = tempLogs.getBytes(StandardCharsets.UTF_8);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLength(currentLogs.length);
+            response.getOutputStream().write(currentLogs);
         } else {
             log.info("Reading output from storage");
-            return storageTypeService.getStepOutput(organizationId, jobId, stepId);
+            storageResourceWriter.write(storageTypeService.getStepOutputResource(organizationId, jobId, stepId),
+                    MediaType.APPLICATION_OCTET_STREAM, request, response);
         }
 
     }
+
+    @GetMapping(
+            value = "/organization/{organizationId}/job/{jobId}/step/{stepId}/tail",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public LogsTail getLogsTail(@PathVariable("organizationId") String organizationId,
+                                @PathVariable("jobId") String jobId,
+                                @PathVariable("stepId") String stepId,
+                                @RequestParam(value = "lastId", required = false) String lastId,
+                                @RequestParam(value = "lineNumber", required = false, defaultValue = "0") int lineNumber,
+                                @RequestParam(value = "wait", required = false, defaultValue = "0") long wait) {
+        return streamingService.getLogsTail(stepId, lastId, lineNumber, wait);
+    }
+
+    @GetMapping(
+            value = "/organization/{organizationId}/job/{jobId}/step/{stepId}/stream",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE
+    )
+    public SseEmitter streamLogs(@PathVariable("organizationId") String organizationId,
+                                 @PathVariable("jobId") String jobId,
+                                 @PathVariable("stepId") String stepId,
+                                 @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                 @RequestParam(value = "lastId", required = false) String lastId) {
+        return streamingService.streamLogs(stepId, lastEventId != null ? lastEventId : lastId);
+    }
 }
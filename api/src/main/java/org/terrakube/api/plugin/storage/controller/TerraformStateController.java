@@ -1,11 +1,10 @@
 package org.terrakube.api.plugin.storage.controller;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.UUID;
 
-import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
@@ -15,9 +14,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.terrakube.api.plugin.security.state.StateService;
+import org.terrakube.api.plugin.storage.StorageResourceWriter;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 import org.terrakube.api.repository.ArchiveRepository;
 import org.terrakube.api.repository.HistoryRepository;
@@ -26,6 +25,7 @@ import org.terrakube.api.rs.workspace.history.History;
 import org.terrakube.api.rs.workspace.history.archive.Archive;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
@@ -37,6 +37,7 @@ public class TerraformStateController {
     private final ArchiveRepository archiveRepository;
     private final WorkspaceRepository workspaceRepository;
     private final HistoryRepository historyRepository;
+    private final StorageResourceWriter storageResourceWriter;
     @SuppressWarnings("unused")
     @Autowired
     private StateService stateService;
@@ -46,32 +47,38 @@ public class TerraformStateController {
                                     ArchiveRepository archiveRepository, 
                                     WorkspaceRepository workspaceRepository, 
                                     HistoryRepository historyRepository, 
+                                    StorageResourceWriter storageResourceWriter,
                                     @Value("${org.terrakube.hostname}") String hostname) {
         this.storageTypeService = storageTypeService;
         this.archiveRepository = archiveRepository;
         this.workspaceRepository = workspaceRepository;
         this.historyRepository = historyRepository;
+        this.storageResourceWriter = storageResourceWriter;
         this.hostname = hostname;  
     }
     @GetMapping(value = "/organization/{organizationId}/workspace/{workspaceId}/jobId/{jobId}/step/{stepId}/terraform.tfstate", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public @ResponseBody byte[] getTerraformPlanBinary(@PathVariable("organizationId") String organizationId,
+    public void getTerraformPlanBinary(@PathVariable("organizationId") String organizationId,
             @PathVariable("workspaceId") String workspaceId, @PathVariable("jobId") String jobId,
-            @PathVariable("stepId") String stepId) {
-        return storageTypeService.getTerraformPlan(organizationId, workspaceId, jobId, stepId);
+            @PathVariable("stepId") String stepId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        storageResourceWriter.write(storageTypeService.getTerraformPlanResource(organizationId, workspaceId, jobId, stepId),
+                MediaType.APPLICATION_OCTET_STREAM, request, response);
     }
 
     @GetMapping(value = "/organization/{organizationId}/workspace/{workspaceId}/state/{stateFilename}.json", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("@stateService.hasManageStatePermission(authentication, #organizationId, #workspaceId)")
-    public @ResponseBody byte[] getTerraformStateJson(@PathVariable("organizationId") String organizationId,
-            @PathVariable("workspaceId") String workspaceId, @PathVariable("stateFilename") String stateFilename) {
-        return storageTypeService.getTerraformStateJson(organizationId, workspaceId, stateFilename);
+    public void getTerraformStateJson(@PathVariable("organizationId") String organizationId,
+            @PathVariable("workspaceId") String workspaceId, @PathVariable("stateFilename") String stateFilename,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        storageResourceWriter.write(storageTypeService.getTerraformStateJsonResource(organizationId, workspaceId, stateFilename),
+                MediaType.APPLICATION_JSON, request, response);
     }
 
     @GetMapping(value = "/organization/{organizationId}/workspace/{workspaceId}/state/terraform.tfstate", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("@stateService.hasManageStatePermission(authentication, #organizationId, #workspaceId)")
-    public @ResponseBody byte[] getCurrentTerraformState(@PathVariable("organizationId") String organizationId,
-            @PathVariable("workspaceId") String workspaceId) {
-        return storageTypeService.getCurrentTerraformState(organizationId, workspaceId);
+    public void getCurrentTerraformState(@PathVariable("organizationId") String organizationId,
+            @PathVariable("workspaceId") String workspaceId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        storageResourceWriter.write(storageTypeService.getCurrentTerraformStateResource(organizationId, workspaceId),
+                MediaType.APPLICATION_JSON, request, response);
     }
 
     @PutMapping(value = "/archive/{archiveId}/terraform.tfstate", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -81,14 +88,19 @@ public class TerraformStateController {
         Optional<Archive> archive = archiveRepository.findById(UUID.fromString(archiveId));
         if (archive.isPresent()) {
             Archive archiveData = archive.get();
-            String terraformState = IOUtils.toString(httpServletRequest.getInputStream(),
-                    StandardCharsets.UTF_8.name());
-            log.debug(terraformState);
-            storageTypeService.uploadState(
-                    archiveData.getHistory().getWorkspace().getOrganization().getId().toString(),
-                    archiveData.getHistory().getWorkspace().getId().toString(),
-                    terraformState,
-                    archiveData.getHistory().getId().toString());
+            log.info("Uploading state with content length {}", httpServletRequest.getContentLengthLong());
+            try {
+                storageTypeService.uploadState(
+                        archiveData.getHistory().getWorkspace().getOrganization().getId().toString(),
+                        archiveData.getHistory().getWorkspace().getId().toString(),
+                        httpServletRequest.getInputStream(),
+                        httpServletRequest.getContentLengthLong(),
+                        archiveData.getHistory().getId().toString());
+            } catch (IOException e) {
+                // the archive is kept so the client can retry the upload
+                log.error("Error uploading state for archive {}: {}", archiveId, e.getMessage());
+                return ResponseEntity.status(500).body("");
+            }
             archiveRepository.deleteById(archiveData.getId());
             return ResponseEntity.status(201).body("");
         } else {
@@ -103,14 +115,19 @@ public class TerraformStateController {
         Optional<Archive> archive = archiveRepository.findById(UUID.fromString(archiveId));
         if (archive.isPresent()) {
             Archive archiveData = archive.get();
-            String terraformJsonState = IOUtils.toString(httpServletRequest.getInputStream(),
-                    StandardCharsets.UTF_8.name());
-            log.debug(terraformJsonState);
-            storageTypeService.uploadTerraformStateJson(
-                    archiveData.getHistory().getWorkspace().getOrganization().getId().toString(),
-                    archiveData.getHistory().getWorkspace().getId().toString(),
-                    terraformJsonState,
-                    archiveData.getHistory().getId().toString());
+            log.info("Uploading json state with content length {}", httpServletRequest.getContentLengthLong());
+            try {
+                storageTypeService.uploadTerraformStateJson(
+                        archiveData.getHistory().getWorkspace().getOrganization().getId().toString(),
+                        archiveData.getHistory().getWorkspace().getId().toString(),
+                        httpServletRequest.getInputStream(),
+                        httpServletRequest.getContentLengthLong(),
+                        archiveData.getHistory().getId().toString());
+            } catch (IOException e) {
+                // the archive is kept so the client can retry the upload
+                log.error("Error uploading json state for archive {}: {}", archiveId, e.getMessage());
+                return ResponseEntity.status(500).body("");
+            }
             archiveRepository.deleteById(archiveData.getId());
             return ResponseEntity.status(201).body("");
         } else {
@@ -158,19 +175,19 @@ public class TerraformStateController {
             historyRepository.save(newHistory);
 
             // Upload the previous JSON state as the current state
-            String jsonStateContent = new String(previousJsonState, StandardCharsets.UTF_8);
             storageTypeService.uploadTerraformStateJson(
                     organizationId,
                     workspaceId,
-                    jsonStateContent,
+                    new ByteArrayInputStream(previousJsonState),
+                    previousJsonState.length,
                     newHistory.getId().toString());
 
             // Upload the previous raw Terraform state as the current state
-            String rawStateContent = new String(previousRawState, StandardCharsets.UTF_8);
             storageTypeService.uploadState(
                     organizationId,
                     workspaceId,
-                    rawStateContent,
+                    new ByteArrayInputStream(previousRawState),
+                    previousRawState.length,
                     newHistory.getId().toString());
 
             // Update history output with new state URL
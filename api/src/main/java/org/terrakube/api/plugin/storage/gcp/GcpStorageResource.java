@@ -0,0 +1,60 @@
+package org.terrakube.api.plugin.storage.gcp;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import lombok.AllArgsConstructor;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.http.HttpRange;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+@AllArgsConstructor
+public class GcpStorageResource extends StorageResource {
+
+    private Storage storage;
+    private BlobId blobId;
+
+    @Override
+    public boolean exists() {
+        return storage.get(blobId) != null;
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        Blob blob = storage.get(blobId);
+        if (blob == null) {
+            throw new FileNotFoundException(getDescription());
+        }
+        return blob.getSize();
+    }
+
+    @Override
+    public StorageContent open(HttpRange range) throws IOException {
+        Blob blob = storage.get(blobId);
+        if (blob == null) {
+            return null;
+        }
+        StorageContent storageContent = StorageContent.resolve(range, blob.getSize());
+        if (!storageContent.isSatisfiable()) {
+            return storageContent;
+        }
+        // the reader of the blob is bound to its generation so the body matches the size
+        ReadChannel readChannel = blob.reader();
+        readChannel.seek(storageContent.getStart());
+        return storageContent.withInputStream(BoundedInputStream.builder()
+                .setInputStream(Channels.newInputStream(readChannel))
+                .setMaxCount(storageContent.getLength())
+                .get());
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("GCP blob [%s/%s]", blobId.getBucket(), blobId.getName());
+    }
+}
@@ -1,16 +1,19 @@
 package org.terrakube.api.plugin.storage.gcp;
 
 import com.google.api.gax.paging.Page;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.StringUtils;
+import org.springframework.core.io.Resource;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -27,6 +30,7 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
     private static final String GCP_HISTORY_RAW_STATE = "tfstate/%s/%s/state/%s.raw.json";
     private static final String GCP_CURRENT_STATE = "tfstate/%s/%s/terraform.tfstate/default.tfstate";
     private static final String CONTEXT_JSON = "tfoutput/context/%s/context.json";
+    private static final String GCP_STATE_BLOB = "tfstate/%s/%s/blobs/%s.gz";
 
     private static final String TERRAFORM_TAR_GZ = "content/%s/terraformContent.tar.gz";
 
@@ -51,6 +55,11 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public Resource getStepOutputResource(String organizationId, String jobId, String stepId) {
+        return new GcpStorageResource(storage, BlobId.of(bucketName, String.format(GCP_LOCATION_OUTPUT, organizationId, jobId, stepId)));
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         log.info("getTerraformPlan {}", String.format(GCP_STATE_LOCATION, organizationId, workspaceId, jobId, stepId));
@@ -67,6 +76,11 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId) {
+        return new GcpStorageResource(storage, BlobId.of(bucketName, String.format(GCP_STATE_LOCATION, organizationId, workspaceId, jobId, stepId)));
+    }
+
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
         log.info("getTerraformStateJson {}", String.format(GCP_STATE_JSON, organizationId, workspaceId, stateFileName));
@@ -83,6 +97,11 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName) {
+        return new GcpStorageResource(storage, BlobId.of(bucketName, String.format(GCP_STATE_JSON, organizationId, workspaceId, stateFileName)));
+    }
+
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
         String currentStateKey = String.format(GCP_STATE_JSON, organizationId, workspaceId, stateJsonHistoryId);
@@ -114,6 +133,19 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         return response;
     }
 
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException {
+        String currentStateKey = String.format(GCP_STATE_JSON, organizationId, workspaceId, stateJsonHistoryId);
+        log.info("Define new Json State File: {}", currentStateKey);
+        log.info("creating new json state history...");
+        writeStreamToBucket(BlobId.of(bucketName, currentStateKey), stateJson, contentLength);
+    }
+
+    @Override
+    public Resource getCurrentTerraformStateResource(String organizationId, String workspaceId) {
+        return new GcpStorageResource(storage, BlobId.of(bucketName, String.format(GCP_CURRENT_STATE, organizationId, workspaceId)));
+    }
+
     @Override
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         String currentStateKey = String.format(GCP_CURRENT_STATE, organizationId, workspaceId);
@@ -149,6 +181,61 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
 
     }
 
+    @Override
+    public void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException {
+        String currentStateKey = String.format(GCP_CURRENT_STATE, organizationId, workspaceId);
+        String rawStateKey = String.format(GCP_HISTORY_RAW_STATE, organizationId, workspaceId, historyId);
+        log.info("Define new Current State File: {}", currentStateKey);
+        log.info("Define new Current Raw History State File: {}", rawStateKey);
+
+        // the history copy is written first, the current state is only replaced when the whole body was received
+        log.info("creating new raw state history...");
+        writeStreamToBucket(BlobId.of(bucketName, rawStateKey), terraformState, contentLength);
+        try {
+            storage.copy(Storage.CopyRequest.of(bucketName, rawStateKey, BlobId.of(bucketName, currentStateKey))).getResult();
+        } catch (StorageException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException {
+        String currentStateKey = String.format(GCP_CURRENT_STATE, organizationId, workspaceId);
+        log.info("Define new Current State File: {}", currentStateKey);
+        writeStreamToBucket(BlobId.of(bucketName, currentStateKey), terraformState, contentLength);
+    }
+
+    @Override
+    public void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException {
+        String blobKey = String.format(GCP_STATE_BLOB, organizationId, workspaceId, blobHash);
+        log.info("Define new State Blob: {}", blobKey);
+        writeStreamToBucket(BlobId.of(bucketName, blobKey), blob, contentLength);
+    }
+
+    @Override
+    public Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash) {
+        return new GcpStorageResource(storage, BlobId.of(bucketName, String.format(GCP_STATE_BLOB, organizationId, workspaceId, blobHash)));
+    }
+
+    /**
+     * The resumable upload is only finalized when the whole stream was written. On failure the channel is not
+     * closed, closing it would finalize an object with the partial content, and the unfinished upload session is
+     * discarded by the storage service.
+     */
+    private void writeStreamToBucket(BlobId blobId, InputStream inputStream, long contentLength) throws IOException {
+        WriteChannel writeChannel = storage.writer(BlobInfo.newBuilder(blobId).build());
+        long written;
+        try {
+            written = inputStream.transferTo(Channels.newOutputStream(writeChannel));
+        } catch (IOException | StorageException e) {
+            throw new IOException(String.format("Upload of %s failed: %s", blobId.getName(), e.getMessage()), e);
+        }
+        if (contentLength >= 0 && written != contentLength) {
+            throw new IOException(String.format("Incomplete upload for %s, received %d of %d bytes", blobId.getName(), written, contentLength));
+        }
+        writeChannel.close();
+    }
+
     @Override
     public String saveContext(int jobId, String jobContext) {
         String blobKey = String.format(CONTEXT_JSON, jobId);
@@ -227,6 +314,11 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
             return "".getBytes(Charset.defaultCharset());
     }
 
+    @Override
+    public Resource getContentFileResource(String contentId) {
+        return new GcpStorageResource(storage, BlobId.of(bucketName, String.format(TERRAFORM_TAR_GZ, contentId)));
+    }
+
     @Override
     public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
         String modulePath = String.format("registry/%s/%s/%s/", organizationName, moduleName, providerName);
@@ -0,0 +1,53 @@
+package org.terrakube.api.plugin.storage.history;
+
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Uncompressed view of a gzip state blob. The uncompressed size is not stored so the content length is unknown.
+ */
+@AllArgsConstructor
+public class CompressedStateResource extends StorageResource {
+
+    private Resource blobResource;
+
+    @Override
+    public boolean exists() {
+        return blobResource.exists();
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(blobResource.getInputStream());
+    }
+
+    /**
+     * The range is ignored because the uncompressed length is unknown, the whole state is sent.
+     */
+    @Override
+    public StorageContent open(HttpRange range) throws IOException {
+        try {
+            return StorageContent.resolve(null, -1).withInputStream(getInputStream());
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Compressed state [" + blobResource.getDescription() + "]";
+    }
+}
@@ -0,0 +1,309 @@
+package org.terrakube.api.plugin.storage.history;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.springframework.core.io.Resource;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.HistoryRepository;
+import org.terrakube.api.rs.workspace.history.History;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Store the state history as gzip blobs addressed by the SHA-256 of the uncompressed content. Identical states of a
+ * workspace are written only once and the history row keeps the hash of the blob. History written before this was
+ * enabled (or written directly by the executor) does not have a hash and is read from the original location.
+ */
+@Slf4j
+@AllArgsConstructor
+public class ContentAddressedStorageTypeService implements StorageTypeService {
+
+    private static final String RAW_STATE_SUFFIX = ".raw";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 8192;
+
+    private StorageTypeService storageTypeService;
+
+    private HistoryRepository historyRepository;
+
+    @Override
+    public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
+        Optional<String> blobHash = findBlobHash(stateFileName);
+        if (blobHash.isEmpty()) {
+            return storageTypeService.getTerraformStateJson(organizationId, workspaceId, stateFileName);
+        }
+
+        try (InputStream inputStream = new GZIPInputStream(storageTypeService.getStateBlobResource(organizationId, workspaceId, blobHash.get()).getInputStream())) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.error("Error reading state blob {}: {}", blobHash.get(), e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    @Override
+    public Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName) {
+        Optional<String> blobHash = findBlobHash(stateFileName);
+        if (blobHash.isEmpty()) {
+            return storageTypeService.getTerraformStateJsonResource(organizationId, workspaceId, stateFileName);
+        }
+        return new CompressedStateResource(storageTypeService.getStateBlobResource(organizationId, workspaceId, blobHash.get()));
+    }
+
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
+        byte[] state = stateJson.getBytes(StandardCharsets.UTF_8);
+        try {
+            uploadTerraformStateJson(organizationId, workspaceId, new ByteArrayInputStream(state), state.length, stateJsonHistoryId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException {
+        Path stateFile = spoolContent(stateJson, contentLength);
+        try {
+            String blobHash = storeBlob(organizationId, workspaceId, stateFile);
+            updateHistory(stateJsonHistoryId, History::setJsonStateHash, blobHash);
+        } finally {
+            deleteTempFile(stateFile);
+        }
+    }
+
+    @Override
+    public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
+        byte[] state = terraformState.getBytes(StandardCharsets.UTF_8);
+        try {
+            uploadState(organizationId, workspaceId, new ByteArrayInputStream(state), state.length, historyId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The history blob is stored and verified first, the current state is only replaced and the hash is only saved
+     * in the history row when both uploads succeeded.
+     */
+    @Override
+    public void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException {
+        Path stateFile = spoolContent(terraformState, contentLength);
+        try {
+            String blobHash = storeBlob(organizationId, workspaceId, stateFile);
+            try (InputStream inputStream = Files.newInputStream(stateFile)) {
+                storageTypeService.uploadCurrentState(organizationId, workspaceId, inputStream, Files.size(stateFile));
+            }
+            updateHistory(historyId, History::setStateHash, blobHash);
+        } finally {
+            deleteTempFile(stateFile);
+        }
+    }
+
+    /**
+     * The hash is only known after reading the whole stream, the content is written to a temporary file so it is
+     * never loaded in memory.
+     */
+    private Path spoolContent(InputStream content, long contentLength) throws IOException {
+        Path stateFile = Files.createTempFile("terrakube-state", ".json");
+        try {
+            long received = Files.copy(content, stateFile, StandardCopyOption.REPLACE_EXISTING);
+            if (contentLength >= 0 && received != contentLength) {
+                throw new IOException(String.format("Incomplete state upload, received %d of %d bytes", received, contentLength));
+            }
+            return stateFile;
+        } catch (IOException e) {
+            deleteTempFile(stateFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Compress the content and store it under its hash. The backends only publish a blob once it was written
+     * completely, the published blob is read back and its hash is checked before it is referenced by a history row.
+     * A blob that already exists is reused when it has the expected size, otherwise it is written again.
+     */
+    private String storeBlob(String organizationId, String workspaceId, Path stateFile) throws IOException {
+        String blobHash;
+        try (InputStream inputStream = Files.newInputStream(stateFile)) {
+            blobHash = hash(inputStream);
+        }
+        Path blobFile = Files.createTempFile("terrakube-state", ".gz");
+        try {
+            try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(blobFile))) {
+                Files.copy(stateFile, outputStream);
+            }
+            long blobSize = Files.size(blobFile);
+
+            Resource blobResource = storageTypeService.getStateBlobResource(organizationId, workspaceId, blobHash);
+            if (blobResource.exists() && blobResource.contentLength() == blobSize) {
+                log.info("State blob {} already exists for workspace {}", blobHash, workspaceId);
+                return blobHash;
+            }
+
+            log.info("Storing state blob {} ({} bytes, {} compressed)", blobHash, Files.size(stateFile), blobSize);
+            try (InputStream inputStream = Files.newInputStream(blobFile)) {
+                storageTypeService.uploadStateBlob(organizationId, workspaceId, blobHash, inputStream, blobSize);
+            }
+
+            String storedHash;
+            try (InputStream inputStream = storageTypeService.getStateBlobResource(organizationId, workspaceId, blobHash).getInputStream()) {
+                storedHash = hash(new GZIPInputStream(inputStream));
+            }
+            if (!blobHash.equals(storedHash)) {
+                throw new IOException(String.format("State blob %s was stored with hash %s", blobHash, storedHash));
+            }
+            return blobHash;
+        } finally {
+            deleteTempFile(blobFile);
+        }
+    }
+
+    private String hash(InputStream inputStream) throws IOException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+            return Hex.encodeHexString(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteTempFile(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary file {}", path);
+        }
+    }
+
+    private void updateHistory(String historyId, BiConsumer<History, String> setter, String blobHash) {
+        try {
+            historyRepository.findById(UUID.fromString(historyId)).ifPresentOrElse(history -> {
+                setter.accept(history, blobHash);
+                historyRepository.save(history);
+            }, () -> log.warn("History {} not found, unable to save state blob {}", historyId, blobHash));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid history id {}", historyId);
+        }
+    }
+
+    private Optional<String> findBlobHash(String stateFileName) {
+        boolean rawState = stateFileName.endsWith(RAW_STATE_SUFFIX);
+        String historyId = rawState ? stateFileName.substring(0, stateFileName.length() - RAW_STATE_SUFFIX.length()) : stateFileName;
+        try {
+            return historyRepository.findById(UUID.fromString(historyId))
+                    .map(history -> rawState ? history.getStateHash() : history.getJsonStateHash());
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
+        return storageTypeService.getStepOutput(organizationId, jobId, stepId);
+    }
+
+    @Override
+    public Resource getStepOutputResource(String organizationId, String jobId, String stepId) {
+        return storageTypeService.getStepOutputResource(organizationId, jobId, stepId);
+    }
+
+    @Override
+    public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
+        return storageTypeService.getTerraformPlan(organizationId, workspaceId, jobId, stepId);
+    }
+
+    @Override
+    public Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId) {
+        return storageTypeService.getTerraformPlanResource(organizationId, workspaceId, jobId, stepId);
+    }
+
+    @Override
+    public byte[] getCurrentTerraformState(String organizationId, String workspaceId) {
+        return storageTypeService.getCurrentTerraformState(organizationId, workspaceId);
+    }
+
+    @Override
+    public Resource getCurrentTerraformStateResource(String organizationId, String workspaceId) {
+        return storageTypeService.getCurrentTerraformStateResource(organizationId, workspaceId);
+    }
+
+    @Override
+    public void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException {
+        storageTypeService.uploadCurrentState(organizationId, workspaceId, terraformState, contentLength);
+    }
+
+    @Override
+    public void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException {
+        storageTypeService.uploadStateBlob(organizationId, workspaceId, blobHash, blob, contentLength);
+    }
+
+    @Override
+    public Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash) {
+        return storageTypeService.getStateBlobResource(organizationId, workspaceId, blobHash);
+    }
+
+    @Override
+    public String saveContext(int jobId, String jobContext) {
+        return storageTypeService.saveContext(jobId, jobContext);
+    }
+
+    @Override
+    public String getContext(int jobId) {
+        return storageTypeService.getContext(jobId);
+    }
+
+    @Override
+    public void createContentFile(String contentId, InputStream inputStream) {
+        storageTypeService.createContentFile(contentId, inputStream);
+    }
+
+    @Override
+    public byte[] getContentFile(String contentId) {
+        return storageTypeService.getContentFile(contentId);
+    }
+
+    @Override
+    public Resource getContentFileResource(String contentId) {
+        return storageTypeService.getContentFileResource(contentId);
+    }
+
+    @Override
+    public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
+        storageTypeService.deleteModuleStorage(organizationName, moduleName, providerName);
+    }
+
+    @Override
+    public void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList) {
+        storageTypeService.deleteWorkspaceOutputData(organizationId, jobList);
+    }
+
+    @Override
+    public void deleteWorkspaceStateData(String organizationId, String workspaceId) {
+        storageTypeService.deleteWorkspaceStateData(organizationId, workspaceId);
+    }
+}
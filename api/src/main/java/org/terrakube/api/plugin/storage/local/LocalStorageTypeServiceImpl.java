@@ -6,6 +6,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 
 import java.io.File;
@@ -14,6 +16,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 @Slf4j
@@ -30,6 +35,7 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
     private static final String NO_CONTEXT_FOUND = "{}";
     private static final String LOCAL_BACKEND_DIRECTORY = "/.terraform-spring-boot/local/backend/%s/%s/terraform.tfstate";
     private static final String LOCAL_HISTORY_BACKEND_DIRECTORY = "/.terraform-spring-boot/local/state/%s/%s/state/%s.raw.json";
+    private static final String LOCAL_STATE_BLOB = "/.terraform-spring-boot/local/state/%s/%s/blobs/%s.gz";
 
     @Override
     public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
@@ -38,6 +44,11 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         return getOutputBytes(outputFilePath);
     }
 
+    @Override
+    public Resource getStepOutputResource(String organizationId, String jobId, String stepId) {
+        return getOutputResource(String.format(OUTPUT_DIRECTORY, organizationId, jobId, stepId));
+    }
+
     @Override
     public byte[] getTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId) {
         log.info("Searching: /.terraform-spring-boot/local/state/{}/{}/{}/{}/terraformLibrary.tfPlan", organizationId, workspaceId, jobId, stepId);
@@ -45,6 +56,11 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         return getOutputBytes(outputFilePath);
     }
 
+    @Override
+    public Resource getTerraformPlanResource(String organizationId, String workspaceId, String jobId, String stepId) {
+        return getOutputResource(String.format(STATE_DIRECTORY, organizationId, workspaceId, jobId, stepId));
+    }
+
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
         log.info("Searching: /.terraform-spring-boot/local/tfstate/{}/{}/state/{}.json", organizationId, workspaceId, stateFileName);
@@ -52,6 +68,11 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         return getOutputBytes(outputFilePath);
     }
 
+    @Override
+    public Resource getTerraformStateJsonResource(String organizationId, String workspaceId, String stateFileName) {
+        return getOutputResource(String.format(STATE_DIRECTORY_JSON, organizationId, workspaceId, stateFileName));
+    }
+
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
         try {
@@ -72,6 +93,18 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         return getOutputBytes(currentStateFile);
     }
 
+    @Override
+    public void uploadTerraformStateJson(String organizationId, String workspaceId, InputStream stateJson, long contentLength, String stateJsonHistoryId) throws IOException {
+        String newStateFileJson = String.format(STATE_DIRECTORY_JSON, organizationId, workspaceId, stateJsonHistoryId);
+        log.info("newFileJson: {}", newStateFileJson);
+        writeStreamAtomically(getLocalPath(newStateFileJson), stateJson, contentLength);
+    }
+
+    @Override
+    public Resource getCurrentTerraformStateResource(String organizationId, String workspaceId) {
+        return getOutputResource(String.format(LOCAL_BACKEND_DIRECTORY, organizationId, workspaceId));
+    }
+
     @Override
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         try {
@@ -90,6 +123,63 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         }
     }
 
+    @Override
+    public void uploadState(String organizationId, String workspaceId, InputStream terraformState, long contentLength, String historyId) throws IOException {
+        String newStateFile = String.format(LOCAL_BACKEND_DIRECTORY, organizationId, workspaceId);
+        String newRawStateFile = String.format(LOCAL_HISTORY_BACKEND_DIRECTORY, organizationId, workspaceId, historyId);
+        log.info("newFilename: {}", newStateFile);
+        log.info("newRawFilename: {}", newRawStateFile);
+        Path stateFile = getLocalPath(newStateFile);
+        Path rawStateFile = getLocalPath(newRawStateFile);
+
+        // the history copy is written first, the current state is only replaced when the whole body was received
+        writeStreamAtomically(rawStateFile, terraformState, contentLength);
+        try (InputStream rawState = Files.newInputStream(rawStateFile)) {
+            writeStreamAtomically(stateFile, rawState, Files.size(rawStateFile));
+        }
+    }
+
+    @Override
+    public void uploadCurrentState(String organizationId, String workspaceId, InputStream terraformState, long contentLength) throws IOException {
+        String currentStateFile = String.format(LOCAL_BACKEND_DIRECTORY, organizationId, workspaceId);
+        log.info("newFilename: {}", currentStateFile);
+        writeStreamAtomically(getLocalPath(currentStateFile), terraformState, contentLength);
+    }
+
+    @Override
+    public void uploadStateBlob(String organizationId, String workspaceId, String blobHash, InputStream blob, long contentLength) throws IOException {
+        String blobFile = String.format(LOCAL_STATE_BLOB, organizationId, workspaceId, blobHash);
+        log.info("newFilename: {}", blobFile);
+        writeStreamAtomically(getLocalPath(blobFile), blob, contentLength);
+    }
+
+    @Override
+    public Resource getStateBlobResource(String organizationId, String workspaceId, String blobHash) {
+        return getOutputResource(String.format(LOCAL_STATE_BLOB, organizationId, workspaceId, blobHash));
+    }
+
+    private Path getLocalPath(String path) {
+        return new File(FileUtils.getUserDirectoryPath().concat(FilenameUtils.separatorsToSystem(path))).toPath();
+    }
+
+    /**
+     * Write the stream to a temporary file in the target directory and move it in place, the target file is never
+     * left with partial content.
+     */
+    private void writeStreamAtomically(Path file, InputStream inputStream, long contentLength) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            long written = Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            if (contentLength >= 0 && written != contentLength) {
+                throw new IOException(String.format("Incomplete upload for %s, received %d of %d bytes", file, written, contentLength));
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
     @Override
     public String saveContext(int jobId, String jobContext) {
         try {
@@ -137,6 +227,10 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
     }
 
 
+    private Resource getOutputResource(String path) {
+        return new FileSystemResource(FileUtils.getUserDirectoryPath().concat(path));
+    }
+
     @Override
     public void createContentFile(String contentId, InputStream inputStream){
         try {
@@ -168,6 +262,11 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
         }
     }
 
+    @Override
+    public Resource getContentFileResource(String contentId) {
+        return getOutputResource(FilenameUtils.separatorsToSystem(String.format(CONTENT_DIRECTORY, contentId)));
+    }
+
     @Override
     public void deleteModuleStorage(String organizationName, String moduleName, String providerName) {
         try {
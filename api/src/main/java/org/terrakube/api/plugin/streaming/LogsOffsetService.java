@@ -0,0 +1,185 @@
+package org.terrakube.api.plugin.streaming;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Byte offset index of the job log streams used by the terraform CLI log polling. Each read only indexes the stream
+ * entries written since the previous read, a checkpoint with the entry id and its byte offset is kept every
+ * CHECKPOINT_INTERVAL entries, and the requested range is read starting from the closest checkpoint instead of the
+ * beginning of the stream.
+ */
+@Slf4j
+@Service
+public class LogsOffsetService {
+
+    private static final int CHECKPOINT_INTERVAL = 100;
+    private static final int READ_COUNT = 500;
+
+    RedisTemplate redisTemplate;
+
+    private final Cache<String, LogsIndex> logsIndexes = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    public LogsOffsetService(RedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Return at most limit bytes of the job logs starting at offset, the logs are the output of every stream entry
+     * followed by a new line.
+     */
+    public byte[] readLogs(String jobId, long offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            return new byte[0];
+        }
+
+        LogsIndex logsIndex = logsIndexes.get(jobId, key -> new LogsIndex());
+        Checkpoint checkpoint;
+        synchronized (logsIndex) {
+            updateIndex(jobId, logsIndex);
+            if (offset >= logsIndex.getTotalBytes()) {
+                return new byte[0];
+            }
+            checkpoint = logsIndex.findCheckpoint(offset);
+        }
+        return readRange(jobId, checkpoint, offset, limit);
+    }
+
+    private void updateIndex(String jobId, LogsIndex logsIndex) {
+        Long streamSize = redisTemplate.opsForStream().size(jobId);
+        if (streamSize == null || streamSize < logsIndex.getEntries()) {
+            log.debug("Logs stream {} was removed or trimmed, resetting offset index", jobId);
+            logsIndex.reset();
+        }
+
+        while (true) {
+            String lastId = logsIndex.getLastId();
+            List<MapRecord<String, String, String>> records = readEntries(jobId, lastId);
+            int added = 0;
+            for (MapRecord<String, String, String> mapRecord : records) {
+                String recordId = mapRecord.getId().getValue();
+                if (recordId.equals(lastId)) {
+                    continue;
+                }
+                logsIndex.add(recordId, getLine(mapRecord).length);
+                added++;
+            }
+            if (added == 0 || records.size() < READ_COUNT) {
+                break;
+            }
+        }
+    }
+
+    private byte[] readRange(String jobId, Checkpoint checkpoint, long offset, int limit) {
+        ByteArrayOutputStream logs = new ByteArrayOutputStream(limit);
+        long end = offset + limit;
+        long position = checkpoint.getOffset();
+        String startId = checkpoint.getId();
+        String lastId = null;
+
+        while (position < end) {
+            List<MapRecord<String, String, String>> records = readEntries(jobId, lastId != null ? lastId : startId);
+            int read = 0;
+            for (MapRecord<String, String, String> mapRecord : records) {
+                String recordId = mapRecord.getId().getValue();
+                if (recordId.equals(lastId)) {
+                    continue;
+                }
+                read++;
+                lastId = recordId;
+
+                byte[] line = getLine(mapRecord);
+                long lineEnd = position + line.length;
+                if (lineEnd > offset) {
+                    int from = (int) Math.max(0, offset - position);
+                    int to = (int) Math.min(line.length, end - position);
+                    logs.write(line, from, to - from);
+                }
+                position = lineEnd;
+                if (position >= end) {
+                    break;
+                }
+            }
+            if (read == 0 || records.size() < READ_COUNT) {
+                break;
+            }
+        }
+        return logs.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, String, String>> readEntries(String jobId, String fromId) {
+        Range<String> range = fromId == null ? Range.unbounded() : Range.rightUnbounded(Range.Bound.inclusive(fromId));
+        List<MapRecord<String, String, String>> records = redisTemplate.opsForStream().range(jobId, range, Limit.limit().count(READ_COUNT));
+        return records != null ? records : List.of();
+    }
+
+    private byte[] getLine(MapRecord<String, String, String> mapRecord) {
+        Map<String, String> streamData = mapRecord.getValue();
+        String output = streamData.get("output");
+        return ((output != null ? output : "") + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Checkpoint {
+        private String id;
+        private long offset;
+    }
+
+    @Getter
+    private static class LogsIndex {
+        private final List<Checkpoint> checkpoints = new ArrayList<>();
+        private String lastId;
+        private long entries;
+        private long totalBytes;
+
+        void add(String id, int length) {
+            if (entries % CHECKPOINT_INTERVAL == 0) {
+                checkpoints.add(new Checkpoint(id, totalBytes));
+            }
+            entries++;
+            totalBytes += length;
+            lastId = id;
+        }
+
+        void reset() {
+            checkpoints.clear();
+            lastId = null;
+            entries = 0;
+            totalBytes = 0;
+        }
+
+        Checkpoint findCheckpoint(long offset) {
+            int low = 0;
+            int high = checkpoints.size() - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (checkpoints.get(middle).getOffset() <= offset) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return checkpoints.get(low);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.terrakube.api.plugin.streaming;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class LogsTail {
+    private String lastId;
+    private int lineNumber;
+    private String output;
+    private boolean completed;
+}
@@ -1,27 +1,58 @@
 package org.terrakube.api.plugin.streaming;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.stream.*;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.terrakube.api.repository.StepRepository;
 import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.step.Step;
 import org.apache.commons.text.TextStringBuilder;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.FINAL_STATUS;
 
 @Service
 @Slf4j
-@AllArgsConstructor
 public class StreamingService {
 
+    private static final String STREAM_START = "0-0";
+    private static final String LOGS_EVENT = "logs";
+    private static final String COMPLETED_EVENT = "completed";
+
     RedisTemplate redisTemplate;
 
     StepRepository stepRepository;
 
+    private final long tailMaxWait;
+    private final int tailMaxCount;
+    private final ThreadPoolExecutor tailExecutor;
+
+    public StreamingService(RedisTemplate redisTemplate,
+                            StepRepository stepRepository,
+                            @Value("${org.terrakube.api.logs.tail.maxWait:10000}") long tailMaxWait,
+                            @Value("${org.terrakube.api.logs.tail.maxCount:1000}") int tailMaxCount,
+                            @Value("${org.terrakube.api.logs.tail.maxStreams:4}") int tailMaxStreams) {
+        this.redisTemplate = redisTemplate;
+        this.stepRepository = stepRepository;
+        this.tailMaxWait = tailMaxWait;
+        this.tailMaxCount = tailMaxCount;
+        this.tailExecutor = new ThreadPoolExecutor(tailMaxStreams, tailMaxStreams, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(tailMaxStreams));
+        this.tailExecutor.allowCoreThreadTimeOut(true);
+    }
+
     public String getCurrentLogs(String stepId){
         TextStringBuilder currentLogs = new TextStringBuilder();
         try {
@@ -41,4 +72,117 @@ public class StreamingService {
         }
         return currentLogs.toString();
     }
+
+    /**
+     * Read the log lines of a step written after the stream entry lastId (or after lineNumber when the client only
+     * knows the line number). The stream of the job is shared by all its steps, so it is read in pages of maxCount
+     * entries until a line of the step is found or the end of the stream is reached. When there is nothing new and
+     * waitMillis is greater than zero, the read blocks in redis using XREAD BLOCK until new lines arrive or the wait
+     * expires. The tail is completed only when the step is no longer running and no entry is left after the offset.
+     */
+    public LogsTail getLogsTail(String stepId, String lastId, int lineNumber, long waitMillis) {
+        Optional<Step> step = stepRepository.findById(UUID.fromString(stepId));
+        String offset = lastId != null && !lastId.isEmpty() ? lastId : STREAM_START;
+        if (step.isEmpty()) {
+            return LogsTail.builder().lastId(offset).lineNumber(lineNumber).output("").completed(true).build();
+        }
+
+        // the executor flushes the logs before it updates the step, so the status is read before the stream
+        boolean running = isRunning(step.get());
+        String streamKey = String.valueOf(step.get().getJob().getId());
+        LogsPage logsPage = new LogsPage(stepId, offset, lineNumber);
+        try {
+            StreamReadOptions readOptions = StreamReadOptions.empty().count(tailMaxCount);
+            int entries;
+            do {
+                entries = logsPage.add(redisTemplate.opsForStream().read(readOptions, StreamOffset.create(streamKey, ReadOffset.from(logsPage.offset))));
+            } while (logsPage.output.isEmpty() && entries >= tailMaxCount);
+
+            if (logsPage.output.isEmpty() && !running) {
+                return LogsTail.builder().lastId(logsPage.offset).lineNumber(logsPage.lineNumber).output("").completed(true).build();
+            }
+
+            if (logsPage.output.isEmpty() && waitMillis > 0) {
+                logsPage.add(redisTemplate.opsForStream().read(readOptions.block(Duration.ofMillis(Math.min(waitMillis, tailMaxWait))),
+                        StreamOffset.create(streamKey, ReadOffset.from(logsPage.offset))));
+            }
+        } catch (Exception ex) {
+            log.error("Error reading logs tail for step {}: {}", stepId, ex.getMessage());
+        }
+
+        return LogsTail.builder().lastId(logsPage.offset).lineNumber(logsPage.lineNumber).output(logsPage.output.toString()).completed(false).build();
+    }
+
+    /**
+     * Push the new log lines of a step as server-sent events until the step is no longer running. The id of every
+     * event is the redis stream entry id so a client reconnecting with Last-Event-ID only receives the missing lines.
+     */
+    public SseEmitter streamLogs(String stepId, String lastId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        try {
+            tailExecutor.execute(() -> {
+                String currentId = lastId;
+                try {
+                    LogsTail logsTail;
+                    do {
+                        logsTail = getLogsTail(stepId, currentId, 0, tailMaxWait);
+                        if (!logsTail.getOutput().isEmpty()) {
+                            emitter.send(SseEmitter.event().id(logsTail.getLastId()).name(LOGS_EVENT).data(logsTail.getOutput(), MediaType.TEXT_PLAIN));
+                        }
+                        currentId = logsTail.getLastId();
+                    } while (!logsTail.isCompleted());
+                    emitter.send(SseEmitter.event().id(currentId).name(COMPLETED_EVENT).data(""));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException ex) {
+                    log.info("Logs stream for step {} closed: {}", stepId, ex.getMessage());
+                    emitter.completeWithError(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.warn("Too many log streams, rejecting stream for step {}", stepId);
+            emitter.completeWithError(ex);
+        }
+        return emitter;
+    }
+
+    private static class LogsPage {
+        private final String stepId;
+        private final TextStringBuilder output = new TextStringBuilder();
+        private String offset;
+        private int lineNumber;
+
+        private LogsPage(String stepId, String offset, int lineNumber) {
+            this.stepId = stepId;
+            this.offset = offset;
+            this.lineNumber = lineNumber;
+        }
+
+        /**
+         * Add the lines of the step after the current line number and move the offset to the last entry read.
+         */
+        private int add(List<MapRecord> streamData) {
+            if (streamData == null) {
+                return 0;
+            }
+            for (MapRecord mapRecord : streamData) {
+                StringRecord stringRecord = StringRecord.of(mapRecord);
+                offset = stringRecord.getId().getValue();
+                if (!stepId.equals(stringRecord.getValue().get("stepId"))) {
+                    continue;
+                }
+                int recordLineNumber = Integer.parseInt(stringRecord.getValue().get("lineNumber"));
+                if (recordLineNumber > lineNumber) {
+                    output.appendln(stringRecord.getValue().get("output"));
+                    lineNumber = recordLineNumber;
+                }
+            }
+            return streamData.size();
+        }
+    }
+
+    private boolean isRunning(Step step) {
+        return !step.getStatus().equals(JobStatus.completed)
+                && !step.getStatus().equals(JobStatus.failed)
+                && !FINAL_STATUS.contains(step.getJob().getStatus());
+    }
 }
@@ -0,0 +1,22 @@
+package org.terrakube.api.plugin.token.revocation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@ConditionalOnProperty(prefix = "org.terrakube.token.revocation", name = "pubsub", havingValue = "true", matchIfMissing = true)
+public class TokenRevocationConfiguration {
+
+    @Bean
+    RedisMessageListenerContainer tokenRevocationListenerContainer(JedisConnectionFactory jedisConnectionFactory,
+                                                                   TokenRevocationService tokenRevocationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory);
+        container.addMessageListener(tokenRevocationService, new ChannelTopic(TokenRevocationService.REVOCATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,140 @@
+package org.terrakube.api.plugin.token.revocation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.PatRepository;
+import org.terrakube.api.repository.TeamTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Keep the revocation status of PAT and team tokens in memory so valid tokens are authenticated without reading the
+ * database on every request. Revoked ids are kept until the token itself expires (or revokedTokenTtl when the expiry
+ * is not known), a revoked id evicted from the cache is read again from the database. The status of active tokens
+ * expires after activeTokenTtl so replicas that did not receive the revocation message still pick it up.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService implements MessageListener {
+
+    public static final String REVOCATION_CHANNEL = "terrakube:token:revoked";
+
+    private final PatRepository patRepository;
+    private final TeamTokenRepository teamTokenRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final boolean pubSubEnabled;
+    private final Duration revokedTokenTtl;
+    private final Cache<UUID, Instant> revokedTokens;
+    private final Cache<UUID, Boolean> activeTokens;
+
+    public TokenRevocationService(PatRepository patRepository,
+                                  TeamTokenRepository teamTokenRepository,
+                                  RedisTemplate<String, Object> redisTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${org.terrakube.token.revocation.activeTokenTtl:60}") long activeTokenTtl,
+                                  @Value("${org.terrakube.token.revocation.revokedTokenTtl:86400}") long revokedTokenTtl,
+                                  @Value("${org.terrakube.token.revocation.maxSize:100000}") long maxSize,
+                                  @Value("${org.terrakube.token.revocation.pubsub:true}") boolean pubSubEnabled) {
+        this.patRepository = patRepository;
+        this.teamTokenRepository = teamTokenRepository;
+        this.redisTemplate = redisTemplate;
+        this.pubSubEnabled = pubSubEnabled;
+        this.revokedTokenTtl = Duration.ofSeconds(revokedTokenTtl);
+        this.revokedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<UUID, Instant>() {
+                    @Override
+                    public long expireAfterCreate(UUID tokenId, Instant expiresAt, long currentTime) {
+                        try {
+                            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+                        } catch (ArithmeticException e) {
+                            return Long.MAX_VALUE;
+                        }
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(UUID tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+                        return expireAfterCreate(tokenId, expiresAt, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(UUID tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, revokedTokens, "terrakube.token.revoked");
+        this.activeTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(activeTokenTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, activeTokens, "terrakube.token.active");
+    }
+
+    public boolean isTokenDeleted(String tokenId, Date expiration) {
+        if (tokenId == null) {
+            return false;
+        }
+        UUID id = UUID.fromString(tokenId);
+        if (revokedTokens.getIfPresent(id) != null) {
+            return true;
+        }
+        if (activeTokens.getIfPresent(id) != null) {
+            return false;
+        }
+
+        boolean deleted = patRepository.findById(id).map(pat -> pat.isDeleted())
+                .or(() -> teamTokenRepository.findById(id).map(group -> group.isDeleted()))
+                .orElse(false);
+        if (deleted) {
+            revokedTokens.put(id, expiration != null ? expiration.toInstant() : Instant.now().plus(revokedTokenTtl));
+        } else {
+            activeTokens.put(id, Boolean.TRUE);
+        }
+        return deleted;
+    }
+
+    public void revokeToken(String tokenId) {
+        markRevoked(UUID.fromString(tokenId));
+        if (pubSubEnabled) {
+            try {
+                redisTemplate.convertAndSend(REVOCATION_CHANNEL, tokenId);
+            } catch (Exception e) {
+                log.error("Unable to publish token revocation {}: {}", tokenId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object tokenId = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (tokenId == null) {
+            return;
+        }
+        log.debug("Token {} revoked on another instance", tokenId);
+        try {
+            markRevoked(UUID.fromString(tokenId.toString()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid revoked token id {}", tokenId);
+        }
+    }
+
+    private void markRevoked(UUID tokenId) {
+        revokedTokens.put(tokenId, Instant.now().plus(revokedTokenTtl));
+        activeTokens.invalidate(tokenId);
+    }
+}
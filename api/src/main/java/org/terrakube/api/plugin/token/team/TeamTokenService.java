@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.token.revocation.TokenRevocationService;
 import org.terrakube.api.repository.TeamTokenRepository;
 import org.terrakube.api.rs.token.group.Group;
 
@@ -26,6 +27,10 @@ public class TeamTokenService {
 
     @Autowired
     private TeamTokenRepository teamTokenRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private static final String ISSUER = "Terrakube";
 
     public String createTeamToken(String group, int days, int hours, int minutes, String description, JwtAuthenticationToken principalJwt) {
@@ -108,6 +113,7 @@ public class TeamTokenService {
             Group groupToken = searchGroupToken.get();
             groupToken.setDeleted(true);
             teamTokenRepository.save(groupToken);
+            tokenRevocationService.revokeToken(tokenId);
             return true;
         }else{
             return false;
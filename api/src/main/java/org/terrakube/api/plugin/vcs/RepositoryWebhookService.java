@@ -0,0 +1,33 @@
+package org.terrakube.api.plugin.vcs;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.repository.RepositoryWebhookRepository;
+import org.terrakube.api.rs.vcs.Vcs;
+import org.terrakube.api.rs.webhook.repository.RepositoryWebhook;
+
+/**
+ * Creates the repository webhook row in its own transaction, a concurrent insert for the same repository fails on
+ * uk_repository_webhook without breaking the caller transaction so the caller can read the row created by the other
+ * request.
+ */
+@AllArgsConstructor
+@Service
+public class RepositoryWebhookService {
+
+    RepositoryWebhookRepository repositoryWebhookRepository;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public RepositoryWebhook findOrCreate(Vcs vcs, String repository) {
+        RepositoryWebhook repositoryWebhook = repositoryWebhookRepository.findByVcsAndRepository(vcs, repository).orElse(null);
+        if (repositoryWebhook == null) {
+            repositoryWebhook = new RepositoryWebhook();
+            repositoryWebhook.setVcs(vcs);
+            repositoryWebhook.setRepository(repository);
+            repositoryWebhook = repositoryWebhookRepository.saveAndFlush(repositoryWebhook);
+        }
+        return repositoryWebhook;
+    }
+}
@@ -1,12 +1,16 @@
 package org.terrakube.api.plugin.vcs;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.terrakube.api.plugin.scheduler.ScheduleJobService;
@@ -14,15 +18,19 @@ import org.terrakube.api.plugin.vcs.provider.bitbucket.BitBucketWebhookService;
 import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
 import org.terrakube.api.plugin.vcs.provider.gitlab.GitLabWebhookService;
 import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.RepositoryWebhookRepository;
 import org.terrakube.api.repository.WebhookRepository;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.vcs.Vcs;
 import org.terrakube.api.rs.webhook.Webhook;
 import org.terrakube.api.rs.webhook.WebhookEvent;
+import org.terrakube.api.rs.webhook.repository.RepositoryWebhook;
 import org.terrakube.api.rs.workspace.Workspace;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,14 +47,54 @@ public class WebhookService {
     JobRepository jobRepository;
     ScheduleJobService scheduleJobService;
     ObjectMapper objectMapper;
+    RepositoryWebhookRepository repositoryWebhookRepository;
+    RepositoryWebhookService repositoryWebhookService;
+    WebhookProperties webhookProperties;
 
+    private static final String REPOSITORY_HOOK_PREFIX = "repository:";
+    private static final String REPOSITORY_WEBHOOK_PATH = "repository/";
+
+    // Compiled triggers by webhook id, rebuilt when the webhook or the workspace branch and folder change
+    private final Cache<UUID, WebhookTriggerMatcher> triggerMatchers = Caffeine.newBuilder().maximumSize(10000).build();
+
+    @Transactional(readOnly = true)
+    public boolean verifyWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
+        Optional<Webhook> webhook = webhookRepository.findById(UUID.fromString(webhookId));
+        if (webhook.isEmpty()) {
+            log.error("Webhook {} not found", webhookId);
+            return false;
+        }
+        Workspace workspace = webhook.get().getWorkspace();
+        Vcs vcs = workspace.getVcs();
+        if (vcs == null) {
+            log.error("VCS not found for workspace {} with id {}", workspace.getName(), workspace.getId());
+            return false;
+        }
+
+        return verifyWebhook(vcs, jsonPayload, headers, encodeSecret(workspace.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean verifyRepositoryWebhook(String repositoryWebhookId, String jsonPayload, Map<String, String> headers) {
+        Optional<RepositoryWebhook> repositoryWebhook = repositoryWebhookRepository.findById(UUID.fromString(repositoryWebhookId));
+        if (repositoryWebhook.isEmpty()) {
+            log.error("Repository webhook {} not found", repositoryWebhookId);
+            return false;
+        }
+        return verifyWebhook(repositoryWebhook.get().getVcs(), jsonPayload, headers, encodeSecret(repositoryWebhook.get().getId()));
+    }
+
+    /**
+     * Create the job for one delivery of a workspace webhook, the saved job is dispatched with
+     * {@link #dispatchWebhookJobs(List)} once this transaction is committed.
+     */
     @Transactional
-    public String processWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
-        String result = "";
-        Webhook webhook = webhookRepository.getReferenceById(UUID.fromString(webhookId));
+    public List<Job> createWebhookJobs(String webhookId, String jsonPayload, Map<String, String> headers) {
+        List<Job> jobs = new ArrayList<>();
+        Webhook webhook = webhookRepository.findById(UUID.fromString(webhookId)).orElse(null);
         if (webhook == null) {
             log.error("Webhook {} not found", webhookId);
-            return result;
+            return jobs;
         }
         Workspace workspace = webhook.getWorkspace();
         Vcs vcs = workspace.getVcs();
@@ -54,82 +102,129 @@ public class WebhookService {
         // if the VCS is empty we cannot process the webhook
         if (vcs == null) {
             log.error("VCS not found for workspace {} with id {}", workspace.getName(), workspace.getId());
-            return result;
+            return jobs;
         }
 
-        WebhookResult webhookResult = new WebhookResult();
-        String base64WorkspaceId = Base64.getEncoder()
-                .encodeToString(workspace.getId().toString().getBytes(StandardCharsets.UTF_8));
-        switch (vcs.getVcsType()) {
-            case GITHUB:
-                webhookResult = gitHubWebhookService.processWebhook(jsonPayload, headers,
-                        base64WorkspaceId);
-                break;
-            case GITLAB:
-                webhookResult = gitLabWebhookService.processWebhook(jsonPayload, headers,
-                        base64WorkspaceId);
-                break;
-            case BITBUCKET:
-                webhookResult = bitBucketWebhookService.processWebhook(jsonPayload, headers,
-                        base64WorkspaceId);
-                break;
-            default:
-                break;
-        }
+        WebhookResult webhookResult = parseWebhook(vcs, jsonPayload, headers, encodeSecret(workspace.getId()));
 
         log.info("webhook result {}", webhookResult);
 
         if (!webhookResult.isValid())
-            return result;
-
-        String webhookBranch = webhookResult.getBranch();
+            return jobs;
 
         // Return if branch in the event doesn't match any set branches or if the file
         // changes doesn't match the set path
-        if (!checkBranch(webhookBranch, webhook) || !checkFileChanges(webhookResult.getFileChanges(), webhook)) {
-            return result;
+        WebhookTriggerMatcher webhookTriggerMatcher = getTriggerMatcher(webhook);
+        if (!webhookTriggerMatcher.matchBranch(webhookResult.getBranch()) || !webhookTriggerMatcher.matchFileChanges(getFileChanges(webhookResult))) {
+            return jobs;
         }
 
-        try {
-            String templateId = webhook.getTemplateId();
+        Job job = buildWebhookJob(webhook, webhookResult);
+        if (job != null) {
+            jobs.add(jobRepository.save(job));
+        }
+        return jobs;
+    }
+
+    /**
+     * Create the jobs for one delivery of a repository webhook. The payload is parsed once, the workspace folders bound
+     * to the repository are matched with a single pass over the changed files and the jobs of all the matching
+     * workspaces are saved in one batch. The saved jobs are dispatched with {@link #dispatchWebhookJobs(List)} once
+     * this transaction is committed.
+     */
+    @Transactional
+    public List<Job> createRepositoryWebhookJobs(String repositoryWebhookId, String jsonPayload, Map<String, String> headers) {
+        RepositoryWebhook repositoryWebhook = repositoryWebhookRepository.findById(UUID.fromString(repositoryWebhookId)).orElse(null);
+        if (repositoryWebhook == null) {
+            log.error("Repository webhook {} not found", repositoryWebhookId);
+            return new ArrayList<>();
+        }
+
+        WebhookResult webhookResult = parseWebhook(repositoryWebhook.getVcs(), jsonPayload, headers, encodeSecret(repositoryWebhook.getId()));
+        log.info("repository webhook {} result {}", repositoryWebhookId, webhookResult);
+        if (!webhookResult.isValid())
+            return new ArrayList<>();
 
-            // If the webhook branch is the same as the default workspace branch, or the
-            // webhook template is not valid, use the default template of the workspace.
-            if (webhookResult.getBranch().equals(workspace.getBranch()) || templateId == null || templateId.isEmpty()) {
-                templateId = workspace.getDefaultTemplate();
+        List<Webhook> webhooks = webhookRepository.findByRemoteHookId(REPOSITORY_HOOK_PREFIX + repositoryWebhookId);
+        List<String> fileChanges = getFileChanges(webhookResult);
+        WorkspaceFolderIndex<Webhook> folderIndex = new WorkspaceFolderIndex<>();
+        for (Webhook webhook : webhooks) {
+            folderIndex.add(getTriggerMatcher(webhook).getWorkspaceFolder(), webhook);
+        }
+        Set<Webhook> folderMatches = folderIndex.match(fileChanges);
+
+        List<Job> jobs = new ArrayList<>();
+        for (Webhook webhook : webhooks) {
+            WebhookTriggerMatcher webhookTriggerMatcher = getTriggerMatcher(webhook);
+            if (!webhookTriggerMatcher.matchBranch(webhookResult.getBranch())) {
+                continue;
+            }
+            if (!folderMatches.contains(webhook) && !webhookTriggerMatcher.matchPath(fileChanges)) {
+                continue;
             }
-            // If the template is still not valid, log an error and return
-            if (templateId == null || templateId.isEmpty()) {
-                log.error(
-                        "No valid template found for the configured webhook event {}, nor default template configured for workspace {}",
-                        webhook.getEvent(), workspace.getName());
-                return result;
+            Job job = buildWebhookJob(webhook, webhookResult);
+            if (job != null) {
+                jobs.add(job);
+            }
+        }
+
+        log.info("Repository webhook {} matched {} of {} workspaces", repositoryWebhookId, jobs.size(), webhooks.size());
+        if (jobs.isEmpty())
+            return jobs;
 
+        return jobRepository.saveAll(jobs);
+    }
+
+    /**
+     * Post the pending commit status and schedule the jobs created by a webhook delivery. It runs outside of the
+     * transaction that created the jobs, a job that fails here is still picked up by the job reconciliation.
+     */
+    public void dispatchWebhookJobs(List<Job> jobs) {
+        for (Job job : jobs) {
+            try {
+                sendCommitStatus(job);
+                scheduleJobService.createJobContext(job);
+            } catch (Exception e) {
+                log.error("Error scheduling job {} for workspace {}", job.getId(), job.getWorkspace().getName(), e);
             }
-            log.info("webhook event {} for workspace {}, using template with id {}", webhookResult.getEvent(),
-                    webhook.getWorkspace().getName(), templateId);
-            Job job = new Job();
-            job.setTemplateReference(templateId);
-            job.setRefresh(true);
-            job.setPlanChanges(true);
-            job.setRefreshOnly(false);
-            job.setOverrideBranch(webhookBranch);
-            job.setOrganization(workspace.getOrganization());
-            job.setWorkspace(workspace);
-            job.setCreatedBy(webhookResult.getCreatedBy());
-            job.setUpdatedBy(webhookResult.getCreatedBy());
-            Date triggerDate = new Date(System.currentTimeMillis());
-            job.setCreatedDate(triggerDate);
-            job.setUpdatedDate(triggerDate);
-            job.setVia(webhookResult.getVia());
-            job.setCommitId(webhookResult.getCommit());
-            Job savedJob = jobRepository.save(job);
-            sendCommitStatus(savedJob);
-            scheduleJobService.createJobContext(savedJob);
-        } catch (Exception e) {
-            log.error("Error creating the job", e);
-        }
-        return result;
+        }
+    }
+
+    private Job buildWebhookJob(Webhook webhook, WebhookResult webhookResult) {
+        Workspace workspace = webhook.getWorkspace();
+        String templateId = webhook.getTemplateId();
+
+        // If the webhook branch is the same as the default workspace branch, or the
+        // webhook template is not valid, use the default template of the workspace.
+        if (webhookResult.getBranch().equals(workspace.getBranch()) || templateId == null || templateId.isEmpty()) {
+            templateId = workspace.getDefaultTemplate();
+        }
+        // If the template is still not valid, log an error and return
+        if (templateId == null || templateId.isEmpty()) {
+            log.error(
+                    "No valid template found for the configured webhook event {}, nor default template configured for workspace {}",
+                    webhook.getEvent(), workspace.getName());
+            return null;
+
+        }
+        log.info("webhook event {} for workspace {}, using template with id {}", webhookResult.getEvent(),
+                workspace.getName(), templateId);
+        Job job = new Job();
+        job.setTemplateReference(templateId);
+        job.setRefresh(true);
+        job.setPlanChanges(true);
+        job.setRefreshOnly(false);
+        job.setOverrideBranch(webhookResult.getBranch());
+        job.setOrganization(workspace.getOrganization());
+        job.setWorkspace(workspace);
+        job.setCreatedBy(webhookResult.getCreatedBy());
+        job.setUpdatedBy(webhookResult.getCreatedBy());
+        Date triggerDate = new Date(System.currentTimeMillis());
+        job.setCreatedDate(triggerDate);
+        job.setUpdatedDate(triggerDate);
+        job.setVia(webhookResult.getVia());
+        job.setCommitId(webhookResult.getCommit());
+        return job;
     }
 
     @Transactional
@@ -143,23 +238,14 @@ public class WebhookService {
         if (webhook.getEvent() == null || webhook.getEvent().toString().isEmpty())
             webhook.setEvent(WebhookEvent.PUSH);
 
-        String webhookRemoteId = "";
         if (webhook.getTemplateId() == null)
             webhook.setTemplateId(workspace.getDefaultTemplate());
 
-        Vcs vcs = workspace.getVcs();
-        switch (vcs.getVcsType()) {
-            case GITHUB:
-                webhookRemoteId = gitHubWebhookService.createWebhook(workspace, webhook.getId().toString());
-                break;
-            case GITLAB:
-                webhookRemoteId = gitLabWebhookService.createWebhook(workspace, webhook.getId().toString());
-                break;
-            case BITBUCKET:
-                webhookRemoteId = bitBucketWebhookService.createWebhook(workspace, webhook.getId().toString());
-                break;
-            default:
-                break;
+        String webhookRemoteId;
+        if (webhookProperties.isRepositoryMode()) {
+            webhookRemoteId = createRepositoryWebhook(workspace);
+        } else {
+            webhookRemoteId = createRemoteWebhook(workspace, webhook.getId().toString(), encodeSecret(workspace.getId()));
         }
 
         if (webhookRemoteId.isEmpty()) {
@@ -170,6 +256,48 @@ public class WebhookService {
         webhook.setRemoteHookId(webhookRemoteId);
     }
 
+    /**
+     * Bind the workspace to the hook of its repository, the hook in the VCS is created only for the first workspace
+     * using the repository.
+     */
+    private String createRepositoryWebhook(Workspace workspace) {
+        Vcs vcs = workspace.getVcs();
+        String repository = normalizeRepository(workspace.getSource());
+        RepositoryWebhook repositoryWebhook;
+        try {
+            repositoryWebhook = repositoryWebhookService.findOrCreate(vcs, repository);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Repository webhook for {} was created by another request", repository);
+            repositoryWebhook = repositoryWebhookService.findOrCreate(vcs, repository);
+        }
+
+        if (repositoryWebhook.getRemoteHookId() == null || repositoryWebhook.getRemoteHookId().isEmpty()) {
+            String remoteHookId = createRemoteWebhook(workspace, REPOSITORY_WEBHOOK_PATH + repositoryWebhook.getId(),
+                    encodeSecret(repositoryWebhook.getId()));
+            if (remoteHookId.isEmpty()) {
+                return remoteHookId;
+            }
+            repositoryWebhook.setRemoteHookId(remoteHookId);
+            repositoryWebhookRepository.save(repositoryWebhook);
+            log.info("Repository webhook {} created for {}", repositoryWebhook.getId(), repository);
+        }
+
+        return REPOSITORY_HOOK_PREFIX + repositoryWebhook.getId();
+    }
+
+    private String createRemoteWebhook(Workspace workspace, String webhookPath, String secret) {
+        switch (workspace.getVcs().getVcsType()) {
+            case GITHUB:
+                return gitHubWebhookService.createWebhook(workspace, webhookPath, secret);
+            case GITLAB:
+                return gitLabWebhookService.createWebhook(workspace, webhookPath, secret);
+            case BITBUCKET:
+                return bitBucketWebhookService.createWebhook(workspace, webhookPath, secret);
+            default:
+                return "";
+        }
+    }
+
     @Transactional
     public void deleteWorkspaceWebhook(Webhook webhook) {
         Workspace workspace = webhook.getWorkspace();
@@ -183,58 +311,103 @@ public class WebhookService {
             return;
         }
 
+        String remoteHookId = webhook.getRemoteHookId();
+        if (remoteHookId.startsWith(REPOSITORY_HOOK_PREFIX)) {
+            if (webhookRepository.countByRemoteHookId(remoteHookId) > 0) {
+                log.info("Repository webhook {} is still used by other workspaces", remoteHookId);
+                return;
+            }
+            RepositoryWebhook repositoryWebhook = repositoryWebhookRepository
+                    .findById(UUID.fromString(remoteHookId.substring(REPOSITORY_HOOK_PREFIX.length()))).orElse(null);
+            if (repositoryWebhook == null) {
+                return;
+            }
+            remoteHookId = repositoryWebhook.getRemoteHookId();
+            repositoryWebhookRepository.delete(repositoryWebhook);
+            if (remoteHookId == null || remoteHookId.isEmpty()) {
+                return;
+            }
+        }
+
         Vcs vcs = workspace.getVcs();
         switch (vcs.getVcsType()) {
             case GITHUB:
-                gitHubWebhookService.deleteWebhook(workspace, webhook.getRemoteHookId());
+                gitHubWebhookService.deleteWebhook(workspace, remoteHookId);
                 break;
             case GITLAB:
-                gitLabWebhookService.deleteWebhook(workspace, webhook.getRemoteHookId());
+                gitLabWebhookService.deleteWebhook(workspace, remoteHookId);
                 break;
             case BITBUCKET:
-                bitBucketWebhookService.deleteWebhook(workspace, webhook.getRemoteHookId());
+                bitBucketWebhookService.deleteWebhook(workspace, remoteHookId);
                 break;
             default:
                 break;
         }
     }
 
-    private boolean checkBranch(String webhookBranch, Webhook webhook) {
-        // Check if the webhook branch is the default workspace branch
-        if (webhookBranch.equals(webhook.getWorkspace().getBranch())) {
-            return true;
+    private boolean verifyWebhook(Vcs vcs, String jsonPayload, Map<String, String> headers, String secret) {
+        switch (vcs.getVcsType()) {
+            case GITHUB:
+                return gitHubWebhookService.verifyWebhook(jsonPayload, headers, secret);
+            case GITLAB:
+                return gitLabWebhookService.verifyWebhook(headers, secret);
+            case BITBUCKET:
+                return bitBucketWebhookService.verifyWebhook(jsonPayload, headers, secret);
+            default:
+                return false;
         }
+    }
 
-        String[] branchList = webhook.getBranch().split(",");
-        for (String branch : branchList) {
-            branch = branch.trim();
-            if (webhookBranch.matches(branch)) {
-                return true;
-            }
+    private WebhookResult parseWebhook(Vcs vcs, String jsonPayload, Map<String, String> headers, String secret) {
+        switch (vcs.getVcsType()) {
+            case GITHUB:
+                return gitHubWebhookService.processWebhook(jsonPayload, headers, secret);
+            case GITLAB:
+                return gitLabWebhookService.processWebhook(jsonPayload, headers, secret);
+            case BITBUCKET:
+                return bitBucketWebhookService.processWebhook(jsonPayload, headers, secret);
+            default:
+                return new WebhookResult();
         }
-        return false;
     }
 
-    private boolean checkFileChanges(List<String> files, Webhook webhook) {
-        String[] triggeredPath = webhook.getPath().split(",");
-        String workspaceFolder = webhook.getWorkspace().getFolder();
-        if (workspaceFolder.substring(0, 1).equals("/")) {
-            workspaceFolder = workspaceFolder.substring(1);
+    private String encodeSecret(UUID id) {
+        return Base64.getEncoder().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> getFileChanges(WebhookResult webhookResult) {
+        return webhookResult.getFileChanges() == null ? new ArrayList<>() : webhookResult.getFileChanges();
+    }
+
+    static String normalizeRepository(String source) {
+        String repository = source.trim().toLowerCase();
+        int scheme = repository.indexOf("://");
+        if (scheme >= 0) {
+            repository = repository.substring(scheme + 3);
         }
-        for (String file : files) {
-            if (file.startsWith(workspaceFolder)) {
-                log.info("Changed file {} in set workspace path {}", file, workspaceFolder);
-                return true;
-            }
-            for (int i = 0; i < triggeredPath.length; i++) {
-                if (file.matches(triggeredPath[i])) {
-                    log.info("Changed file {} matches set trigger pattern {}", file, triggeredPath[i]);
-                    return true;
-                }
-            }
+        int credentials = repository.indexOf('@');
+        if (credentials >= 0) {
+            repository = repository.substring(credentials + 1);
+        }
+        repository = repository.replace(':', '/');
+        while (repository.endsWith("/")) {
+            repository = repository.substring(0, repository.length() - 1);
+        }
+        if (repository.endsWith(".git")) {
+            repository = repository.substring(0, repository.length() - 4);
+        }
+        return repository;
+    }
+
+    private WebhookTriggerMatcher getTriggerMatcher(Webhook webhook) {
+        Workspace workspace = webhook.getWorkspace();
+        String source = WebhookTriggerMatcher.sourceOf(webhook.getBranch(), webhook.getPath(), workspace.getFolder(), workspace.getBranch());
+        WebhookTriggerMatcher webhookTriggerMatcher = triggerMatchers.getIfPresent(webhook.getId());
+        if (webhookTriggerMatcher == null || !webhookTriggerMatcher.getSource().equals(source)) {
+            webhookTriggerMatcher = new WebhookTriggerMatcher(webhook.getBranch(), webhook.getPath(), workspace.getFolder(), workspace.getBranch());
+            triggerMatchers.put(webhook.getId(), webhookTriggerMatcher);
         }
-        log.info("Changed files {} doesn't match any of the trigger path pattern {}", files, triggeredPath);
-        return false;
+        return webhookTriggerMatcher;
     }
 
     private void sendCommitStatus(Job job) {
@@ -0,0 +1,99 @@
+package org.terrakube.api.plugin.vcs;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Branch and path triggers of a webhook compiled once. All the path patterns are joined in a single alternation so
+ * every changed file is checked with one match instead of one regular expression per pattern.
+ */
+@Slf4j
+@Getter
+public class WebhookTriggerMatcher {
+
+    private final String source;
+    private final String defaultBranch;
+    private final String workspaceFolder;
+    private final List<Pattern> branchPatterns;
+    private final Pattern pathPattern;
+
+    public WebhookTriggerMatcher(String branches, String paths, String folder, String defaultBranch) {
+        this.source = sourceOf(branches, paths, folder, defaultBranch);
+        this.defaultBranch = defaultBranch;
+        this.workspaceFolder = folder == null ? "" : folder.startsWith("/") ? folder.substring(1) : folder;
+        this.branchPatterns = new ArrayList<>();
+        for (String branch : split(branches)) {
+            Pattern pattern = compile(branch.trim());
+            if (pattern != null) {
+                branchPatterns.add(pattern);
+            }
+        }
+
+        List<String> pathExpressions = new ArrayList<>();
+        for (String path : split(paths)) {
+            if (compile(path) != null) {
+                pathExpressions.add("(?:" + path + ")");
+            }
+        }
+        this.pathPattern = pathExpressions.isEmpty() ? null : Pattern.compile(String.join("|", pathExpressions));
+    }
+
+    public static String sourceOf(String branches, String paths, String folder, String defaultBranch) {
+        return String.join("\n", Objects.toString(branches, ""), Objects.toString(paths, ""),
+                Objects.toString(folder, ""), Objects.toString(defaultBranch, ""));
+    }
+
+    public boolean matchBranch(String webhookBranch) {
+        if (webhookBranch.equals(defaultBranch)) {
+            return true;
+        }
+        for (Pattern branchPattern : branchPatterns) {
+            if (branchPattern.matcher(webhookBranch).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matchFileChanges(List<String> files) {
+        for (String file : files) {
+            if (file.startsWith(workspaceFolder)) {
+                log.info("Changed file {} in set workspace path {}", file, workspaceFolder);
+                return true;
+            }
+        }
+        return matchPath(files);
+    }
+
+    public boolean matchPath(List<String> files) {
+        if (pathPattern != null) {
+            for (String file : files) {
+                if (pathPattern.matcher(file).matches()) {
+                    log.info("Changed file {} matches set trigger pattern {}", file, pathPattern.pattern());
+                    return true;
+                }
+            }
+        }
+        log.debug("Changed files {} doesn't match any of the trigger path pattern {}", files, pathPattern);
+        return false;
+    }
+
+    private static String[] split(String value) {
+        return value == null || value.isEmpty() ? new String[0] : value.split(",");
+    }
+
+    private static Pattern compile(String expression) {
+        try {
+            return Pattern.compile(expression);
+        } catch (PatternSyntaxException e) {
+            log.error("Invalid webhook trigger pattern {}: {}", expression, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.terrakube.api.plugin.vcs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Character trie of the workspace folders bound to a repository. Every changed file is walked once over the trie and
+ * returns all the values whose folder is a prefix of the file, instead of comparing the file with every folder.
+ */
+public class WorkspaceFolderIndex<T> {
+
+    private final Node<T> root = new Node<>();
+
+    public void add(String folder, T value) {
+        Node<T> node = root;
+        for (int i = 0; i < folder.length(); i++) {
+            node = node.children.computeIfAbsent(folder.charAt(i), key -> new Node<>());
+        }
+        node.values.add(value);
+    }
+
+    public Set<T> match(List<String> files) {
+        Set<T> matches = new HashSet<>();
+        for (String file : files) {
+            Node<T> node = root;
+            matches.addAll(node.values);
+            for (int i = 0; i < file.length() && node != null; i++) {
+                node = node.children.get(file.charAt(i));
+                if (node != null) {
+                    matches.addAll(node.values);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+    }
+}
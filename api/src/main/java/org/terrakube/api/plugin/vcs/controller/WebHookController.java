@@ -1,13 +1,15 @@
 package org.terrakube.api.plugin.vcs.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
-import org.terrakube.api.plugin.vcs.WebhookService;
+import org.terrakube.api.plugin.vcs.delivery.WebhookDeliveryResult;
+import org.terrakube.api.plugin.vcs.delivery.WebhookDeliveryService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -20,7 +22,7 @@ import java.util.Map;
 public class WebHookController {
 
     @Autowired
-    WebhookService webhookService;
+    WebhookDeliveryService webhookDeliveryService;
 
     @Autowired
     ObjectMapper objectMapper;
@@ -28,15 +30,39 @@ public class WebHookController {
     @PostMapping("/webhook/v1/{webhookId}")
     public ResponseEntity<String> processWebhook(@PathVariable String webhookId,@RequestBody Map<String, Object> payload,@RequestHeader Map<String, String> headers) {
 
-        log.info("Processing webhook {}", webhookId);
+        log.info("Receiving webhook {}", webhookId);
+        WebhookDeliveryResult webhookDeliveryResult;
         try {
             String jsonPayload = objectMapper.writeValueAsString(payload);
-            log.info("webhook payload: {}", jsonPayload);
-            webhookService.processWebhook(webhookId, jsonPayload,headers);
+            log.debug("webhook payload: {}", jsonPayload);
+            webhookDeliveryResult = webhookDeliveryService.accept(webhookId, jsonPayload, headers);
         } catch (Exception e) {
             log.error("Error processing webhook", e);
             return ResponseEntity.internalServerError().build();
         }
-        return ResponseEntity.ok().build();
+        return toResponse(webhookDeliveryResult);
+    }
+
+    @PostMapping("/webhook/v1/repository/{repositoryWebhookId}")
+    public ResponseEntity<String> processRepositoryWebhook(@PathVariable String repositoryWebhookId,@RequestBody Map<String, Object> payload,@RequestHeader Map<String, String> headers) {
+
+        log.info("Receiving repository webhook {}", repositoryWebhookId);
+        WebhookDeliveryResult webhookDeliveryResult;
+        try {
+            String jsonPayload = objectMapper.writeValueAsString(payload);
+            log.debug("webhook payload: {}", jsonPayload);
+            webhookDeliveryResult = webhookDeliveryService.acceptRepository(repositoryWebhookId, jsonPayload, headers);
+        } catch (Exception e) {
+            log.error("Error processing webhook", e);
+            return ResponseEntity.internalServerError().build();
+        }
+        return toResponse(webhookDeliveryResult);
+    }
+
+    private ResponseEntity<String> toResponse(WebhookDeliveryResult webhookDeliveryResult) {
+        if (webhookDeliveryResult == WebhookDeliveryResult.REJECTED) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.accepted().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package org.terrakube.api.plugin.vcs.delivery;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+@AllArgsConstructor
+@DisallowConcurrentExecution
+public class WebhookDeliveryRecovery implements org.quartz.Job {
+
+    WebhookDeliveryService webhookDeliveryService;
+
+    @Override
+    public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        log.debug("Checking pending webhook deliveries");
+        webhookDeliveryService.recoverDeliveries();
+    }
+}
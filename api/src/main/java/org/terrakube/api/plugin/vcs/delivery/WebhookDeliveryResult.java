@@ -0,0 +1,7 @@
+package org.terrakube.api.plugin.vcs.delivery;
+
+public enum WebhookDeliveryResult {
+    ACCEPTED,
+    DUPLICATE,
+    REJECTED
+}
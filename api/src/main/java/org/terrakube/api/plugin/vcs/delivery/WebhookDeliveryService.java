@@ -0,0 +1,254 @@
+package org.terrakube.api.plugin.vcs.delivery;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.terrakube.api.plugin.vcs.WebhookService;
+import org.terrakube.api.repository.WebhookDeliveryRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.webhook.delivery.WebhookDelivery;
+import org.terrakube.api.rs.webhook.delivery.WebhookDeliveryStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook deliveries are verified and saved inside the HTTP request and processed later by a bounded worker pool, so
+ * the VCS provider gets an answer right away even when a push fans out to many workspaces. Deliveries are unique by
+ * webhook and delivery id, a retry of the same delivery is acknowledged without creating another job. Deliveries that
+ * could not be queued, or that were left in processing by a stopped instance, are picked up by the recovery job.
+ * <p>
+ * Every claim stores a new claim id. The delivery is completed in the same transaction that creates its jobs and only
+ * while the claim id is unchanged, so a worker that exceeded the processing timeout and lost its claim to the recovery
+ * job rolls back instead of creating the jobs a second time.
+ */
+@Slf4j
+@Service
+public class WebhookDeliveryService {
+
+    private static final String PREFIX_WEBHOOK_DELIVERY_RECOVERY = "TerrakubeV2_WebhookDeliveryRecovery";
+    // Provider delivery ids that stay the same when the provider redelivers the event, in priority order: GitHub,
+    // GitLab (Idempotency-Key is kept across retries, X-Gitlab-Event-UUID on older versions) and Bitbucket
+    private static final List<String> DELIVERY_ID_HEADERS = List.of("X-GitHub-Delivery", "Idempotency-Key",
+            "X-Gitlab-Event-UUID", "X-Request-UUID");
+    private static final TypeReference<Map<String, String>> HEADERS_TYPE = new TypeReference<>() {
+    };
+
+    private final WebhookService webhookService;
+    private final WebhookDeliveryRepository webhookDeliveryRepository;
+    private final ObjectMapper objectMapper;
+    private final Scheduler scheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor deliveryExecutor;
+    private final String recoverySchedule;
+    private final long processingTimeout;
+    private final long retention;
+    private final int maxAttempts;
+
+    public WebhookDeliveryService(WebhookService webhookService,
+                                  WebhookDeliveryRepository webhookDeliveryRepository,
+                                  ObjectMapper objectMapper,
+                                  Scheduler scheduler,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${org.terrakube.webhook.delivery.workers:4}") int workers,
+                                  @Value("${org.terrakube.webhook.delivery.queueCapacity:1000}") int queueCapacity,
+                                  @Value("${org.terrakube.webhook.delivery.recoverySchedule:0 * * ? * *}") String recoverySchedule,
+                                  @Value("${org.terrakube.webhook.delivery.processingTimeout:600}") long processingTimeout,
+                                  @Value("${org.terrakube.webhook.delivery.retention:72}") long retention,
+                                  @Value("${org.terrakube.webhook.delivery.maxAttempts:3}") int maxAttempts) {
+        this.webhookService = webhookService;
+        this.webhookDeliveryRepository = webhookDeliveryRepository;
+        this.objectMapper = objectMapper;
+        this.scheduler = scheduler;
+        this.transactionTemplate = transactionTemplate;
+        this.deliveryExecutor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        this.recoverySchedule = recoverySchedule;
+        this.processingTimeout = TimeUnit.SECONDS.toMillis(processingTimeout);
+        this.retention = TimeUnit.HOURS.toMillis(retention);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public WebhookDeliveryResult accept(String webhookId, String jsonPayload, Map<String, String> headers) throws JsonProcessingException {
+        if (!webhookService.verifyWebhook(webhookId, jsonPayload, headers)) {
+            log.warn("Webhook delivery for {} rejected", webhookId);
+            return WebhookDeliveryResult.REJECTED;
+        }
+        return save(webhookId, false, jsonPayload, headers);
+    }
+
+    public WebhookDeliveryResult acceptRepository(String repositoryWebhookId, String jsonPayload, Map<String, String> headers) throws JsonProcessingException {
+        if (!webhookService.verifyRepositoryWebhook(repositoryWebhookId, jsonPayload, headers)) {
+            log.warn("Webhook delivery for repository webhook {} rejected", repositoryWebhookId);
+            return WebhookDeliveryResult.REJECTED;
+        }
+        return save(repositoryWebhookId, true, jsonPayload, headers);
+    }
+
+    private WebhookDeliveryResult save(String webhookId, boolean repository, String jsonPayload, Map<String, String> headers) throws JsonProcessingException {
+        String deliveryId = getDeliveryId(jsonPayload, headers);
+        if (webhookDeliveryRepository.existsByWebhookIdAndDeliveryId(webhookId, deliveryId)) {
+            log.info("Webhook delivery {} for {} already received", deliveryId, webhookId);
+            return WebhookDeliveryResult.DUPLICATE;
+        }
+
+        WebhookDelivery webhookDelivery = new WebhookDelivery();
+        webhookDelivery.setWebhookId(webhookId);
+        webhookDelivery.setRepository(repository);
+        webhookDelivery.setDeliveryId(deliveryId);
+        webhookDelivery.setPayload(jsonPayload);
+        webhookDelivery.setHeaders(objectMapper.writeValueAsString(headers));
+        webhookDelivery.setStatus(WebhookDeliveryStatus.pending);
+        webhookDelivery.setUpdatedDate(new Date());
+        try {
+            webhookDelivery = webhookDeliveryRepository.saveAndFlush(webhookDelivery);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Webhook delivery {} for {} already received", deliveryId, webhookId);
+            return WebhookDeliveryResult.DUPLICATE;
+        }
+
+        log.info("Webhook delivery {} for {} saved with id {}", deliveryId, webhookId, webhookDelivery.getId());
+        submit(webhookDelivery.getId(), WebhookDeliveryStatus.pending, null);
+        return WebhookDeliveryResult.ACCEPTED;
+    }
+
+    private String getDeliveryId(String jsonPayload, Map<String, String> headers) {
+        Map<String, String> caseInsensitiveHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitiveHeaders.putAll(headers);
+        for (String header : DELIVERY_ID_HEADERS) {
+            String deliveryId = caseInsensitiveHeaders.get(header);
+            if (deliveryId != null && !deliveryId.isEmpty()) {
+                return deliveryId;
+            }
+        }
+        return DigestUtils.sha256Hex(jsonPayload);
+    }
+
+    void submit(UUID deliveryId, WebhookDeliveryStatus currentStatus, String currentClaimId) {
+        try {
+            deliveryExecutor.execute(() -> process(deliveryId, currentStatus, currentClaimId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Webhook delivery queue is full, delivery {} will be processed by the recovery job", deliveryId);
+        }
+    }
+
+    void process(UUID deliveryId, WebhookDeliveryStatus currentStatus, String currentClaimId) {
+        String claimId = UUID.randomUUID().toString();
+        int claimed = currentClaimId == null
+                ? webhookDeliveryRepository.claim(deliveryId, currentStatus, WebhookDeliveryStatus.processing, claimId, new Date())
+                : webhookDeliveryRepository.reclaim(deliveryId, WebhookDeliveryStatus.processing, currentClaimId, claimId, new Date());
+        if (claimed == 0) {
+            log.debug("Webhook delivery {} already claimed", deliveryId);
+            return;
+        }
+
+        WebhookDelivery webhookDelivery = webhookDeliveryRepository.findById(deliveryId).orElse(null);
+        if (webhookDelivery == null) {
+            return;
+        }
+
+        List<Job> jobs;
+        try {
+            Map<String, String> headers = objectMapper.readValue(webhookDelivery.getHeaders(), HEADERS_TYPE);
+            jobs = transactionTemplate.execute(transactionStatus -> {
+                List<Job> createdJobs = webhookDelivery.isRepository()
+                        ? webhookService.createRepositoryWebhookJobs(webhookDelivery.getWebhookId(), webhookDelivery.getPayload(), headers)
+                        : webhookService.createWebhookJobs(webhookDelivery.getWebhookId(), webhookDelivery.getPayload(), headers);
+                if (webhookDeliveryRepository.updateClaimedStatus(deliveryId, WebhookDeliveryStatus.processing, claimId, WebhookDeliveryStatus.completed, new Date()) == 0) {
+                    transactionStatus.setRollbackOnly();
+                    return null;
+                }
+                return createdJobs;
+            });
+        } catch (Exception e) {
+            log.error("Error processing webhook delivery {}", deliveryId, e);
+            WebhookDeliveryStatus nextStatus = webhookDelivery.getAttempts() >= maxAttempts ? WebhookDeliveryStatus.failed : WebhookDeliveryStatus.pending;
+            if (webhookDeliveryRepository.updateClaimedStatus(deliveryId, WebhookDeliveryStatus.processing, claimId, nextStatus, new Date()) > 0) {
+                log.info("Webhook delivery {} {}", deliveryId, nextStatus);
+            }
+            return;
+        }
+
+        if (jobs == null) {
+            log.warn("Webhook delivery {} was claimed by another worker after the processing timeout, discarding jobs", deliveryId);
+            return;
+        }
+        webhookService.dispatchWebhookJobs(jobs);
+        log.info("Webhook delivery {} completed with {} jobs", deliveryId, jobs.size());
+    }
+
+    public void recoverDeliveries() {
+        long now = System.currentTimeMillis();
+        for (WebhookDelivery webhookDelivery : webhookDeliveryRepository.findTop100ByStatusAndUpdatedDateBeforeOrderByUpdatedDateAsc(WebhookDeliveryStatus.pending, new Date(now - TimeUnit.SECONDS.toMillis(30)))) {
+            log.info("Recovering pending webhook delivery {}", webhookDelivery.getId());
+            submit(webhookDelivery.getId(), WebhookDeliveryStatus.pending, null);
+        }
+        for (WebhookDelivery webhookDelivery : webhookDeliveryRepository.findTop100ByStatusAndUpdatedDateBeforeOrderByUpdatedDateAsc(WebhookDeliveryStatus.processing, new Date(now - processingTimeout))) {
+            if (webhookDelivery.getAttempts() >= maxAttempts) {
+                log.error("Webhook delivery {} failed after {} attempts", webhookDelivery.getId(), webhookDelivery.getAttempts());
+                webhookDeliveryRepository.updateStatus(webhookDelivery.getId(), WebhookDeliveryStatus.failed, new Date());
+            } else {
+                log.info("Recovering stuck webhook delivery {}", webhookDelivery.getId());
+                submit(webhookDelivery.getId(), WebhookDeliveryStatus.processing, webhookDelivery.getClaimId());
+            }
+        }
+        int deleted = webhookDeliveryRepository.deleteFinished(List.of(WebhookDeliveryStatus.completed, WebhookDeliveryStatus.failed), new Date(now - retention));
+        if (deleted > 0) {
+            log.info("Deleted {} old webhook deliveries", deleted);
+        }
+    }
+
+    @PostConstruct
+    public void initWebhookDeliveryRecovery() {
+        try {
+            log.info("Setup webhook delivery recovery using schedule {}", recoverySchedule);
+            if (scheduler.getJobDetail(new JobKey(PREFIX_WEBHOOK_DELIVERY_RECOVERY)) != null) {
+                log.info("Delete Old Quartz Job for webhook delivery recovery");
+                scheduler.deleteJob(new JobKey(PREFIX_WEBHOOK_DELIVERY_RECOVERY));
+            }
+            setupWebhookDeliveryRecovery(recoverySchedule);
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    private void setupWebhookDeliveryRecovery(String quartzSchedule) throws ParseException, SchedulerException {
+        JobDetail jobDetail = JobBuilder.newJob().ofType(WebhookDeliveryRecovery.class)
+                .storeDurably()
+                .withIdentity(PREFIX_WEBHOOK_DELIVERY_RECOVERY)
+                .withDescription("WebhookDeliveryRecoveryV1")
+                .build();
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .startNow()
+                .forJob(jobDetail)
+                .withIdentity(PREFIX_WEBHOOK_DELIVERY_RECOVERY)
+                .withDescription("WebhookDeliveryRecoveryV1")
+                .withSchedule(CronScheduleBuilder.cronSchedule(new CronExpression(quartzSchedule)))
+                .build();
+
+        log.info("Create Schedule Job Trigger for webhook delivery recovery {}", jobDetail.getKey());
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdown();
+    }
+}
@@ -5,7 +5,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.terrakube.api.plugin.vcs.WebhookResult;
 import org.terrakube.api.plugin.vcs.WebhookServiceBase;
 import org.terrakube.api.repository.WorkspaceRepository;
@@ -20,7 +19,6 @@ import java.io.BufferedReader;
 import java.io.StringReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.*;
 
 @Service
@@ -43,6 +41,10 @@ public class BitBucketWebhookService extends WebhookServiceBase {
         return handleWebhook(jsonPayload, headers, token, "x-hub-signature", "Bitbucket", this::handleEvent);
     }
 
+    public boolean verifyWebhook(String jsonPayload, Map<String, String> headers, String token) {
+        return verifySignature(headers, "x-hub-signature", token, jsonPayload);
+    }
+
     private WebhookResult handleEvent(String jsonPayload, WebhookResult result, Map<String, String> headers) {
         // Extract event
         String event = headers.get("x-event-key");
@@ -102,17 +104,12 @@ public class BitBucketWebhookService extends WebhookServiceBase {
             log.info("Base URL: {}",
                     String.format("%s://%s", urlBitbucketApi.getProtocol(), urlBitbucketApi.getHost()));
             log.info("URI: {}", urlBitbucketApi.getPath());
-            WebClient webClient = WebClient.builder()
-                    .baseUrl(String.format("%s://%s", urlBitbucketApi.getProtocol(), urlBitbucketApi.getHost()))
-                    .defaultHeader(HttpHeaders.AUTHORIZATION, accessToken)
-                    .build();
-
-            String diffContent = webClient.get()
-                    .uri(urlBitbucketApi.getPath())
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(10))
-                    .block();
+            HttpHeaders httpHeaders = new HttpHeaders();
+            httpHeaders.set(HttpHeaders.AUTHORIZATION, accessToken);
+
+            String diffContent = makeApiRequest(httpHeaders, null,
+                    String.format("%s://%s%s", urlBitbucketApi.getProtocol(), urlBitbucketApi.getHost(), urlBitbucketApi.getPath()),
+                    HttpMethod.GET).getBody();
 
             new BufferedReader(new StringReader(diffContent)).lines().forEach(line -> {
                 if (line.startsWith("diff --git ")) {
@@ -132,9 +129,13 @@ public class BitBucketWebhookService extends WebhookServiceBase {
     }
 
     public String createWebhook(Workspace workspace, String webhookId) {
-        String id = "";
         String secret = Base64.getEncoder()
                 .encodeToString(workspace.getId().toString().getBytes(StandardCharsets.UTF_8));
+        return createWebhook(workspace, webhookId, secret);
+    }
+
+    public String createWebhook(Workspace workspace, String webhookId, String secret) {
+        String id = "";
         String[] ownerAndRepo = extractOwnerAndRepo(workspace.getSource());
         String webhookUrl = String.format("https://%s/webhook/v1/%s", hostname, webhookId);
 
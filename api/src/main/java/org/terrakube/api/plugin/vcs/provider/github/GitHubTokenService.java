@@ -1,7 +1,5 @@
 package org.terrakube.api.plugin.vcs.provider.github;
 
-import java.net.InetSocketAddress;
-import java.net.Proxy;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
@@ -11,21 +9,23 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
-import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.terrakube.api.plugin.scheduler.ScheduleGitHubAppTokenService;
 import org.terrakube.api.plugin.vcs.provider.GetAccessToken;
 import org.terrakube.api.plugin.vcs.provider.exception.TokenException;
 import org.terrakube.api.repository.GitHubAppTokenRepository;
@@ -36,9 +36,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.transport.ProxyProvider;
@@ -48,13 +52,23 @@ import reactor.netty.transport.ProxyProvider;
 public class GitHubTokenService implements GetAccessToken<GitHubToken> {
 
     private static final String DEFAULT_ENDPOINT = "https://github.com";
+    private static final long INSTALLATION_TOKEN_LIFETIME = TimeUnit.HOURS.toMillis(1);
 
     @Autowired
     ObjectMapper objectMapper;
     @Autowired
     GitHubAppTokenRepository gitHubAppTokenRepository;
     @Autowired
-    ScheduleGitHubAppTokenService scheduleGitHubAppTokenService;
+    RestTemplate restTemplate;
+
+    @Value("${org.terrakube.github.app.token.refreshAhead:600}")
+    long refreshAhead;
+
+    // Installation tokens by vcs and owner, valid for one hour after they are created
+    private final Cache<String, CachedToken> installationTokens = Caffeine.newBuilder()
+            .expireAfterWrite(INSTALLATION_TOKEN_LIFETIME, TimeUnit.MILLISECONDS)
+            .build();
+    private final Map<String, ReentrantLock> installationTokenLocks = new ConcurrentHashMap<>();
 
     public GitHubToken getAccessToken(String clientId, String clientSecret, String tempCode, String callback,
                                       String endpoint) throws TokenException {
@@ -98,9 +112,110 @@ public class GitHubTokenService implements GetAccessToken<GitHubToken> {
         }
     }
 
+    /**
+     * Installation token from the local cache. A missing or expired token is loaded by a single caller while the
+     * others wait for it, a token close to expiration is refreshed by one caller while the others keep using the
+     * current token.
+     */
     public String getAccessToken(Vcs vcs, String[] ownerAndRepo)
             throws JsonMappingException, JsonProcessingException, NoSuchAlgorithmException, InvalidKeySpecException {
-        return getGitHubAppToken(vcs, ownerAndRepo).getToken();
+        String cacheKey = getCacheKey(vcs, ownerAndRepo[0]);
+        CachedToken cachedToken = installationTokens.getIfPresent(cacheKey);
+        long now = System.currentTimeMillis();
+        if (cachedToken != null && cachedToken.getExpiresAt() - now > getRefreshAhead()) {
+            return cachedToken.getToken();
+        }
+
+        ReentrantLock lock = installationTokenLocks.computeIfAbsent(cacheKey, key -> new ReentrantLock());
+        if (cachedToken != null && cachedToken.getExpiresAt() > now) {
+            if (!lock.tryLock()) {
+                return cachedToken.getToken();
+            }
+            try {
+                return loadInstallationToken(cacheKey, vcs, ownerAndRepo).getToken();
+            } catch (JsonProcessingException | NoSuchAlgorithmException | InvalidKeySpecException | RuntimeException e) {
+                log.warn("Unable to refresh GitHub App token for owner/organization {}, using current token: {}", ownerAndRepo[0], e.getMessage());
+                return cachedToken.getToken();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        lock.lock();
+        try {
+            cachedToken = installationTokens.getIfPresent(cacheKey);
+            if (cachedToken != null && cachedToken.getExpiresAt() - System.currentTimeMillis() > getRefreshAhead()) {
+                return cachedToken.getToken();
+            }
+            return loadInstallationToken(cacheKey, vcs, ownerAndRepo).getToken();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Refresh a saved installation token, used by the refresh sweep. The token is refreshed under the same lock used
+     * by getAccessToken so a token is never created twice at the same time by the same instance.
+     */
+    public void refreshGitHubAppToken(GitHubAppToken gitHubAppToken)
+            throws JsonMappingException, JsonProcessingException, NoSuchAlgorithmException, InvalidKeySpecException {
+        String cacheKey = getCacheKey(gitHubAppToken.getVcs(), gitHubAppToken.getOwner());
+        ReentrantLock lock = installationTokenLocks.computeIfAbsent(cacheKey, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            CachedToken cachedToken = installationTokens.getIfPresent(cacheKey);
+            if (cachedToken != null && cachedToken.getExpiresAt() - System.currentTimeMillis() > getRefreshAhead()
+                    && cachedToken.getToken().equals(gitHubAppToken.getToken())) {
+                return;
+            }
+            saveRefreshedToken(cacheKey, gitHubAppToken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedToken loadInstallationToken(String cacheKey, Vcs vcs, String[] ownerAndRepo)
+            throws JsonMappingException, JsonProcessingException, NoSuchAlgorithmException, InvalidKeySpecException {
+        GitHubAppToken gitHubAppToken = gitHubAppTokenRepository.findByVcsAndOwner(vcs, ownerAndRepo[0]);
+        if (gitHubAppToken == null) {
+            gitHubAppToken = fetchGitHubAppInstallationToken(vcs, ownerAndRepo);
+            CachedToken cachedToken = new CachedToken(gitHubAppToken.getToken(), System.currentTimeMillis() + INSTALLATION_TOKEN_LIFETIME);
+            installationTokens.put(cacheKey, cachedToken);
+            return cachedToken;
+        }
+
+        long expiresAt = gitHubAppToken.getUpdatedDate() == null ? 0 : gitHubAppToken.getUpdatedDate().getTime() + INSTALLATION_TOKEN_LIFETIME;
+        if (gitHubAppToken.getToken() == null || expiresAt - System.currentTimeMillis() <= getRefreshAhead()) {
+            return saveRefreshedToken(cacheKey, gitHubAppToken);
+        }
+
+        CachedToken cachedToken = new CachedToken(gitHubAppToken.getToken(), expiresAt);
+        installationTokens.put(cacheKey, cachedToken);
+        return cachedToken;
+    }
+
+    private CachedToken saveRefreshedToken(String cacheKey, GitHubAppToken gitHubAppToken)
+            throws JsonMappingException, JsonProcessingException, NoSuchAlgorithmException, InvalidKeySpecException {
+        long createdAt = System.currentTimeMillis();
+        String token = refreshAccessToken(gitHubAppToken);
+        if (token == null) {
+            throw new IllegalStateException("Unable to refresh GitHub App token for owner/organization " + gitHubAppToken.getOwner());
+        }
+        gitHubAppToken.setToken(token);
+        gitHubAppTokenRepository.save(gitHubAppToken);
+        log.debug("Token refreshed for GitHub installation {} on organization/user {}", gitHubAppToken.getId(), gitHubAppToken.getOwner());
+
+        CachedToken cachedToken = new CachedToken(token, createdAt + INSTALLATION_TOKEN_LIFETIME);
+        installationTokens.put(cacheKey, cachedToken);
+        return cachedToken;
+    }
+
+    public long getRefreshAhead() {
+        return TimeUnit.SECONDS.toMillis(refreshAhead);
+    }
+
+    private String getCacheKey(Vcs vcs, String owner) {
+        return vcs.getId() + "/" + owner;
     }
 
     // Refreshes the access token for a specific installation of the app that's
@@ -145,17 +260,8 @@ public class GitHubTokenService implements GetAccessToken<GitHubToken> {
         }
 
         gitHubAppToken.setVcs(vcs);
-        gitHubAppToken = gitHubAppTokenRepository.save(gitHubAppToken);
-        // Schedule a job to refresh the token every 55 minutes
-        try {
-            scheduleGitHubAppTokenService.createTask(3300, gitHubAppToken.getId().toString());
-            log.debug("Successfully created schedule task to refresh GitHub App token for owner/organization {}",
-                    gitHubAppToken.getOwner());
-        } catch (SchedulerException e) {
-            log.error("Failed to create schedule task to refresh GitHub App token for owner/organization {}, error {}",
-                    gitHubAppToken.getOwner(), e);
-        }
-        return gitHubAppToken;
+        // The token is refreshed by the GitHub App token refresh sweep
+        return gitHubAppTokenRepository.save(gitHubAppToken);
     }
 
     // Gets the access token with app installation ID for a specific installation of
@@ -201,23 +307,14 @@ public class GitHubTokenService implements GetAccessToken<GitHubToken> {
         headers.set("Accept", "application/vnd.github+json");
         headers.set("Authorization", "Bearer " + jws);
         headers.set("X-GitHub-Api-Version", "2022-11-28");
-        RestTemplate restTemplate = getRestTemplateWithProxy();
         HttpEntity<String> entity = new HttpEntity<>(body, headers);
         return restTemplate.exchange(apiUrl, method, entity, String.class);
     }
 
-    public RestTemplate getRestTemplateWithProxy() {
-        if (System.getProperty("http.proxyHost") != null) {
-            log.info("RestTemplate proxy host: {} port: {}", System.getProperty("http.proxyHost"), System.getProperty("http.proxyPort"));
-            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-            String proxyHost = System.getProperty("http.proxyHost");
-            int proxyPort = Integer.parseInt(System.getProperty("http.proxyPort"));
-            Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, proxyPort));
-            requestFactory.setProxy(proxy);
-            return new RestTemplate(requestFactory);
-        } else {
-            log.info("No proxy setup");
-            return new RestTemplate();
-        }
+    @Getter
+    @AllArgsConstructor
+    private static class CachedToken {
+        private String token;
+        private long expiresAt;
     }
-}
\ No newline at end of file
+}
@@ -50,6 +50,10 @@ public class GitHubWebhookService extends WebhookServiceBase {
                 this::handleEvent);
     }
 
+    public boolean verifyWebhook(String jsonPayload, Map<String, String> headers, String token) {
+        return verifySignature(headers, "x-hub-signature-256", token, jsonPayload);
+    }
+
     private WebhookResult handleEvent(String jsonPayload, WebhookResult result, Map<String, String> headers) {
         // Extract event
         String event = headers.get("x-github-event");
@@ -154,9 +158,13 @@ public class GitHubWebhookService extends WebhookServiceBase {
     }
 
     public String createWebhook(Workspace workspace, String webhookId) {
-        String id = "";
         String secret = Base64.getEncoder()
                 .encodeToString(workspace.getId().toString().getBytes(StandardCharsets.UTF_8));
+        return createWebhook(workspace, webhookId, secret);
+    }
+
+    public String createWebhook(Workspace workspace, String webhookId, String secret) {
+        String id = "";
         String webhookUrl = String.format("https://%s/webhook/v1/%s", hostname, webhookId);
         String[] ownerAndRepo = extractOwnerAndRepo(workspace.getSource());
 
@@ -2,9 +2,6 @@ package org.terrakube.api.plugin.vcs.provider.gitlab;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,7 +14,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.terrakube.api.plugin.vcs.WebhookResult;
 import org.terrakube.api.plugin.vcs.WebhookServiceBase;
@@ -107,14 +104,22 @@ public class GitLabWebhookService extends WebhookServiceBase {
         return result;
     }
 
+    public boolean verifyWebhook(Map<String, String> headers, String token) {
+        String tokenHeader = headers.get("x-gitlab-token");
+        return tokenHeader != null && tokenHeader.equals(token);
+    }
+
     public String createWebhook(Workspace workspace, String webhookId) {
-        String id = "";
         String secret = Base64.getEncoder()
                 .encodeToString(workspace.getId().toString().getBytes(StandardCharsets.UTF_8));
+        return createWebhook(workspace, webhookId, secret);
+    }
+
+    public String createWebhook(Workspace workspace, String webhookId, String secret) {
+        String id = "";
         String ownerAndRepo = String.join("/", extractOwnerAndRepo(workspace.getSource()));
         String token = workspace.getVcs().getAccessToken();
         String webhookUrl = String.format("https://%s/webhook/v1/%s", hostname, webhookId);
-        RestTemplate restTemplate = new RestTemplate();
 
         // Create the headers
         HttpHeaders headers = new HttpHeaders();
@@ -133,9 +138,8 @@ public class GitLabWebhookService extends WebhookServiceBase {
         try {
             log.info("Search gitlab project id using {}, {}", ownerAndRepo, workspace.getVcs().getApiUrl());
             projectId = getGitlabProjectId(ownerAndRepo, token, workspace.getVcs().getApiUrl());
-        } catch (InterruptedException | IOException e) {
+        } catch (IOException e) {
             log.error(e.getMessage());
-            Thread.currentThread().interrupt();
         }
         URI gitlabUri = UriComponentsBuilder.fromHttpUrl(workspace.getVcs().getApiUrl() + "/projects/" + projectId + "/hooks").build(true).toUri();
 
@@ -160,33 +164,31 @@ public class GitLabWebhookService extends WebhookServiceBase {
         return id;
     }
 
-    private String getGitlabProjectId(String ownerAndRepo, String accessToken, String gitlabBaseUrl) throws IOException, InterruptedException {
+    private String getGitlabProjectId(String ownerAndRepo, String accessToken, String gitlabBaseUrl) throws IOException {
         String projectId = "";
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(gitlabBaseUrl + "/search?scope=projects&search=" + ownerAndRepo))
-                .header("Authorization", "Bearer " + accessToken)
-                .header("Content-Type", "application/json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        // Check for successful response
-        if (response.statusCode() == 200) {
-            log.info("Response from Gitlab: {}" , response.body());
-            // Initialize Jackson ObjectMapper
-            ObjectMapper objectMapper = new ObjectMapper();
-
-            // Parse the JSON string into a JsonNode
-            JsonNode jsonNode = objectMapper.readTree(response.body());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.set("Content-Type", "application/json");
 
-            projectId = jsonNode.get(0).get("id").asText();
-            log.info("Parsed Project ID: {}", projectId);
-        } else {
-            log.error("Failed to retrieve project ID. HTTP Status: {}", response.statusCode());
-            log.error("Response: {}", response.body());
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.exchange(URI.create(gitlabBaseUrl + "/search?scope=projects&search=" + ownerAndRepo),
+                    HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        } catch (RestClientResponseException e) {
+            log.error("Failed to retrieve project ID. HTTP Status: {}", e.getStatusCode().value());
+            log.error("Response: {}", e.getResponseBodyAsString());
+            return projectId;
         }
+
+        log.info("Response from Gitlab: {}" , response.getBody());
+        // Initialize Jackson ObjectMapper
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Parse the JSON string into a JsonNode
+        JsonNode jsonNode = objectMapper.readTree(response.getBody());
+
+        projectId = jsonNode.get(0).get("id").asText();
+        log.info("Parsed Project ID: {}", projectId);
         return projectId;
     }
     
@@ -1,5 +1,7 @@
 package org.terrakube.api.repository;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,4 +12,6 @@ import org.terrakube.api.rs.vcs.Vcs;
 @Repository
 public interface GitHubAppTokenRepository extends JpaRepository<GitHubAppToken, UUID> {
     GitHubAppToken findByVcsAndOwner(Vcs vcs, String owner);
+
+    List<GitHubAppToken> findByUpdatedDateBeforeOrUpdatedDateIsNull(Date updatedDate);
 }
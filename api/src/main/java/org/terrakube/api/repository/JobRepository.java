@@ -3,11 +3,17 @@ package org.terrakube.api.repository;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.terrakube.api.rs.workspace.Workspace;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface JobRepository extends JpaRepository<Job, Integer> {
 
@@ -18,8 +24,33 @@ public interface JobRepository extends JpaRepository<Job, Integer> {
 
     Optional<List<Job>> findAllByWorkspaceAndStatusNotInOrderByIdAsc(Workspace workspace, List<JobStatus> status);
     List<Job> findAllByWorkspaceAndStatusInOrderByIdDesc(Workspace workspace, List<JobStatus> jobStatuses);
-    Optional<List<Job>> findByWorkspaceAndStatusNotInAndIdLessThan(Workspace workspace, List<JobStatus> jobStatuses, int jobId);
 
     Optional<Job> findFirstByWorkspaceAndAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
     Optional<Job> findFirstByWorkspaceAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
+    List<Job> findAllByWorkspaceInAndStatusInOrderByIdAsc(Collection<Workspace> workspaces, List<JobStatus> jobStatuses);
+    Optional<Job> findFirstByWorkspaceAndStatusNotInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
+
+    @Query(value = "SELECT j.id AS jobId, j.workspace.id AS workspaceId, j.status AS status, j.planChanges AS planChanges, " +
+            "(SELECT s.status FROM step s WHERE s.job = j AND s.stepNumber = (SELECT MIN(fs.stepNumber) FROM step fs WHERE fs.job = j)) AS firstStepStatus " +
+            "FROM job j WHERE j.organization.name = :organizationName AND j.status IN :statuses AND j.workspace IS NOT NULL ORDER BY j.id ASC",
+            countQuery = "SELECT COUNT(j) FROM job j WHERE j.organization.name = :organizationName AND j.status IN :statuses AND j.workspace IS NOT NULL")
+    Page<RunSummary> findRunQueueByOrganizationName(@Param("organizationName") String organizationName, @Param("statuses") List<JobStatus> statuses, Pageable pageable);
+
+    @Query(value = "SELECT j.id AS jobId, j.workspace.id AS workspaceId, j.status AS status, j.planChanges AS planChanges, " +
+            "(SELECT s.status FROM step s WHERE s.job = j AND s.stepNumber = (SELECT MIN(fs.stepNumber) FROM step fs WHERE fs.job = j)) AS firstStepStatus " +
+            "FROM job j WHERE j.workspace = :workspace AND j.status IN :statuses ORDER BY j.id DESC",
+            countQuery = "SELECT COUNT(j) FROM job j WHERE j.workspace = :workspace AND j.status IN :statuses")
+    Page<RunSummary> findRunsByWorkspace(@Param("workspace") Workspace workspace, @Param("statuses") List<JobStatus> statuses, Pageable pageable);
+
+    interface RunSummary {
+        int getJobId();
+
+        UUID getWorkspaceId();
+
+        JobStatus getStatus();
+
+        boolean getPlanChanges();
+
+        JobStatus getFirstStepStatus();
+    }
 }
@@ -1,6 +1,8 @@
 package org.terrakube.api.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.terrakube.api.rs.collection.Reference;
 import org.terrakube.api.rs.workspace.Workspace;
 
@@ -11,4 +13,7 @@ import java.util.UUID;
 public interface ReferenceRepository extends JpaRepository<Reference, UUID> {
 
     Optional<List<Reference>> findByWorkspace(Workspace workspace);
+
+    @Query("SELECT DISTINCT r FROM reference r JOIN FETCH r.collection c LEFT JOIN FETCH c.item WHERE r.workspace = :workspace")
+    List<Reference> findByWorkspaceWithItems(@Param("workspace") Workspace workspace);
 }
@@ -0,0 +1,13 @@
+package org.terrakube.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.terrakube.api.rs.vcs.Vcs;
+import org.terrakube.api.rs.webhook.repository.RepositoryWebhook;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RepositoryWebhookRepository extends JpaRepository<RepositoryWebhook, UUID> {
+
+    Optional<RepositoryWebhook> findByVcsAndRepository(Vcs vcs, String repository);
+}
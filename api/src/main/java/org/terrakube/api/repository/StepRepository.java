@@ -1,5 +1,6 @@
 package org.terrakube.api.repository;
 
+import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.step.Step;
 import org.springframework.data.jpa.repository.JpaRepository;
 
@@ -12,4 +13,6 @@ public interface StepRepository extends JpaRepository<Step, UUID> {
     List<Step> findByJobId(int jobId);
 
     Optional<Step> findFirstByJobIdOrderByStepNumber(int jobId);
+
+    Optional<Step> findFirstByJobIdAndStatusOrderByStepNumber(int jobId, JobStatus status);
 }
@@ -0,0 +1,47 @@
+package org.terrakube.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.rs.webhook.delivery.WebhookDelivery;
+import org.terrakube.api.rs.webhook.delivery.WebhookDeliveryStatus;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, UUID> {
+
+    boolean existsByWebhookIdAndDeliveryId(String webhookId, String deliveryId);
+
+    List<WebhookDelivery> findTop100ByStatusAndUpdatedDateBeforeOrderByUpdatedDateAsc(WebhookDeliveryStatus status, Date updatedDate);
+
+    @Transactional
+    @Modifying
+    @Query("update webhook_delivery d set d.status = :nextStatus, d.claimId = :claimId, d.attempts = d.attempts + 1, d.updatedDate = :updatedDate where d.id = :id and d.status = :currentStatus")
+    int claim(@Param("id") UUID id, @Param("currentStatus") WebhookDeliveryStatus currentStatus, @Param("nextStatus") WebhookDeliveryStatus nextStatus, @Param("claimId") String claimId, @Param("updatedDate") Date updatedDate);
+
+    @Transactional
+    @Modifying
+    @Query("update webhook_delivery d set d.claimId = :claimId, d.attempts = d.attempts + 1, d.updatedDate = :updatedDate where d.id = :id and d.status = :status and d.claimId = :currentClaimId")
+    int reclaim(@Param("id") UUID id, @Param("status") WebhookDeliveryStatus status, @Param("currentClaimId") String currentClaimId, @Param("claimId") String claimId, @Param("updatedDate") Date updatedDate);
+
+    @Transactional
+    @Modifying
+    @Query("update webhook_delivery d set d.status = :nextStatus, d.updatedDate = :updatedDate where d.id = :id and d.status = :currentStatus and d.claimId = :claimId")
+    int updateClaimedStatus(@Param("id") UUID id, @Param("currentStatus") WebhookDeliveryStatus currentStatus, @Param("claimId") String claimId, @Param("nextStatus") WebhookDeliveryStatus nextStatus, @Param("updatedDate") Date updatedDate);
+
+    @Transactional
+    @Modifying
+    @Query("update webhook_delivery d set d.status = :status, d.updatedDate = :updatedDate where d.id = :id")
+    int updateStatus(@Param("id") UUID id, @Param("status") WebhookDeliveryStatus status, @Param("updatedDate") Date updatedDate);
+
+    @Transactional
+    @Modifying
+    @Query("delete from webhook_delivery d where d.status in :statuses and d.updatedDate < :updatedDate")
+    int deleteFinished(@Param("statuses") List<WebhookDeliveryStatus> statuses, @Param("updatedDate") Date updatedDate);
+}
@@ -1,9 +1,17 @@
 package org.terrakube.api.repository;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.terrakube.api.rs.webhook.Webhook;
 
 public interface WebhookRepository extends JpaRepository<Webhook, UUID> {
+
+    @Query("SELECT w FROM webhook w JOIN FETCH w.workspace ws JOIN FETCH ws.vcs WHERE w.remoteHookId = :remoteHookId")
+    List<Webhook> findByRemoteHookId(@Param("remoteHookId") String remoteHookId);
+
+    long countByRemoteHookId(String remoteHookId);
 }
@@ -0,0 +1,29 @@
+package org.terrakube.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.rs.workspace.queue.WorkspaceQueue;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface WorkspaceQueueRepository extends JpaRepository<WorkspaceQueue, UUID> {
+
+    @Query("select q.headJobId from workspace_queue q where q.workspaceId = :workspaceId")
+    Optional<Long> findHeadJobId(@Param("workspaceId") UUID workspaceId);
+
+    @Transactional
+    @Modifying
+    @Query("update workspace_queue q set q.headJobId = :nextJobId where q.workspaceId = :workspaceId and q.headJobId = :currentJobId")
+    int updateHead(@Param("workspaceId") UUID workspaceId, @Param("currentJobId") Long currentJobId, @Param("nextJobId") Long nextJobId);
+
+    @Transactional
+    @Modifying
+    @Query("update workspace_queue q set q.headJobId = :nextJobId where q.workspaceId = :workspaceId and q.headJobId is null")
+    int updateEmptyHead(@Param("workspaceId") UUID workspaceId, @Param("nextJobId") Long nextJobId);
+}
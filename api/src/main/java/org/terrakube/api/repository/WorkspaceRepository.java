@@ -1,8 +1,13 @@
 package org.terrakube.api.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,4 +18,21 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, UUID> {
 
     Optional<List<Workspace>> findWorkspacesByOrganizationNameAndNameStartingWith(String organizationName, String workspaceNameStartingWidth);
 
+    Page<Workspace> findByOrganizationNameAndNameStartingWith(String organizationName, String workspaceNameStartingWidth, Pageable pageable);
+
+    @Query(value = "SELECT w FROM workspace w WHERE w.organization.name = :organizationName AND w.name LIKE CONCAT(:namePrefix, '%') " +
+            "AND w.id IN (SELECT wt.workspace.id FROM workspacetag wt WHERE wt.tagId IN :tagIds " +
+            "GROUP BY wt.workspace.id HAVING COUNT(DISTINCT wt.tagId) = :tagCount)",
+            countQuery = "SELECT COUNT(w) FROM workspace w WHERE w.organization.name = :organizationName AND w.name LIKE CONCAT(:namePrefix, '%') " +
+                    "AND w.id IN (SELECT wt.workspace.id FROM workspacetag wt WHERE wt.tagId IN :tagIds " +
+                    "GROUP BY wt.workspace.id HAVING COUNT(DISTINCT wt.tagId) = :tagCount)")
+    Page<Workspace> findByOrganizationNameAndTags(@Param("organizationName") String organizationName,
+                                                  @Param("namePrefix") String namePrefix,
+                                                  @Param("tagIds") Collection<String> tagIds,
+                                                  @Param("tagCount") long tagCount,
+                                                  Pageable pageable);
+
+    @Query("SELECT DISTINCT w FROM workspace w LEFT JOIN FETCH w.access WHERE w IN :workspaces")
+    List<Workspace> fetchAccess(@Param("workspaces") Collection<Workspace> workspaces);
+
 }
@@ -5,13 +5,11 @@ import com.yahoo.elide.core.security.ChangeSpec;
 import com.yahoo.elide.core.security.RequestScope;
 import com.yahoo.elide.core.security.checks.OperationCheck;
 import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.rs.checks.membership.MembershipService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.terrakube.api.plugin.security.groups.GroupService;
-import org.terrakube.api.plugin.security.user.AuthenticatedUser;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.team.Team;
 
-import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -20,26 +18,11 @@ public class TeamManageJob extends OperationCheck<Job> {
     public static final String RULE = "team manage job";
 
     @Autowired
-    AuthenticatedUser authenticatedUser;
-
-    @Autowired
-    GroupService groupService;
+    MembershipService membershipService;
 
     @Override
     public boolean ok(Job job, RequestScope requestScope, Optional<ChangeSpec> optional) {
         log.debug("team manage job {}", job.getId());
-        List<Team> teamList = job.getOrganization().getTeam();
-        boolean isServiceAccount = authenticatedUser.isServiceAccount(requestScope.getUser());
-        for (Team team : teamList) {
-            if (isServiceAccount){
-                if (groupService.isServiceMember(requestScope.getUser(), team.getName()) && team.isManageJob()){
-                    return true;
-                }
-            } else {
-                if (groupService.isMember(requestScope.getUser(), team.getName()) && team.isManageJob())
-                    return true;
-            }
-        }
-        return false;
+        return membershipService.checkOrganizationPermission(requestScope.getUser(), job.getOrganization(), RULE, Team::isManageJob);
     }
 }
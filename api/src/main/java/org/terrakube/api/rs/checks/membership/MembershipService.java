@@ -2,14 +2,17 @@ package org.terrakube.api.rs.checks.membership;
 
 import com.yahoo.elide.core.security.User;
 import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.plugin.security.groups.AuthorizationContext;
 import org.terrakube.api.plugin.security.groups.GroupService;
 import org.terrakube.api.plugin.security.user.AuthenticatedUser;
+import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.team.Team;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.terrakube.api.rs.workspace.access.Access;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 @Service
 @Slf4j
@@ -40,6 +43,37 @@ public class MembershipService {
         return false;
     }
 
+    /**
+     * Check if the user belongs to a team of the organization with the permission. The result is kept in the
+     * authorization context of the request so every entity of the same organization reuses it.
+     */
+    public boolean checkOrganizationPermission(User user, Organization organization, String permission, Predicate<Team> teamPermission) {
+        AuthorizationContext authorizationContext = groupService.getAuthorizationContext(user);
+        boolean isServiceAccount = authenticatedUser.isServiceAccount(user);
+        return authorizationContext.resolve(String.format("%s:%s", organization.getId(), permission), () -> {
+            for (Team team : organization.getTeam()) {
+                boolean isMember = isServiceAccount ? authorizationContext.isServiceMember(team.getName()) : authorizationContext.isMember(team.getName());
+                if (isMember && teamPermission.test(team)) {
+                    log.debug("{} has permission {} in organization {} with team {}", user.getName(), permission, organization.getId(), team.getName());
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public boolean checkLimitedPermission(User user, List<Access> teamList, Predicate<Access> teamPermission) {
+        AuthorizationContext authorizationContext = groupService.getAuthorizationContext(user);
+        boolean isServiceAccount = authenticatedUser.isServiceAccount(user);
+        for (Access team : teamList) {
+            boolean isMember = isServiceAccount ? authorizationContext.isServiceMember(team.getName()) : authorizationContext.isMember(team.getName());
+            if (isMember && teamPermission.test(team)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean checkLimitedMembership(User user, List<Access> teamList) {
         for (Access team : teamList) {
             if (authenticatedUser.isServiceAccount(user)) {
@@ -7,6 +7,7 @@ import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.terrakube.api.plugin.security.audit.GenericAuditFields;
 import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.hooks.variable.VariableCacheHook;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.collection.item.Item;
 
@@ -21,6 +22,9 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.CREATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.UPDATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.DELETE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
 @Entity(name = "collection")
 public class Collection extends GenericAuditFields {
 
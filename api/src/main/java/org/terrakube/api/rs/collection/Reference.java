@@ -1,11 +1,13 @@
 package org.terrakube.api.rs.collection;
 
 import com.yahoo.elide.annotation.Include;
+import com.yahoo.elide.annotation.LifeCycleHookBinding;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.hooks.variable.VariableCacheHook;
 import org.terrakube.api.rs.workspace.Workspace;
 
 import java.sql.Types;
@@ -14,6 +16,9 @@ import java.util.UUID;
 @Include
 @Getter
 @Setter
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.CREATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.UPDATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.DELETE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
 @Entity(name = "reference")
 public class Reference {
 
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.hooks.variable.VariableCacheHook;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.workspace.parameters.Category;
 
@@ -19,6 +20,9 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.CREATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.UPDATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.DELETE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
 @Entity(name = "globalvar")
 public class Globalvar {
 
@@ -31,6 +31,7 @@ public class JobManageHook implements LifeCycleHook<Job> {
                 case UPDATE:
                     if(job.getStatus().equals(JobStatus.cancelled)) {
                         scheduleJobService.deleteJobContext(job.getId());
+                        scheduleJobService.dispatchNextJob(job.getWorkspace());
                     } else {
                         if (!job.getStatus().equals(JobStatus.running)) {
                             log.info("Creating new quartz job");
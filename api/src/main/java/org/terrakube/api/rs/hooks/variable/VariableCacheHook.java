@@ -0,0 +1,51 @@
+package org.terrakube.api.rs.hooks.variable;
+
+import java.util.Optional;
+
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ResolvedVariablesService;
+import org.terrakube.api.rs.collection.Collection;
+import org.terrakube.api.rs.collection.Reference;
+import org.terrakube.api.rs.collection.item.Item;
+import org.terrakube.api.rs.globalvar.Globalvar;
+import org.terrakube.api.rs.workspace.parameters.Variable;
+
+import com.yahoo.elide.annotation.LifeCycleHookBinding;
+import com.yahoo.elide.core.lifecycle.LifeCycleHook;
+import com.yahoo.elide.core.security.ChangeSpec;
+import com.yahoo.elide.core.security.RequestScope;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Invalidate the resolved variables used by the executor dispatch when a variable, global variable, collection,
+ * collection item or collection reference changes.
+ */
+@AllArgsConstructor
+@Slf4j
+public class VariableCacheHook implements LifeCycleHook<Object> {
+
+    ResolvedVariablesService resolvedVariablesService;
+
+    @Override
+    public void execute(LifeCycleHookBinding.Operation operation,
+            LifeCycleHookBinding.TransactionPhase transactionPhase, Object entity, RequestScope requestScope,
+            Optional<ChangeSpec> optional) {
+        if (entity instanceof Variable variable && variable.getWorkspace() != null) {
+            log.debug("Variable {} changed, invalidating workspace {}", variable.getId(), variable.getWorkspace().getId());
+            resolvedVariablesService.invalidateWorkspace(variable.getWorkspace().getId());
+        } else if (entity instanceof Reference reference && reference.getWorkspace() != null) {
+            log.debug("Reference {} changed, invalidating workspace {}", reference.getId(), reference.getWorkspace().getId());
+            resolvedVariablesService.invalidateWorkspace(reference.getWorkspace().getId());
+        } else if (entity instanceof Globalvar globalvar && globalvar.getOrganization() != null) {
+            log.debug("Global variable {} changed, invalidating organization {}", globalvar.getId(), globalvar.getOrganization().getId());
+            resolvedVariablesService.invalidateOrganization(globalvar.getOrganization().getId());
+        } else if (entity instanceof Collection collection && collection.getOrganization() != null) {
+            log.debug("Collection {} changed, invalidating organization {}", collection.getId(), collection.getOrganization().getId());
+            resolvedVariablesService.invalidateOrganization(collection.getOrganization().getId());
+        } else if (entity instanceof Item item && item.getCollection() != null && item.getCollection().getOrganization() != null) {
+            log.debug("Collection item {} changed, invalidating organization {}", item.getId(), item.getCollection().getOrganization().getId());
+            resolvedVariablesService.invalidateOrganization(item.getCollection().getOrganization().getId());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.terrakube.api.rs.hooks.workspace;
 
 import java.util.Optional;
 
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
 import org.terrakube.api.plugin.softdelete.SoftDeleteService;
 import org.terrakube.api.plugin.vcs.WebhookService;
 import org.terrakube.api.repository.GlobalVarRepository;
@@ -24,6 +25,7 @@ public class WorkspaceManageHook implements LifeCycleHook<Workspace> {
     WebhookService webhookService;
     WebhookRepository webhookRepository;
     GlobalVarRepository globalVarRepository;
+    ScheduleJobService scheduleJobService;
 
     @Override
     public void execute(LifeCycleHookBinding.Operation operation,
@@ -32,8 +34,13 @@ public class WorkspaceManageHook implements LifeCycleHook<Workspace> {
         log.info("Workspace mutation hook for workspace {}/{}", workspace.getOrganization().getName(), workspace.getName());
         switch (operation) {
             case UPDATE:
-                if (workspace.isDeleted()) {
-                    softDeleteService.disableWorkspaceSchedules(workspace);
+                if (transactionPhase == LifeCycleHookBinding.TransactionPhase.PRECOMMIT) {
+                    if (workspace.isDeleted()) {
+                        softDeleteService.disableWorkspaceSchedules(workspace);
+                    }
+                } else if (!workspace.isDeleted() && !workspace.isLocked()) {
+                    // dispatched after the commit so the job context never reads the workspace before the unlock
+                    scheduleJobService.dispatchNextJob(workspace);
                 }
                 break;
             case CREATE:
@@ -0,0 +1,58 @@
+package org.terrakube.api.rs.webhook.delivery;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.rs.IdConverter;
+
+import java.sql.Types;
+import java.util.Date;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity(name = "webhook_delivery")
+public class WebhookDelivery {
+
+    @Id
+    @JdbcTypeCode(Types.VARCHAR)
+    @Convert(converter = IdConverter.class)
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "webhook_id")
+    private String webhookId;
+
+    @Column(name = "repository")
+    private boolean repository;
+
+    @Column(name = "delivery_id")
+    private String deliveryId;
+
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "headers")
+    private String headers;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private WebhookDeliveryStatus status = WebhookDeliveryStatus.pending;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "claim_id")
+    private String claimId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @CreationTimestamp
+    @Column(name = "created_date", updatable = false)
+    private Date createdDate;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_date")
+    private Date updatedDate;
+}
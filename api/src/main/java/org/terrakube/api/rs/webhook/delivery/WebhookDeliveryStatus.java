@@ -0,0 +1,8 @@
+package org.terrakube.api.rs.webhook.delivery;
+
+public enum WebhookDeliveryStatus {
+    pending,
+    processing,
+    completed,
+    failed
+}
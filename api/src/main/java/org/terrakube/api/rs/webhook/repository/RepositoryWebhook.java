@@ -0,0 +1,35 @@
+package org.terrakube.api.rs.webhook.repository;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.vcs.Vcs;
+
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Single VCS hook shared by all the workspace webhooks using the same repository and VCS connection.
+ */
+@Getter
+@Setter
+@Entity(name = "repository_webhook")
+public class RepositoryWebhook {
+
+    @Id
+    @JdbcTypeCode(Types.VARCHAR)
+    @Convert(converter = IdConverter.class)
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Vcs vcs;
+
+    @Column(name = "repository")
+    private String repository;
+
+    @Column(name = "remote_hook_id")
+    private String remoteHookId;
+}
@@ -46,6 +46,14 @@ public class History extends GenericAuditFields {
     @Column(name = "lineage")
     private String lineage = "0";
 
+    @Exclude
+    @Column(name = "state_hash")
+    private String stateHash;
+
+    @Exclude
+    @Column(name = "json_state_hash")
+    private String jsonStateHash;
+
     @ManyToOne
     private Workspace workspace;
 
@@ -2,10 +2,12 @@ package org.terrakube.api.rs.workspace.parameters;
 
 import com.yahoo.elide.annotation.Include;
 import com.yahoo.elide.annotation.ReadPermission;
+import com.yahoo.elide.annotation.LifeCycleHookBinding;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.terrakube.api.rs.IdConverter;
+import org.terrakube.api.rs.hooks.variable.VariableCacheHook;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.hibernate.annotations.Type;
 
@@ -17,6 +19,9 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.CREATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.UPDATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
+@LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.DELETE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = VariableCacheHook.class)
 @Entity(name = "variable")
 public class Variable {
 
@@ -0,0 +1,25 @@
+package org.terrakube.api.rs.workspace.queue;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.rs.IdConverter;
+
+import jakarta.persistence.*;
+
+import java.sql.Types;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity(name = "workspace_queue")
+public class WorkspaceQueue {
+    @Id
+    @JdbcTypeCode(Types.VARCHAR)
+    @Convert(converter = IdConverter.class)
+    @Column(name = "workspace_id")
+    private UUID workspaceId;
+
+    @Column(name = "head_job_id")
+    private Long headJobId;
+}
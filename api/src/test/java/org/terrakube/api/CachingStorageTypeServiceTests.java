@@ -0,0 +1,173 @@
+package org.terrakube.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpRange;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.cache.CachingStorageTypeService;
+import org.terrakube.api.plugin.storage.cache.StorageCacheProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CachingStorageTypeServiceTests {
+
+    private static final String CONTENT = "terraform plan output";
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void missIsStreamedFromOneReadAndCached() throws IOException {
+        CountingStorageResource backend = new CountingStorageResource(CONTENT);
+        CachingStorageTypeService cachingStorageTypeService = cachingStorageTypeService(backend, 1024);
+
+        assertEquals(CONTENT, read(cachingStorageTypeService, null));
+        assertEquals(CONTENT, read(cachingStorageTypeService, null));
+        assertEquals("plan", read(cachingStorageTypeService, HttpRange.createByteRange(10, 13)));
+        assertEquals(1, backend.reads);
+        cachingStorageTypeService.shutdown();
+    }
+
+    @Test
+    void partialReadIsNotCached() throws IOException {
+        CountingStorageResource backend = new CountingStorageResource(CONTENT);
+        CachingStorageTypeService cachingStorageTypeService = cachingStorageTypeService(backend, 1024);
+
+        try (StorageContent storageContent = open(cachingStorageTypeService, null)) {
+            assertEquals(4, storageContent.getInputStream().readNBytes(4).length);
+        }
+        assertEquals(CONTENT, read(cachingStorageTypeService, null));
+        assertEquals(2, backend.reads);
+        cachingStorageTypeService.shutdown();
+    }
+
+    @Test
+    void evictedCacheFileIsReadFromTheBackend() throws IOException {
+        CountingStorageResource backend = new CountingStorageResource(CONTENT);
+        // objects bigger than one byte are kept on disk
+        CachingStorageTypeService cachingStorageTypeService = cachingStorageTypeService(backend, 1);
+
+        assertEquals(CONTENT, read(cachingStorageTypeService, null));
+        assertEquals(1, cacheFiles().size());
+        for (Path cacheFile : cacheFiles()) {
+            Files.delete(cacheFile);
+        }
+
+        assertEquals(CONTENT, read(cachingStorageTypeService, null));
+        assertEquals(2, backend.reads);
+        cachingStorageTypeService.shutdown();
+    }
+
+    @Test
+    void cacheFileOpenedBeforeEvictionIsStillRead() throws IOException {
+        CountingStorageResource backend = new CountingStorageResource(CONTENT);
+        CachingStorageTypeService cachingStorageTypeService = cachingStorageTypeService(backend, 1);
+        read(cachingStorageTypeService, null);
+
+        try (StorageContent storageContent = open(cachingStorageTypeService, null)) {
+            for (Path cacheFile : cacheFiles()) {
+                Files.delete(cacheFile);
+            }
+            assertEquals(CONTENT, new String(storageContent.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, backend.reads);
+        cachingStorageTypeService.shutdown();
+    }
+
+    @Test
+    void directoryOfRunningInstanceIsKept() throws IOException {
+        Path staleDirectory = Files.createDirectories(cacheDirectory.resolve("objects").resolve(UUID.randomUUID().toString()));
+        Files.createFile(staleDirectory.resolve(".lock"));
+        CachingStorageTypeService running = cachingStorageTypeService(new CountingStorageResource(CONTENT), 1);
+        read(running, null);
+        List<Path> runningFiles = cacheFiles();
+
+        CachingStorageTypeService started = cachingStorageTypeService(new CountingStorageResource(CONTENT), 1);
+
+        assertFalse(Files.exists(staleDirectory));
+        assertEquals(1, runningFiles.size());
+        assertTrue(Files.exists(runningFiles.get(0)));
+        started.shutdown();
+        running.shutdown();
+    }
+
+    private CachingStorageTypeService cachingStorageTypeService(StorageResource backend, long maxHeapObjectSize) throws IOException {
+        StorageTypeService storageTypeService = mock(StorageTypeService.class);
+        when(storageTypeService.getStepOutputResource("org", "1", "step")).thenReturn(backend);
+        StorageCacheProperties storageCacheProperties = new StorageCacheProperties();
+        storageCacheProperties.setDirectory(cacheDirectory.toString());
+        storageCacheProperties.setMaxHeapObjectSize(maxHeapObjectSize);
+        return new CachingStorageTypeService(storageTypeService, storageCacheProperties, mock(RedisTemplate.class), new SimpleMeterRegistry());
+    }
+
+    private StorageContent open(CachingStorageTypeService cachingStorageTypeService, HttpRange range) throws IOException {
+        Resource resource = cachingStorageTypeService.getStepOutputResource("org", "1", "step");
+        return ((StorageResource) resource).open(range);
+    }
+
+    private String read(CachingStorageTypeService cachingStorageTypeService, HttpRange range) throws IOException {
+        try (StorageContent storageContent = open(cachingStorageTypeService, range);
+             InputStream inputStream = storageContent.getInputStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private List<Path> cacheFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDirectory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().equals(".lock"))
+                    .toList();
+        }
+    }
+
+    private static class CountingStorageResource extends StorageResource {
+
+        private final byte[] content;
+        private int reads;
+
+        CountingStorageResource(String content) {
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public StorageContent open(HttpRange range) {
+            reads++;
+            StorageContent storageContent = StorageContent.resolve(range, content.length);
+            return storageContent.withInputStream(new ByteArrayInputStream(content, (int) storageContent.getStart(), (int) storageContent.getLength()));
+        }
+
+        @Override
+        public boolean exists() {
+            throw new UnsupportedOperationException("a cache miss must not check the object before reading it");
+        }
+
+        @Override
+        public long contentLength() {
+            throw new UnsupportedOperationException("a cache miss must use the length of the read");
+        }
+
+        @Override
+        public String getDescription() {
+            return "Counting object";
+        }
+    }
+}
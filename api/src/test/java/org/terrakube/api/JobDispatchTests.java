@@ -0,0 +1,127 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.scheduler.reconciliation.JobReconciliation;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.terrakube.api.plugin.scheduler.ScheduleJobService.DISPATCH_EVENT_RECONCILIATION;
+
+class JobDispatchTests extends ServerApplicationTests {
+
+    private static final UUID ORGANIZATION_ID = UUID.fromString("d9b58bd3-f3fc-4056-a026-1163297e80a8");
+    private static final UUID WORKSPACE_ID = UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc");
+
+    @SpyBean
+    ScheduleJobService scheduleJobService;
+
+    @Autowired
+    JobReconciliation jobReconciliation;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void workspaceUnlockDispatchesNextJobAfterCommit() {
+        // the workspace is read from another connection, it is only unlocked there once the update is committed
+        AtomicReference<Boolean> lockedAtDispatch = new AtomicReference<>();
+        doAnswer(invocation -> {
+            Workspace workspace = invocation.getArgument(0);
+            if (workspace != null && WORKSPACE_ID.equals(workspace.getId())) {
+                lockedAtDispatch.set(CompletableFuture.supplyAsync(() -> workspaceRepository.findById(WORKSPACE_ID).get().isLocked()).get());
+            }
+            return invocation.callRealMethod();
+        }).when(scheduleJobService).dispatchNextJob(any());
+
+        updateWorkspaceLock(true);
+        verify(scheduleJobService, never()).dispatchNextJob(argThat(workspace -> workspace != null && WORKSPACE_ID.equals(workspace.getId())));
+
+        updateWorkspaceLock(false);
+        verify(scheduleJobService).dispatchNextJob(argThat(workspace -> workspace != null && WORKSPACE_ID.equals(workspace.getId())));
+        assertEquals(Boolean.FALSE, lockedAtDispatch.get());
+    }
+
+    @Test
+    void reconciliationExpiresJobsOlderThanSixHours() throws Exception {
+        doNothing().when(scheduleJobService).dispatchJob(any(), anyString());
+        Job expiredJob = createJob(JobStatus.running, 7);
+        Job runningJob = createJob(JobStatus.running, 5);
+        Job waitingJob = createJob(JobStatus.waitingApproval, 7);
+
+        jobReconciliation.execute(null);
+
+        verify(scheduleJobService).dispatchJob(argThat(job -> job.getId() == expiredJob.getId()), eq(DISPATCH_EVENT_RECONCILIATION));
+        verify(scheduleJobService).dispatchJob(argThat(job -> job.getId() == waitingJob.getId()), eq(DISPATCH_EVENT_RECONCILIATION));
+        verify(scheduleJobService, never()).dispatchJob(argThat(job -> job.getId() == runningJob.getId()), anyString());
+
+        jobRepository.deleteAllById(List.of(expiredJob.getId(), runningJob.getId(), waitingJob.getId()));
+    }
+
+    private Job createJob(JobStatus status, int hoursAgo) {
+        Job job = new Job();
+        job.setWorkspace(workspaceRepository.findById(WORKSPACE_ID).get());
+        job.setOrganization(organizationRepository.findById(ORGANIZATION_ID).get());
+        job.setStatus(status);
+        job.setComments("reconciliation-job");
+        job = jobRepository.save(job);
+
+        // created_date is set by hibernate on insert
+        jdbcTemplate.update("update job set created_date = ? where id = ?",
+                Timestamp.from(Instant.now().minus(hoursAgo, ChronoUnit.HOURS)), job.getId());
+        return job;
+    }
+
+    private void updateWorkspaceLock(boolean locked) {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"), "Content-Type", "application/vnd.api+json")
+                .body("{\n" +
+                        "  \"data\": {\n" +
+                        "    \"type\": \"workspace\",\n" +
+                        "    \"id\": \"" + WORKSPACE_ID + "\",\n" +
+                        "    \"attributes\": {\n" +
+                        "      \"locked\": \"" + locked + "\"\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}")
+                .when()
+                .patch("/api/v1/organization/" + ORGANIZATION_ID + "/workspace/" + WORKSPACE_ID)
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.NO_CONTENT.value());
+    }
+}
@@ -133,6 +133,29 @@ public class LocalStorageTests extends ServerApplicationTests {
 
     }
 
+    @Test
+    void testLocalStorageBinaryStateRange() throws IOException {
+        FileUtils.writeStringToFile(
+                new File(
+                        String.format(STATE_DIRECTORY, FileUtils.getUserDirectoryPath(), "4", "4", "4", "4")),
+                "SAMPLE",
+                Charset.defaultCharset().toString()
+        );
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"), "Range", "bytes=1-3")
+                .when()
+                .get("/tfstate/v1/organization/4/workspace/4/jobId/4/step/4/terraform.tfstate")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.PARTIAL_CONTENT.value())
+                .header("Content-Range", IsEqual.equalTo("bytes 1-3/6"))
+                .body(IsEqual.equalTo("AMP"));
+
+    }
+
     @Test
     void testLocalStorageOutputJob() throws IOException {
         FileUtils.writeStringToFile(
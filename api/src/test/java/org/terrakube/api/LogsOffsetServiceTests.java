@@ -0,0 +1,144 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.terrakube.api.plugin.streaming.LogsOffsetService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogsOffsetServiceTests {
+
+    private static final String JOB_ID = "10";
+    private static final int LINE_LENGTH = 10;
+    private static final int READ_COUNT = 500;
+
+    private final List<MapRecord<String, String, String>> stream = new ArrayList<>();
+    private final List<Long> reads = new ArrayList<>();
+    private LogsOffsetService logsOffsetService;
+
+    @BeforeEach
+    void setup() {
+        StreamOperations streamOperations = mock(StreamOperations.class);
+        when(streamOperations.size(anyString())).thenAnswer(invocation -> (long) stream.size());
+        when(streamOperations.range(anyString(), any(Range.class), any(Limit.class))).thenAnswer(invocation -> {
+            Range<String> range = invocation.getArgument(1);
+            Limit limit = invocation.getArgument(2);
+            long from = range.getLowerBound().getValue().map(LogsOffsetServiceTests::sequence).orElse(0L);
+            reads.add(from);
+            return stream.stream()
+                    .filter(entry -> sequence(entry.getId().getValue()) >= from)
+                    .limit(limit.getCount())
+                    .collect(Collectors.toList());
+        });
+        RedisTemplate redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+
+        logsOffsetService = new LogsOffsetService(redisTemplate);
+    }
+
+    @Test
+    void multiByteCharactersAreCountedAndSplitInBytes() {
+        addLine(1, "plan: h\u00e9llo");
+        addLine(2, "\u72b6\u614b\u30d5\u30a1\u30a4\u30eb");
+        byte[] logs = "plan: h\u00e9llo\n\u72b6\u614b\u30d5\u30a1\u30a4\u30eb\n".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(logs, logsOffsetService.readLogs(JOB_ID, 0, 1000));
+        // the range starts and ends inside multi-byte characters, the client joins the bytes of the next read
+        assertArrayEquals(Arrays.copyOfRange(logs, 8, 16), logsOffsetService.readLogs(JOB_ID, 8, 8));
+        assertArrayEquals(Arrays.copyOfRange(logs, 16, logs.length), logsOffsetService.readLogs(JOB_ID, 16, 1000));
+        assertEquals(0, logsOffsetService.readLogs(JOB_ID, logs.length, 1000).length);
+    }
+
+    @Test
+    void offsetOnCheckpointStartsAtTheCheckpointEntry() {
+        addLines(1, 250);
+        logsOffsetService.readLogs(JOB_ID, 0, 1);
+
+        // a checkpoint is kept every 100 entries, entry 101 starts at byte 1000
+        reads.clear();
+        assertArrayEquals(lines(101, 101), logsOffsetService.readLogs(JOB_ID, 100 * LINE_LENGTH, LINE_LENGTH));
+        assertEquals(101L, reads.get(reads.size() - 1));
+
+        reads.clear();
+        assertArrayEquals(lines(100, 100), logsOffsetService.readLogs(JOB_ID, 99 * LINE_LENGTH, LINE_LENGTH));
+        assertEquals(1L, reads.get(reads.size() - 1));
+
+        reads.clear();
+        assertArrayEquals(lines(201, 250), logsOffsetService.readLogs(JOB_ID, 200 * LINE_LENGTH, 1000));
+        assertEquals(201L, reads.get(reads.size() - 1));
+    }
+
+    @Test
+    void readSpansSeveralPages() {
+        addLines(1, 1200);
+
+        assertArrayEquals(lines(1, 1200), logsOffsetService.readLogs(JOB_ID, 0, 1200 * LINE_LENGTH));
+        assertTrue(reads.size() >= 2 * (1200 / READ_COUNT + 1));
+
+        // new entries are indexed from the last id, the index is not built again
+        addLines(1201, 1300);
+        reads.clear();
+        assertArrayEquals(lines(1201, 1300), logsOffsetService.readLogs(JOB_ID, 1200 * LINE_LENGTH, 1000 * LINE_LENGTH));
+        assertEquals(1200L, reads.get(0));
+    }
+
+    @Test
+    void trimmedStreamResetsTheIndex() {
+        addLines(1, 150);
+        assertArrayEquals(lines(1, 150), logsOffsetService.readLogs(JOB_ID, 0, 150 * LINE_LENGTH));
+
+        stream.subList(0, 100).clear();
+
+        assertArrayEquals(lines(101, 150), logsOffsetService.readLogs(JOB_ID, 0, 150 * LINE_LENGTH));
+        assertEquals(0, logsOffsetService.readLogs(JOB_ID, 50 * LINE_LENGTH, 1000).length);
+    }
+
+    private void addLines(int from, int to) {
+        for (int line = from; line <= to; line++) {
+            addLine(line, line(line));
+        }
+    }
+
+    private void addLine(long sequence, String output) {
+        stream.add(StreamRecords.newRecord()
+                .in(JOB_ID)
+                .withId(sequence + "-0")
+                .ofMap(Map.of("output", output)));
+    }
+
+    private static String line(int line) {
+        return String.format("line-%04d", line);
+    }
+
+    private static byte[] lines(int from, int to) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (int line = from; line <= to; line++) {
+            lines.writeBytes((line(line) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return lines.toByteArray();
+    }
+
+    private static long sequence(String id) {
+        return Long.parseLong(id.substring(0, id.indexOf('-')));
+    }
+}
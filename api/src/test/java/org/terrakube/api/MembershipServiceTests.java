@@ -0,0 +1,126 @@
+package org.terrakube.api;
+
+import com.yahoo.elide.core.security.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.terrakube.api.plugin.security.groups.AuthorizationContext;
+import org.terrakube.api.plugin.security.groups.GroupService;
+import org.terrakube.api.plugin.security.user.AuthenticatedUser;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.checks.membership.MembershipService;
+import org.terrakube.api.rs.team.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MembershipServiceTests {
+
+    private static final String MANAGE_WORKSPACE = "team manage workspace";
+    private static final String MANAGE_JOB = "team manage job";
+
+    private final User user = new User(() -> "user@terrakube.org");
+    private AuthenticatedUser authenticatedUser;
+    private GroupService groupService;
+    private MembershipService membershipService;
+
+    @BeforeEach
+    void setup() {
+        authenticatedUser = mock(AuthenticatedUser.class);
+        groupService = mock(GroupService.class);
+        membershipService = new MembershipService();
+        ReflectionTestUtils.setField(membershipService, "authenticatedUser", authenticatedUser);
+        ReflectionTestUtils.setField(membershipService, "groupService", groupService);
+    }
+
+    @Test
+    void decisionIsResolvedOncePerOrganizationAndPermission() {
+        requestGroups(false, false, "DEVELOPERS");
+        Organization organization = organization("OPERATORS", "DEVELOPERS");
+        Organization otherOrganization = organization("DEVELOPERS");
+        AtomicInteger manageWorkspaceChecks = new AtomicInteger();
+        AtomicInteger manageJobChecks = new AtomicInteger();
+        Predicate<Team> manageWorkspace = team -> manageWorkspaceChecks.incrementAndGet() > 0 && team.isManageWorkspace();
+        Predicate<Team> manageJob = team -> manageJobChecks.incrementAndGet() > 0 && team.isManageJob();
+
+        // every entity of a collection in the same request asks for the same decision
+        for (int i = 0; i < 100; i++) {
+            assertTrue(membershipService.checkOrganizationPermission(user, organization, MANAGE_WORKSPACE, manageWorkspace));
+        }
+        assertEquals(1, manageWorkspaceChecks.get());
+
+        assertFalse(membershipService.checkOrganizationPermission(user, organization, MANAGE_JOB, manageJob));
+        assertFalse(membershipService.checkOrganizationPermission(user, organization, MANAGE_JOB, manageJob));
+        assertEquals(1, manageJobChecks.get());
+
+        assertTrue(membershipService.checkOrganizationPermission(user, otherOrganization, MANAGE_WORKSPACE, manageWorkspace));
+        assertEquals(2, manageWorkspaceChecks.get());
+    }
+
+    @Test
+    void userWithoutTeamInTheOrganizationIsDenied() {
+        requestGroups(false, false, "OTHER_TEAM");
+
+        assertFalse(membershipService.checkOrganizationPermission(user, organization("DEVELOPERS"), MANAGE_WORKSPACE, Team::isManageWorkspace));
+    }
+
+    @Test
+    void memberOfTeamWithoutThePermissionIsDenied() {
+        requestGroups(false, false, "DEVELOPERS");
+
+        assertFalse(membershipService.checkOrganizationPermission(user, organization("DEVELOPERS"), MANAGE_JOB, Team::isManageJob));
+    }
+
+    @Test
+    void serviceAccountUsesItsGroups() {
+        requestGroups(true, false, "DEVELOPERS");
+
+        assertTrue(membershipService.checkOrganizationPermission(user, organization("DEVELOPERS"), MANAGE_WORKSPACE, Team::isManageWorkspace));
+        assertFalse(membershipService.checkOrganizationPermission(user, organization("OPERATORS"), MANAGE_WORKSPACE, Team::isManageWorkspace));
+    }
+
+    @Test
+    void internalServiceAccountIsMemberOfEveryTeam() {
+        requestGroups(true, true);
+
+        assertTrue(membershipService.checkOrganizationPermission(user, organization("OPERATORS"), MANAGE_WORKSPACE, Team::isManageWorkspace));
+        assertFalse(membershipService.checkOrganizationPermission(user, organization("OPERATORS"), MANAGE_JOB, Team::isManageJob));
+    }
+
+    @Test
+    void userIsNotTreatedAsInternalServiceAccount() {
+        requestGroups(false, true);
+
+        assertFalse(membershipService.checkOrganizationPermission(user, organization("OPERATORS"), MANAGE_WORKSPACE, Team::isManageWorkspace));
+    }
+
+    private void requestGroups(boolean serviceAccount, boolean internal, String... groups) {
+        when(authenticatedUser.isServiceAccount(user)).thenReturn(serviceAccount);
+        when(groupService.getAuthorizationContext(user)).thenReturn(new AuthorizationContext(Set.of(groups), internal));
+    }
+
+    private Organization organization(String... teamNames) {
+        Organization organization = new Organization();
+        organization.setId(UUID.randomUUID());
+        List<Team> teams = new ArrayList<>();
+        for (String teamName : teamNames) {
+            Team team = new Team();
+            team.setName(teamName);
+            team.setManageWorkspace(true);
+            team.setManageJob(false);
+            teams.add(team);
+        }
+        organization.setTeam(teams);
+        return organization;
+    }
+}
@@ -0,0 +1,113 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.terrakube.api.plugin.storage.StorageContent;
+import org.terrakube.api.plugin.storage.StorageResource;
+import org.terrakube.api.plugin.storage.StorageResourceWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StorageResourceWriterTests {
+
+    private final StorageResourceWriter storageResourceWriter = new StorageResourceWriter();
+
+    @Test
+    void rangeIsReadOnceFromTheStorage() throws IOException {
+        // the object is replaced after the first read, the response must describe the version that was read
+        InMemoryStorageResource storageResource = new InMemoryStorageResource("0123456789", "replaced object content");
+        MockHttpServletResponse response = download(storageResource, "bytes=2-5");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLength());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals(1, storageResource.reads.size());
+    }
+
+    @Test
+    void suffixRangeUsesTheLengthOfTheRead() throws IOException {
+        InMemoryStorageResource storageResource = new InMemoryStorageResource("0123456789");
+        MockHttpServletResponse response = download(storageResource, "bytes=-3");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+        assertEquals(1, storageResource.reads.size());
+    }
+
+    @Test
+    void rangeOutsideTheObjectIsNotSatisfiable() throws IOException {
+        MockHttpServletResponse response = download(new InMemoryStorageResource("0123456789"), "bytes=20-30");
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void missingObjectSendsEmptyResponse() throws IOException {
+        MockHttpServletResponse response = download(new InMemoryStorageResource(), null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, response.getContentLength());
+    }
+
+    private MockHttpServletResponse download(StorageResource storageResource, String range) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        storageResourceWriter.write(storageResource, MediaType.APPLICATION_OCTET_STREAM, request, response);
+        return response;
+    }
+
+    private static class InMemoryStorageResource extends StorageResource {
+
+        private final List<String> versions;
+        private final List<HttpRange> reads = new ArrayList<>();
+
+        InMemoryStorageResource(String... versions) {
+            this.versions = List.of(versions);
+        }
+
+        @Override
+        public StorageContent open(HttpRange range) {
+            if (reads.size() >= versions.size()) {
+                return null;
+            }
+            byte[] content = versions.get(reads.size()).getBytes(StandardCharsets.UTF_8);
+            reads.add(range);
+            StorageContent storageContent = StorageContent.resolve(range, content.length);
+            if (!storageContent.isSatisfiable()) {
+                return storageContent;
+            }
+            return storageContent.withInputStream(new ByteArrayInputStream(content, (int) storageContent.getStart(), (int) storageContent.getLength()));
+        }
+
+        @Override
+        public boolean exists() {
+            throw new UnsupportedOperationException("the download must not check the object before reading it");
+        }
+
+        @Override
+        public long contentLength() {
+            throw new UnsupportedOperationException("the download must use the length of the read");
+        }
+
+        @Override
+        public String getDescription() {
+            return "In memory object";
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.terrakube.api.plugin.streaming.LogsTail;
+import org.terrakube.api.plugin.streaming.StreamingService;
+import org.terrakube.api.repository.StepRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StreamingServiceTests {
+
+    private static final int JOB_ID = 10;
+    private static final int MAX_COUNT = 10;
+
+    private final List<MapRecord<String, String, String>> stream = new ArrayList<>();
+    private final List<StreamReadOptions> reads = new ArrayList<>();
+    private StepRepository stepRepository;
+    private StreamingService streamingService;
+    private Job job;
+
+    @BeforeEach
+    void setup() {
+        StreamOperations streamOperations = mock(StreamOperations.class);
+        when(streamOperations.read(any(StreamReadOptions.class), any(StreamOffset.class))).thenAnswer(invocation -> {
+            StreamReadOptions readOptions = invocation.getArgument(0);
+            StreamOffset<String> streamOffset = invocation.getArgument(1);
+            reads.add(readOptions);
+            long after = sequence(streamOffset.getOffset().getOffset());
+            return stream.stream()
+                    .filter(entry -> sequence(entry.getId().getValue()) > after)
+                    .limit(readOptions.getCount())
+                    .collect(Collectors.toList());
+        });
+        RedisTemplate redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+
+        stepRepository = mock(StepRepository.class);
+        streamingService = new StreamingService(redisTemplate, stepRepository, 1000, MAX_COUNT, 1);
+
+        job = new Job();
+        job.setId(JOB_ID);
+        job.setStatus(JobStatus.running);
+    }
+
+    @Test
+    void resumeByLineNumberReadsPastTheFirstPage() {
+        Step step = step(JobStatus.running);
+        addLines(step, 1, 25);
+
+        LogsTail logsTail = streamingService.getLogsTail(step.getId().toString(), null, 20, 0);
+
+        assertEquals(lines(21, 25), logsTail.getOutput());
+        assertEquals(25, logsTail.getLineNumber());
+        assertEquals("25-0", logsTail.getLastId());
+        assertFalse(logsTail.isCompleted());
+    }
+
+    @Test
+    void resumeByLastIdReadsTheNextEntries() {
+        Step step = step(JobStatus.running);
+        addLines(step, 1, 5);
+
+        LogsTail logsTail = streamingService.getLogsTail(step.getId().toString(), "3-0", 0, 0);
+
+        assertEquals(lines(4, 5), logsTail.getOutput());
+        assertEquals("5-0", logsTail.getLastId());
+    }
+
+    @Test
+    void laterStepIsFoundAfterTheLinesOfPreviousSteps() {
+        Step plan = step(JobStatus.completed);
+        Step apply = step(JobStatus.running);
+        addLines(plan, 1, 25);
+        addLines(apply, 1, 3);
+
+        LogsTail applyTail = streamingService.getLogsTail(apply.getId().toString(), null, 0, 0);
+        assertEquals(lines(1, 3), applyTail.getOutput());
+        assertEquals(3, applyTail.getLineNumber());
+        assertEquals("28-0", applyTail.getLastId());
+
+        // the lines of the other step in the same page do not move the line number of this step
+        addLines(plan, 26, 26);
+        addLines(apply, 4, 4);
+        applyTail = streamingService.getLogsTail(apply.getId().toString(), applyTail.getLastId(), applyTail.getLineNumber(), 0);
+        assertEquals(lines(4, 4), applyTail.getOutput());
+        assertEquals(4, applyTail.getLineNumber());
+    }
+
+    @Test
+    void finishedStepReturnsTheRemainingLinesBeforeCompleting() {
+        Step step = step(JobStatus.running);
+        addLines(step, 1, 5);
+        LogsTail logsTail = streamingService.getLogsTail(step.getId().toString(), null, 0, 0);
+        assertEquals("5-0", logsTail.getLastId());
+
+        // the executor flushes the last lines and then completes the step
+        addLines(step, 6, 8);
+        step.setStatus(JobStatus.completed);
+
+        logsTail = streamingService.getLogsTail(step.getId().toString(), logsTail.getLastId(), logsTail.getLineNumber(), 1000);
+        assertEquals(lines(6, 8), logsTail.getOutput());
+        assertFalse(logsTail.isCompleted());
+
+        reads.clear();
+        logsTail = streamingService.getLogsTail(step.getId().toString(), logsTail.getLastId(), logsTail.getLineNumber(), 1000);
+        assertEquals("", logsTail.getOutput());
+        assertEquals("8-0", logsTail.getLastId());
+        assertTrue(logsTail.isCompleted());
+        assertTrue(reads.stream().noneMatch(StreamReadOptions::isBlocking));
+    }
+
+    @Test
+    void runningStepWithoutNewLinesWaitsForThem() {
+        Step step = step(JobStatus.running);
+        addLines(step, 1, 2);
+
+        LogsTail logsTail = streamingService.getLogsTail(step.getId().toString(), "2-0", 2, 1000);
+
+        assertEquals("", logsTail.getOutput());
+        assertFalse(logsTail.isCompleted());
+        assertFalse(reads.get(0).isBlocking());
+        assertTrue(reads.get(reads.size() - 1).isBlocking());
+    }
+
+    @Test
+    void missingStepIsCompleted() {
+        LogsTail logsTail = streamingService.getLogsTail(UUID.randomUUID().toString(), null, 0, 1000);
+
+        assertTrue(logsTail.isCompleted());
+        assertTrue(reads.isEmpty());
+    }
+
+    private Step step(JobStatus status) {
+        Step step = new Step();
+        step.setId(UUID.randomUUID());
+        step.setStatus(status);
+        step.setJob(job);
+        when(stepRepository.findById(step.getId())).thenReturn(Optional.of(step));
+        return step;
+    }
+
+    private void addLines(Step step, int from, int to) {
+        for (int lineNumber = from; lineNumber <= to; lineNumber++) {
+            Map<String, String> streamData = Map.of(
+                    "jobId", String.valueOf(JOB_ID),
+                    "stepId", step.getId().toString(),
+                    "lineNumber", String.valueOf(lineNumber),
+                    "output", "line " + lineNumber);
+            stream.add(StreamRecords.newRecord()
+                    .in(String.valueOf(JOB_ID))
+                    .withId(RecordId.of((stream.size() + 1) + "-0"))
+                    .ofMap(streamData));
+        }
+    }
+
+    private String lines(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(lineNumber -> "line " + lineNumber + System.lineSeparator()).collect(Collectors.joining());
+    }
+
+    private long sequence(String id) {
+        return Long.parseLong(id.substring(0, id.indexOf('-')));
+    }
+}
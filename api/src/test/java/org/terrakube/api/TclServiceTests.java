@@ -0,0 +1,146 @@
+package org.terrakube.api;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terrakube.api.plugin.scheduler.job.tcl.ImportCommandsService;
+import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Command;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowConfig;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowStep;
+import org.terrakube.api.plugin.scheduler.job.tcl.model.FlowType;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.StepRepository;
+import org.terrakube.api.repository.TemplateRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TclServiceTests {
+
+    private static final int TICKS = 50;
+
+    private StepRepository stepRepository;
+    private ImportCommandsService importCommandsService;
+    private TclService tclService;
+
+    @BeforeEach
+    void setup() {
+        stepRepository = mock(StepRepository.class);
+        importCommandsService = mock(ImportCommandsService.class);
+        tclService = new TclService(mock(JobRepository.class), stepRepository, mock(TemplateRepository.class), importCommandsService);
+    }
+
+    @Test
+    void templateIsParsedOncePerTclHash() {
+        String tcl = encode(template(2));
+        Job job = job(1, tcl, 200);
+        Job sameTemplateJob = job(2, tcl, 100);
+
+        FlowStep flowStep = tclService.getNextFlowStep(job);
+        FlowConfig parsed = tclService.getFlowConfigCache().getIfPresent(DigestUtils.sha256Hex(tcl));
+        assertNotNull(parsed);
+        for (int i = 0; i < TICKS; i++) {
+            tclService.getNextFlowStep(job);
+            tclService.getNextFlowStep(sameTemplateJob);
+        }
+
+        assertEquals("Step 2", flowStep.getFlow().getName());
+        assertSame(parsed, tclService.getFlowConfigCache().getIfPresent(DigestUtils.sha256Hex(tcl)));
+        assertEquals(1, tclService.getFlowConfigCache().estimatedSize());
+
+        tclService.getNextFlowStep(job(3, encode(template(3)), 300));
+        assertEquals(2, tclService.getFlowConfigCache().estimatedSize());
+    }
+
+    @Test
+    void pendingStepIsReadOncePerTick() {
+        Job job = job(1, encode(template(2)), 100);
+
+        for (int i = 0; i < TICKS; i++) {
+            assertEquals("Step 1", tclService.getNextFlowStep(job).getFlow().getName());
+        }
+
+        verify(stepRepository, times(TICKS)).findFirstByJobIdAndStatusOrderByStepNumber(job.getId(), JobStatus.pending);
+    }
+
+    @Test
+    void importedCommandsDoNotChangeTheCachedTemplate() {
+        String tcl = encode("flow:\n"
+                + "  - type: \"terraformPlan\"\n"
+                + "    name: \"Imported\"\n"
+                + "    step: 100\n"
+                + "    importComands:\n"
+                + "      repository: \"https://github.com/AzBuilder/terrakube-extensions\"\n"
+                + "      folder: \"templates/terratag\"\n"
+                + "      branch: \"main\"\n");
+        Command command = new Command();
+        command.setRuntime("BASH");
+        command.setScript("echo imported");
+        when(importCommandsService.getCommands("https://github.com/AzBuilder/terrakube-extensions", "main", "templates/terratag")).thenReturn(List.of(command));
+        Job job = job(1, tcl, 100);
+
+        FlowStep flowStep = tclService.getNextFlowStep(job);
+
+        assertEquals(List.of(command), flowStep.getFlow().getCommands());
+        Flow cachedFlow = tclService.getFlowConfigCache().getIfPresent(DigestUtils.sha256Hex(tcl)).getFlow().get(0);
+        assertNull(cachedFlow.getCommands());
+        assertEquals(List.of(command), tclService.getNextFlowStep(job).getFlow().getCommands());
+    }
+
+    @Test
+    void jobWithoutTemplateReturnsErrorFlow() {
+        FlowStep flowStep = tclService.getNextFlowStep(job(2, null, 100));
+
+        assertNotNull(flowStep);
+        assertEquals(FlowType.yamlError.toString(), flowStep.getFlow().getType());
+    }
+
+    private Job job(int jobId, String tcl, int pendingStepNumber) {
+        Job job = new Job();
+        job.setId(jobId);
+        job.setTcl(tcl);
+        Step step = new Step();
+        step.setId(UUID.randomUUID());
+        step.setStepNumber(pendingStepNumber);
+        step.setStatus(JobStatus.pending);
+        when(stepRepository.findFirstByJobIdAndStatusOrderByStepNumber(jobId, JobStatus.pending)).thenReturn(Optional.of(step));
+        return job;
+    }
+
+    private String template(int flows) {
+        StringBuilder template = new StringBuilder("flow:\n");
+        for (int i = 1; i <= flows; i++) {
+            template.append("  - type: \"terraformPlan\"\n")
+                    .append("    name: \"Step ").append(i).append("\"\n")
+                    .append("    step: ").append(i * 100).append("\n")
+                    .append("    commands:\n")
+                    .append("      - runtime: \"BASH\"\n")
+                    .append("        priority: 100\n")
+                    .append("        before: true\n")
+                    .append("        script: |\n")
+                    .append("          echo \"step ").append(i).append("\"\n");
+        }
+        return template.toString();
+    }
+
+    private String encode(String template) {
+        return Base64.getEncoder().encodeToString(template.getBytes(StandardCharsets.UTF_8));
+    }
+}
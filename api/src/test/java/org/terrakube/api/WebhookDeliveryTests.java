@@ -0,0 +1,170 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.terrakube.api.plugin.vcs.WebhookService;
+import org.terrakube.api.plugin.vcs.delivery.WebhookDeliveryResult;
+import org.terrakube.api.plugin.vcs.delivery.WebhookDeliveryService;
+import org.terrakube.api.repository.WebhookDeliveryRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.webhook.delivery.WebhookDelivery;
+import org.terrakube.api.rs.webhook.delivery.WebhookDeliveryStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookDeliveryTests extends ServerApplicationTests {
+
+    private static final String PAYLOAD = "{\"ref\":\"refs/heads/main\"}";
+
+    @MockBean
+    WebhookService webhookService;
+
+    @Autowired
+    WebhookDeliveryService webhookDeliveryService;
+
+    @Autowired
+    WebhookDeliveryRepository webhookDeliveryRepository;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(webhookService.verifyRepositoryWebhook(anyString(), anyString(), anyMap())).thenReturn(true);
+        when(webhookService.createRepositoryWebhookJobs(anyString(), anyString(), anyMap())).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    void duplicateDeliveryIsProcessedOnce() throws Exception {
+        String webhookId = UUID.randomUUID().toString();
+        Map<String, String> headers = Map.of("X-GitHub-Delivery", UUID.randomUUID().toString());
+
+        assertEquals(WebhookDeliveryResult.ACCEPTED, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, headers));
+        assertEquals(WebhookDeliveryResult.DUPLICATE, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, headers));
+
+        verify(webhookService, timeout(5000)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+        verify(webhookService, after(1000).times(1)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+    }
+
+    @Test
+    void deliveryIdUsesProviderHeadersInPriorityOrder() throws Exception {
+        String webhookId = UUID.randomUUID().toString();
+        Map<String, String> headers = new HashMap<>();
+        headers.put("x-request-id", "proxy-request");
+        headers.put("x-request-uuid", "bitbucket-request");
+        headers.put("x-gitlab-event-uuid", "gitlab-event");
+        headers.put("idempotency-key", "gitlab-idempotency");
+        headers.put("x-github-delivery", "github-delivery");
+
+        assertEquals(WebhookDeliveryResult.ACCEPTED, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, headers));
+        assertTrue(webhookDeliveryRepository.existsByWebhookIdAndDeliveryId(webhookId, "github-delivery"));
+
+        headers.remove("x-github-delivery");
+        assertEquals(WebhookDeliveryResult.ACCEPTED, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, headers));
+        assertTrue(webhookDeliveryRepository.existsByWebhookIdAndDeliveryId(webhookId, "gitlab-idempotency"));
+    }
+
+    @Test
+    void proxyRequestIdIsNotUsedAsDeliveryId() throws Exception {
+        String webhookId = UUID.randomUUID().toString();
+
+        assertEquals(WebhookDeliveryResult.ACCEPTED, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, Map.of("x-request-id", UUID.randomUUID().toString())));
+        assertEquals(WebhookDeliveryResult.DUPLICATE, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, Map.of("x-request-id", UUID.randomUUID().toString())));
+    }
+
+    @Test
+    void concurrentDeliveriesAreAcceptedOnce() throws Exception {
+        String webhookId = UUID.randomUUID().toString();
+        Map<String, String> headers = Map.of("X-GitHub-Delivery", UUID.randomUUID().toString());
+        Callable<WebhookDeliveryResult> accept = () -> webhookDeliveryService.acceptRepository(webhookId, PAYLOAD, headers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<WebhookDeliveryResult> results = new ArrayList<>();
+        try {
+            for (Future<WebhookDeliveryResult> result : executor.invokeAll(Collections.nCopies(8, accept))) {
+                results.add(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, Collections.frequency(results, WebhookDeliveryResult.ACCEPTED));
+        assertEquals(7, Collections.frequency(results, WebhookDeliveryResult.DUPLICATE));
+        verify(webhookService, timeout(5000)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+        verify(webhookService, after(1000).times(1)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+    }
+
+    @Test
+    void timedOutDeliveryIsProcessedByTheNewClaimOnly() throws Exception {
+        String webhookId = UUID.randomUUID().toString();
+        WebhookDelivery webhookDelivery = new WebhookDelivery();
+        webhookDelivery.setWebhookId(webhookId);
+        webhookDelivery.setRepository(true);
+        webhookDelivery.setDeliveryId(UUID.randomUUID().toString());
+        webhookDelivery.setPayload(PAYLOAD);
+        webhookDelivery.setHeaders("{}");
+        webhookDelivery.setStatus(WebhookDeliveryStatus.processing);
+        webhookDelivery.setClaimId("stale-claim");
+        webhookDelivery.setAttempts(1);
+        webhookDelivery.setUpdatedDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)));
+        UUID deliveryId = webhookDeliveryRepository.saveAndFlush(webhookDelivery).getId();
+
+        webhookDeliveryService.recoverDeliveries();
+        webhookDeliveryService.recoverDeliveries();
+
+        verify(webhookService, timeout(5000)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+        verify(webhookService, after(1000).times(1)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+        assertEquals(WebhookDeliveryStatus.completed, webhookDeliveryRepository.findById(deliveryId).orElseThrow().getStatus());
+
+        // the worker that timed out can not complete the delivery anymore
+        assertEquals(0, webhookDeliveryRepository.updateClaimedStatus(deliveryId, WebhookDeliveryStatus.processing,
+                "stale-claim", WebhookDeliveryStatus.completed, new Date()));
+    }
+
+    @Test
+    void workerThatLostItsClaimDoesNotDispatchJobs() throws Exception {
+        String webhookId = UUID.randomUUID().toString();
+        when(webhookService.createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap())).thenAnswer(invocation -> {
+            // the recovery job claims the delivery again while this worker is still creating the jobs
+            WebhookDelivery current = webhookDeliveryRepository.findAll().stream()
+                    .filter(delivery -> delivery.getWebhookId().equals(webhookId))
+                    .findFirst()
+                    .orElseThrow();
+            webhookDeliveryRepository.reclaim(current.getId(), WebhookDeliveryStatus.processing, current.getClaimId(),
+                    UUID.randomUUID().toString(), new Date());
+            return List.of(new Job());
+        });
+
+        assertEquals(WebhookDeliveryResult.ACCEPTED, webhookDeliveryService.acceptRepository(webhookId, PAYLOAD,
+                Map.of("X-GitHub-Delivery", UUID.randomUUID().toString())));
+
+        verify(webhookService, timeout(5000)).createRepositoryWebhookJobs(eq(webhookId), anyString(), anyMap());
+        verify(webhookService, after(1000).never()).dispatchWebhookJobs(anyList());
+    }
+}
@@ -0,0 +1,87 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.Test;
+import org.terrakube.api.plugin.vcs.WebhookTriggerMatcher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookTriggerMatcherTests {
+
+    @Test
+    void matchFileChangesUsesWorkspaceFolder() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("", "modules/.*\\.tf", "/workspace", "main");
+
+        assertTrue(webhookTriggerMatcher.matchFileChanges(List.of("workspace/main.tf")));
+        assertTrue(webhookTriggerMatcher.matchFileChanges(List.of("modules/network/main.tf")));
+        assertFalse(webhookTriggerMatcher.matchFileChanges(List.of("docs/README.md")));
+    }
+
+    @Test
+    void folderPrefixMatchesAnyFileInTheFolder() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("", "", "/infra/network", "main");
+
+        assertTrue(webhookTriggerMatcher.matchFileChanges(List.of("infra/network/README.md")));
+        assertTrue(webhookTriggerMatcher.matchFileChanges(List.of("docs/index.md", "infra/network/variables.tf")));
+        assertFalse(webhookTriggerMatcher.matchFileChanges(List.of("infra/storage/main.tf")));
+        // the folder is not a trigger pattern, matchPath only uses the path patterns
+        assertFalse(webhookTriggerMatcher.matchPath(List.of("infra/network/main.tf")));
+    }
+
+    @Test
+    void pathPatternMatchesTheWholeFilePath() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("", "modules/.*\\.tf,shared/versions\\.tf", "/workspace", "main");
+
+        assertTrue(webhookTriggerMatcher.matchPath(List.of("modules/network/main.tf")));
+        assertTrue(webhookTriggerMatcher.matchPath(List.of("docs/README.md", "shared/versions.tf")));
+        assertFalse(webhookTriggerMatcher.matchPath(List.of("modules/network/README.md")));
+        assertFalse(webhookTriggerMatcher.matchPath(List.of("root/modules/network/main.tf")));
+        assertFalse(webhookTriggerMatcher.matchPath(List.of("shared/versions.tf.bak")));
+    }
+
+    @Test
+    void invalidPathPatternIsSkipped() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("", "modules/[.*,shared/.*\\.tf", "/workspace", "main");
+
+        assertTrue(webhookTriggerMatcher.matchPath(List.of("shared/versions.tf")));
+        assertFalse(webhookTriggerMatcher.matchPath(List.of("modules/[main.tf")));
+    }
+
+    @Test
+    void onlyInvalidPathPatternsMatchNothing() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("", "modules/[.*", "/workspace", "main");
+
+        assertNull(webhookTriggerMatcher.getPathPattern());
+        assertFalse(webhookTriggerMatcher.matchPath(List.of("modules/[main.tf")));
+    }
+
+    @Test
+    void defaultBranchAlwaysMatches() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("", "", "/workspace", "main");
+
+        assertTrue(webhookTriggerMatcher.matchBranch("main"));
+        assertFalse(webhookTriggerMatcher.matchBranch("develop"));
+    }
+
+    @Test
+    void branchPatternsMatchTheWholeBranchName() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("release/.*, develop", "", "/workspace", "main");
+
+        assertTrue(webhookTriggerMatcher.matchBranch("main"));
+        assertTrue(webhookTriggerMatcher.matchBranch("develop"));
+        assertTrue(webhookTriggerMatcher.matchBranch("release/1.0"));
+        assertFalse(webhookTriggerMatcher.matchBranch("feature/release/1.0"));
+        assertFalse(webhookTriggerMatcher.matchBranch("develop-old"));
+    }
+
+    @Test
+    void invalidBranchPatternIsSkipped() {
+        WebhookTriggerMatcher webhookTriggerMatcher = new WebhookTriggerMatcher("feature/(,hotfix/.*", "", "/workspace", "main");
+
+        assertTrue(webhookTriggerMatcher.matchBranch("hotfix/login"));
+        assertFalse(webhookTriggerMatcher.matchBranch("feature/("));
+    }
+}
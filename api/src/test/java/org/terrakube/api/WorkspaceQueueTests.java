@@ -0,0 +1,125 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.terrakube.api.plugin.scheduler.queue.WorkspaceQueueService;
+import org.terrakube.api.repository.WorkspaceQueueRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class WorkspaceQueueTests extends ServerApplicationTests {
+
+    @Autowired
+    WorkspaceQueueService workspaceQueueService;
+
+    @Autowired
+    WorkspaceQueueRepository workspaceQueueRepository;
+
+    private Workspace workspace;
+    private final List<Job> jobs = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        workspace = new Workspace();
+        workspace.setName("queue-" + UUID.randomUUID().toString().substring(0, 8));
+        workspace.setSource("https://github.com/AzBuilder/terrakube-docker-compose.git");
+        workspace.setBranch("main");
+        workspace.setTerraformVersion("1.5.7");
+        workspace.setOrganization(organizationRepository.findById(UUID.fromString("d9b58bd3-f3fc-4056-a026-1163297e80a8")).get());
+        workspace = workspaceRepository.save(workspace);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jobRepository.deleteAll(jobs);
+        jobs.clear();
+        workspaceQueueRepository.deleteById(workspace.getId());
+        workspaceRepository.delete(workspace);
+    }
+
+    @Test
+    void headStaysOnTheFirstJobUntilItFinishes() {
+        Job first = enqueue();
+        Job second = enqueue();
+
+        assertTrue(workspaceQueueService.isHead(first));
+        assertFalse(workspaceQueueService.isHead(second));
+        assertEquals(first.getId(), workspaceQueueService.advance(workspace).get().getId());
+    }
+
+    @Test
+    void headMovesPastFinishedJobs() {
+        Job first = enqueue();
+        Job second = enqueue();
+        Job third = enqueue();
+
+        updateStatus(first, JobStatus.completed);
+        updateStatus(second, JobStatus.failed);
+
+        assertEquals(third.getId(), workspaceQueueService.advance(workspace).get().getId());
+        assertEquals(Optional.of((long) third.getId()), workspaceQueueRepository.findHeadJobId(workspace.getId()));
+        assertTrue(workspaceQueueService.isHead(third));
+    }
+
+    @Test
+    void headNeverMovesBackwards() {
+        Job first = enqueue();
+        Job second = enqueue();
+        updateStatus(first, JobStatus.completed);
+        assertTrue(workspaceQueueService.isHead(second));
+
+        // an older job that is active again and a new job both wait for the current head
+        updateStatus(first, JobStatus.pending);
+        Job third = enqueue();
+
+        assertEquals(second.getId(), workspaceQueueService.advance(workspace).get().getId());
+        assertFalse(workspaceQueueService.isHead(first));
+        assertFalse(workspaceQueueService.isHead(third));
+        assertEquals(Optional.of((long) second.getId()), workspaceQueueRepository.findHeadJobId(workspace.getId()));
+    }
+
+    @Test
+    void emptyQueueStartsWithTheNextJob() {
+        Job first = enqueue();
+        updateStatus(first, JobStatus.completed);
+
+        assertTrue(workspaceQueueService.advance(workspace).isEmpty());
+
+        Job second = enqueue();
+        assertTrue(workspaceQueueService.isHead(second));
+    }
+
+    private Job enqueue() {
+        Job job = new Job();
+        job.setWorkspace(workspace);
+        job.setOrganization(workspace.getOrganization());
+        job.setStatus(JobStatus.pending);
+        job.setComments("queue-job");
+        job = jobRepository.save(job);
+        jobs.add(job);
+        workspaceQueueService.enqueue(job);
+        return job;
+    }
+
+    private void updateStatus(Job job, JobStatus status) {
+        job.setStatus(status);
+        jobRepository.save(job);
+    }
+}
@@ -0,0 +1,24 @@
+package org.terrakube.executor.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.executor.logs")
+public class LogsProperties {
+
+    private int batchSize = 200;
+    private long flushInterval = 250;
+    private int queueCapacity = 10000;
+    private long flushTimeout = 30000;
+    private int maxRetries = 3;
+    private long retryBackoff = 500;
+
+}
@@ -34,4 +34,13 @@ public class LogsConsumer implements Consumer<String> {
         terraformOutput.appendln(logs);
         processLogs.sendLogs(jobId, stepId, line, logs);
     }
+
+    /**
+     * Wait until every line of the job has been sent by the log shipper. The callers have already waited for the
+     * process, the bash scripts launcher only completes once its readers reach the end of the streams. Returns false
+     * when a line was dropped or the lines were not sent before the timeout.
+     */
+    public boolean complete() {
+        return processLogs.flush(jobId);
+    }
 }
@@ -1,32 +1,263 @@
 package org.terrakube.executor.service.logs;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.LogsProperties;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Ship the terraform output to the redis stream of each job. Lines are added to a bounded queue, the caller is blocked
+ * when the queue is full, and a single background thread writes them in batches using redis pipelining so the order
+ * and the line numbers of each job are kept. A failed batch is retried a bounded number of times before its lines are
+ * dropped.
+ */
 @Service
 @Slf4j
-@AllArgsConstructor
 public class LogsService implements ProcessLogs {
 
     RedisTemplate redisTemplate;
+    LogsProperties logsProperties;
+
+    private final BlockingQueue<LogLine> logQueue;
+    private final Object shippedLock = new Object();
+    private final Map<Integer, JobLines> jobLines = new HashMap<>();
+    private volatile boolean running = true;
+    private Thread shipperThread;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+    private final Counter retriedBatches;
+    private final Counter droppedLines;
+
+    public LogsService(RedisTemplate redisTemplate, LogsProperties logsProperties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.logsProperties = logsProperties;
+        this.logQueue = new ArrayBlockingQueue<>(logsProperties.getQueueCapacity());
+        this.batchSize = DistributionSummary.builder("terrakube.executor.logs.batch.size")
+                .description("Number of log lines sent to redis in a single pipeline")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("terrakube.executor.logs.flush.latency")
+                .description("Time to send a batch of log lines to redis")
+                .register(meterRegistry);
+        this.retriedBatches = Counter.builder("terrakube.executor.logs.retried")
+                .description("Batches of log lines sent again after a redis error")
+                .register(meterRegistry);
+        this.droppedLines = Counter.builder("terrakube.executor.logs.dropped")
+                .description("Log lines dropped after every attempt to send them to redis failed")
+                .register(meterRegistry);
+        meterRegistry.gauge("terrakube.executor.logs.queue.size", logQueue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void startShipper() {
+        shipperThread = new Thread(this::shipLogs, "terrakube-logs-shipper");
+        shipperThread.setDaemon(true);
+        shipperThread.start();
+    }
+
+    @PreDestroy
+    public void stopShipper() {
+        List<Integer> pendingJobs;
+        synchronized (shippedLock) {
+            pendingJobs = new ArrayList<>(jobLines.keySet());
+        }
+        pendingJobs.forEach(this::flush);
+        running = false;
+        shipperThread.interrupt();
+    }
 
     @Override
     public void sendLogs(Integer jobId, String stepId, int lineNumber, String output) {
-        Map<String, String> streamData = new LinkedHashMap();
-        streamData.put("jobId", String.valueOf(jobId));
-        streamData.put("stepId", stepId);
-        streamData.put("lineNumber", String.valueOf(lineNumber));
-        streamData.put("output", output);
+        JobLines lines;
+        synchronized (shippedLock) {
+            lines = jobLines.computeIfAbsent(jobId, key -> new JobLines());
+            lines.enqueued++;
+        }
+        LogLine logLine = new LogLine(jobId, stepId, lineNumber, output, lines);
+        try {
+            logQueue.put(logLine);
+        } catch (InterruptedException e) {
+            log.error("Interrupted while sending logs for job {} step {}", jobId, stepId);
+            markShipped(List.of(logLine), false);
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        redisTemplate.opsForStream().add(jobId.toString(), streamData);
+    /**
+     * Wait until every line of the job sent before this call has been written to redis or dropped. Lines of other
+     * jobs sharing the executor are not waited for. Returns false when the timeout expires or when lines of the job
+     * were dropped since the previous flush.
+     */
+    @Override
+    public boolean flush(Integer jobId) {
+        long deadline = System.currentTimeMillis() + logsProperties.getFlushTimeout();
+        synchronized (shippedLock) {
+            JobLines lines = jobLines.get(jobId);
+            if (lines == null) {
+                return true;
+            }
+            long target = lines.enqueued;
+            while (lines.shipped < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("Timeout waiting for log lines of job {} to be sent, pending {}", jobId, target - lines.shipped);
+                    return false;
+                }
+                try {
+                    shippedLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (lines.dropped > 0) {
+                log.warn("{} log lines of job {} were dropped", lines.dropped, jobId);
+                lines.dropped = 0;
+                if (lines.shipped == lines.enqueued) {
+                    jobLines.remove(jobId, lines);
+                }
+                return false;
+            }
+        }
+        return true;
     }
 
     public void deleteLogs(String jobId) {
         redisTemplate.delete(jobId);
     }
-}
\ No newline at end of file
+
+    private void shipLogs() {
+        List<LogLine> batch = new ArrayList<>(logsProperties.getBatchSize());
+        while (running) {
+            boolean written = false;
+            try {
+                LogLine first = logQueue.poll(logsProperties.getFlushInterval(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(logsProperties.getFlushInterval());
+                while (batch.size() < logsProperties.getBatchSize()) {
+                    logQueue.drainTo(batch, logsProperties.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= logsProperties.getBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    LogLine next = logQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                written = writeBatch(batch);
+            } catch (InterruptedException e) {
+                log.warn("Logs shipper interrupted");
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                markShipped(batch, written);
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean writeBatch(List<LogLine> batch) throws InterruptedException {
+        int attempt = 0;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        for (LogLine logLine : batch) {
+                            operations.opsForStream().add(logLine.getJobId().toString(), logLine.getStreamData());
+                        }
+                        return null;
+                    }
+                });
+                batchSize.record(batch.size());
+                return true;
+            } catch (Exception e) {
+                attempt++;
+                if (attempt > logsProperties.getMaxRetries()) {
+                    log.error("Dropping {} log lines after {} attempts: {}", batch.size(), attempt, e.getMessage());
+                    droppedLines.increment(batch.size());
+                    return false;
+                }
+                // the pipeline is not atomic, lines written before the error are sent again with the same line number
+                log.warn("Error sending {} log lines to redis, attempt {}: {}", batch.size(), attempt, e.getMessage());
+                retriedBatches.increment();
+            } finally {
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            Thread.sleep(logsProperties.getRetryBackoff() * attempt);
+        }
+    }
+
+    private void markShipped(List<LogLine> batch, boolean written) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (shippedLock) {
+            for (LogLine logLine : batch) {
+                JobLines lines = logLine.getJobLines();
+                lines.shipped++;
+                if (!written) {
+                    lines.dropped++;
+                }
+                // the lines of a job with dropped lines are kept until flush reports them
+                if (lines.shipped == lines.enqueued && lines.dropped == 0) {
+                    jobLines.remove(logLine.getJobId(), lines);
+                }
+            }
+            shippedLock.notifyAll();
+        }
+    }
+
+    private static class JobLines {
+        private long enqueued = 0;
+        private long shipped = 0;
+        private long dropped = 0;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class LogLine {
+        private Integer jobId;
+        private String stepId;
+        private int lineNumber;
+        private String output;
+        private JobLines jobLines;
+
+        Map<String, String> getStreamData() {
+            Map<String, String> streamData = new LinkedHashMap<>();
+            streamData.put("jobId", String.valueOf(jobId));
+            streamData.put("stepId", stepId);
+            streamData.put("lineNumber", String.valueOf(lineNumber));
+            streamData.put("output", output);
+            return streamData;
+        }
+    }
+}
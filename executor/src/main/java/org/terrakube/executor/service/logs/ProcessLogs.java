@@ -2,4 +2,6 @@ package org.terrakube.executor.service.logs;
 
 public interface ProcessLogs {
     public void sendLogs(Integer jobId, String stepId, int lineNumber, String output);
+
+    public boolean flush(Integer jobId);
 }
@@ -41,15 +41,18 @@ public class ScriptEngineService {
     private BashEngine bashEngine;
     private String toolsRepository;
     private String toolsBranch;
+    private ToolsRepositoryCache toolsRepositoryCache;
 
     @Autowired
     public ScriptEngineService(GroovyEngine groovyEngine, BashEngine bashEngine,
             @Value("${org.terrakube.tools.repository}") String toolsRepository,
-            @Value("${org.terrakube.tools.branch}") String toolsBranch) {
+            @Value("${org.terrakube.tools.branch}") String toolsBranch,
+            ToolsRepositoryCache toolsRepositoryCache) {
         this.groovyEngine = groovyEngine;
         this.bashEngine = bashEngine;
         this.toolsRepository = toolsRepository;
         this.toolsBranch = toolsBranch;
+        this.toolsRepositoryCache = toolsRepositoryCache;
     }
 
     public boolean execute(TerraformJob terraformJob, List<Command> commands, File terraformWorkingDir,
@@ -158,13 +161,21 @@ public class ScriptEngineService {
                     break;
             }
 
-            Git.cloneRepository()
-                    .setURI(this.toolsRepository)
-                    .setDirectory(getToolsRepository(terraformWorkingDir))
-                    .setBranch(this.toolsBranch)
-                    .setCredentialsProvider(credentialsProvider)
-                    .call();
-        } catch (GitAPIException e) {
+            if (toolsRepositoryCache.isEnabled()) {
+                String credentialsKey = String.join("|", privateRepositoryType,
+                        String.valueOf(privateRepositoryTokenType), String.valueOf(privateRepositoryToken));
+                toolsRepositoryCache.copyTo(this.toolsRepository, this.toolsBranch, credentialsKey,
+                        credentialsProvider, getToolsRepository(terraformWorkingDir));
+            } else {
+                Git.cloneRepository()
+                        .setURI(this.toolsRepository)
+                        .setDirectory(getToolsRepository(terraformWorkingDir))
+                        .setBranch(this.toolsBranch)
+                        .setCredentialsProvider(credentialsProvider)
+                        .call()
+                        .close();
+            }
+        } catch (GitAPIException | IOException e) {
             log.error(e.getMessage());
         }
     }
@@ -0,0 +1,155 @@
+package org.terrakube.executor.service.scripts;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local copy of the tools repository pinned to a commit. The copy is shared by every job and cloned again only when
+ * the commit of the branch changes, old commits are removed. Each job checks its own credentials with ls-remote at most
+ * once per refresh interval before it can use the copy, only a hash of the credentials is kept and the entries expire
+ * with the refresh interval.
+ */
+@Slf4j
+@Service
+public class ToolsRepositoryCache {
+
+    private static final String CACHE_DIRECTORY = "%s/.terraform-spring-boot/tools";
+    private static final FileFilter EXCLUDE_GIT_FOLDER = file -> !file.getName().equals(Constants.DOT_GIT);
+
+    private final boolean enabled;
+    private final long refreshInterval;
+    private final File cacheDirectory;
+    private final Map<String, CachedRepository> cachedRepositories = new ConcurrentHashMap<>();
+    private final Map<String, CheckedAccess> checkedAccess = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> cacheLocks = new ConcurrentHashMap<>();
+
+    public ToolsRepositoryCache(@Value("${org.terrakube.tools.cache.enabled:true}") boolean enabled,
+                                @Value("${org.terrakube.tools.cache.refreshInterval:300}") long refreshInterval) {
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval * 1000;
+        this.cacheDirectory = new File(String.format(CACHE_DIRECTORY, FileUtils.getUserDirectoryPath()));
+        deleteCopies();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Copy the cached tools repository for the branch into destination, the cache is refreshed first if the credentials
+     * were not checked in the refresh interval.
+     */
+    public void copyTo(String repository, String branch, String credentialsKey, CredentialsProvider credentialsProvider, File destination) throws IOException, GitAPIException {
+        String cacheKey = DigestUtils.sha256Hex(String.join("|", repository, branch));
+        String accessKey = DigestUtils.sha256Hex(String.join("|", cacheKey, credentialsKey == null ? "" : credentialsKey));
+        ReentrantLock lock = cacheLocks.computeIfAbsent(cacheKey, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            CachedRepository cachedRepository = refresh(cacheKey, accessKey, repository, branch, credentialsProvider);
+            log.info("Using tools repository {} branch {} commit {}", repository, branch, cachedRepository.getCommitId());
+            FileUtils.copyDirectory(cachedRepository.getDirectory(), destination, EXCLUDE_GIT_FOLDER);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedRepository refresh(String cacheKey, String accessKey, String repository, String branch, CredentialsProvider credentialsProvider) throws IOException, GitAPIException {
+        long now = System.currentTimeMillis();
+        checkedAccess.values().removeIf(access -> now - access.getCheckedAt() >= refreshInterval);
+
+        CachedRepository cachedRepository = cachedRepositories.get(cacheKey);
+        CheckedAccess access = checkedAccess.get(accessKey);
+        if (cachedRepository != null && access != null && access.getCommitId().equals(cachedRepository.getCommitId())) {
+            return cachedRepository;
+        }
+
+        // ls-remote with the credentials of the job, a job without access to the repository can not use the copy
+        String commitId = getRemoteCommitId(repository, branch, credentialsProvider);
+        checkedAccess.put(accessKey, new CheckedAccess(commitId, now));
+        if (cachedRepository != null && cachedRepository.getCommitId().equals(commitId)) {
+            return cachedRepository;
+        }
+
+        File directory = new File(cacheDirectory, cacheKey + "/" + commitId);
+        log.info("Cloning tools repository {} branch {} commit {} to {}", repository, branch, commitId, directory.getPath());
+        FileUtils.deleteDirectory(directory);
+        FileUtils.forceMkdir(directory);
+        try (Git git = Git.cloneRepository()
+                .setURI(repository)
+                .setDirectory(directory)
+                .setBranch(branch)
+                .setCredentialsProvider(credentialsProvider)
+                .call()) {
+            git.checkout().setName(commitId).call();
+        } catch (GitAPIException e) {
+            FileUtils.deleteDirectory(directory);
+            throw e;
+        }
+
+        if (cachedRepository != null) {
+            FileUtils.deleteDirectory(cachedRepository.getDirectory());
+        }
+        cachedRepository = new CachedRepository(commitId, directory);
+        cachedRepositories.put(cacheKey, cachedRepository);
+        return cachedRepository;
+    }
+
+    /**
+     * The copies are only known by this instance, the copies left by a previous run are removed at startup.
+     */
+    private void deleteCopies() {
+        try {
+            FileUtils.deleteDirectory(cacheDirectory);
+        } catch (IOException e) {
+            log.warn("Unable to delete tools repository cache {}: {}", cacheDirectory.getPath(), e.getMessage());
+        }
+    }
+
+    private String getRemoteCommitId(String repository, String branch, CredentialsProvider credentialsProvider) throws GitAPIException, IOException {
+        Map<String, Ref> refs = Git.lsRemoteRepository()
+                .setRemote(repository)
+                .setHeads(true)
+                .setTags(true)
+                .setCredentialsProvider(credentialsProvider)
+                .callAsMap();
+        Ref ref = refs.get(Constants.R_HEADS + branch);
+        if (ref == null) {
+            ref = refs.get(Constants.R_TAGS + branch);
+        }
+        if (ref == null) {
+            throw new IOException(String.format("Branch %s not found in tools repository %s", branch, repository));
+        }
+        return ref.getPeeledObjectId() != null ? ref.getPeeledObjectId().getName() : ref.getObjectId().getName();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedRepository {
+        private String commitId;
+        private File directory;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CheckedAccess {
+        private String commitId;
+        private long checkedAt;
+    }
+}
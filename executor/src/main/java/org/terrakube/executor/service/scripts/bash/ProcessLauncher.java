@@ -1,15 +1,24 @@
 package org.terrakube.executor.service.scripts.bash;
 
+import lombok.extern.slf4j.Slf4j;
+
 import java.io.*;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+@Slf4j
 public final class ProcessLauncher {
+    private static final Duration READER_GRACE_PERIOD = Duration.ofSeconds(30);
+
     private Process process;
     private ProcessBuilder builder;
     private Consumer<String> outputListener, errorListener;
@@ -73,15 +82,16 @@ public final class ProcessLauncher {
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
+        List<CompletableFuture<Boolean>> readers = new ArrayList<>();
         if (!this.inheritIO) {
             if (this.outputListener != null) {
-                this.executor.submit(() -> this.readProcessStream(this.process.getInputStream(), this.outputListener));
+                readers.add(CompletableFuture.supplyAsync(() -> this.readProcessStream(this.process.getInputStream(), this.outputListener), this.executor));
             }
             if (this.errorListener != null) {
-                this.executor.submit(() -> this.readProcessStream(this.process.getErrorStream(), this.errorListener));
+                readers.add(CompletableFuture.supplyAsync(() -> this.readProcessStream(this.process.getErrorStream(), this.errorListener), this.executor));
             }
         }
-        return CompletableFuture.supplyAsync(() -> {
+        CompletableFuture<Integer> exitCode = CompletableFuture.supplyAsync(() -> {
             try {
                 return this.process.waitFor();
             } catch (InterruptedException ex) {
@@ -89,6 +99,31 @@ public final class ProcessLauncher {
                 throw new RuntimeException(ex);
             }
         }, this.executor);
+
+        // the exit code is returned after the readers reach the end of the streams so no line is delivered late, a
+        // background process that keeps the streams open only delays it for the grace period
+        return exitCode.thenCompose(code -> CompletableFuture.allOf(readers.toArray(new CompletableFuture[0]))
+                .completeOnTimeout(null, READER_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    if (!readers.stream().allMatch(CompletableFuture::isDone)) {
+                        log.warn("Process output was not fully read {} after exit, closing streams", READER_GRACE_PERIOD);
+                    }
+                    closeProcessStreams();
+                    return code;
+                }));
+    }
+
+    private void closeProcessStreams() {
+        closeQuietly(this.process.getInputStream());
+        closeQuietly(this.process.getErrorStream());
+    }
+
+    private void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ex) {
+            log.debug("Unable to close process stream: {}", ex.getMessage());
+        }
     }
 
     private boolean readProcessStream(InputStream stream, Consumer<String> listener) {
@@ -88,7 +88,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             boolean scriptBeforeSuccessPlan;
             boolean scriptAfterSuccessPlan;
 
-            Consumer<String> planOutput = LogsConsumer.builder()
+            LogsConsumer planOutput = LogsConsumer.builder()
                     .jobId(Integer.valueOf(terraformJob.getJobId()))
                     .terraformOutput(jobOutput)
                     .stepId(terraformJob.getStepId())
@@ -129,7 +129,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
             scriptAfterSuccessPlan = executePostOperationScripts(terraformJob, terraformWorkingDir, planOutput, executionPlan);
 
-            Thread.sleep(10000);
+            completeOutput(terraformJob, planOutput);
 
             result = generateJobResult(scriptAfterSuccessPlan, jobOutput.toString(), jobErrorOutput.toString());
             result.setPlanFile(executionPlan ? terraformState.saveTerraformPlan(terraformJob.getOrganizationId(),
@@ -153,7 +153,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         TextStringBuilder terraformErrorOutput = new TextStringBuilder();
         try {
             File terraformWorkingDir = getTerraformWorkingDir(terraformJob, workingDirectory);
-            Consumer<String> applyOutput = LogsConsumer.builder()
+            LogsConsumer applyOutput = LogsConsumer.builder()
                     .jobId(Integer.valueOf(terraformJob.getJobId()))
                     .lineNumber(new AtomicInteger(0))
                     .terraformOutput(terraformOutput)
@@ -195,8 +195,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             log.warn("Terraform apply Executed Successfully: {}", execution);
             scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, applyOutput, execution);
 
-
-            Thread.sleep(10000);
+            completeOutput(terraformJob, applyOutput);
             result = generateJobResult(scriptAfterSuccess, terraformOutput.toString(), terraformErrorOutput.toString());
         } catch (IOException | ExecutionException | InterruptedException exception) {
             result = setError(exception);
@@ -213,7 +212,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         TextStringBuilder jobErrorOutput = new TextStringBuilder();
         try {
             File terraformWorkingDir = getTerraformWorkingDir(terraformJob, workingDirectory);
-            Consumer<String> outputDestroy = LogsConsumer.builder()
+            LogsConsumer outputDestroy = LogsConsumer.builder()
                     .jobId(Integer.valueOf(terraformJob.getJobId()))
                     .terraformOutput(jobOutput)
                     .stepId(terraformJob.getStepId())
@@ -248,7 +247,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             log.warn("Terraform destroy Executed Successfully: {}", execution);
             scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, outputDestroy, execution);
 
-            Thread.sleep(10000);
+            completeOutput(terraformJob, outputDestroy);
             result = generateJobResult(scriptAfterSuccess, jobOutput.toString(), jobErrorOutput.toString());
         } catch (IOException | ExecutionException | InterruptedException exception) {
             result = setError(exception);
@@ -385,7 +384,6 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                 log.info(s);
             }).get();
 
-        Thread.sleep(5000);
         return terraformProcessData.getTerraformBackendConfigFileName();
     }
 
@@ -416,12 +414,20 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         return terraformJob.isTofu() ? "Tofu": "Terraform";
     }
 
-    private void showTerraformMessage(TerraformJob terraformJob, String operation, Consumer<String> output) throws InterruptedException {
+    private void showTerraformMessage(TerraformJob terraformJob, String operation, Consumer<String> output) {
         AnsiFormat colorMessage = new AnsiFormat(GREEN_TEXT(), BLACK_BACK(), BOLD());
         output.accept(colorize(STEP_SEPARATOR, colorMessage));
         output.accept(colorize(String.format("Running %s ",getIaCType(terraformJob)) + operation, colorMessage));
         output.accept(colorize(STEP_SEPARATOR, colorMessage));
-        Thread.sleep(2000);
+    }
+
+    private void completeOutput(TerraformJob terraformJob, LogsConsumer output) {
+        if (!output.complete()) {
+            log.warn("Not all the logs were sent for job {} step {}", terraformJob.getJobId(), terraformJob.getStepId());
+            // the full output is uploaded with the step, the warning tells the user the streamed logs are incomplete
+            output.accept(colorize("Some log lines could not be streamed, the complete output is available once the step finishes",
+                    new AnsiFormat(YELLOW_TEXT(), BLACK_BACK(), BOLD())));
+        }
     }
 
     private TerraformProcessData getTerraformProcessData(TerraformJob terraformJob, File workingDirectory) {
@@ -0,0 +1,141 @@
+package org.terrakube.executor.service.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.TransportConfigCallback;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keep a bare mirror of every repository used by the executor. Each checkout fetches only the new objects into the
+ * mirror and the job working directory uses the mirror object database as alternate, so the objects are not
+ * downloaded or copied again for every step.
+ */
+@Slf4j
+@Service
+public class GitMirrorService {
+
+    private static final String MIRROR_DIRECTORY = "%s/.terraform-spring-boot/mirror";
+    private static final String ALTERNATES_FILE = "objects/info/alternates";
+    private static final String REMOTE_NAME = "origin";
+
+    private final boolean enabled;
+    private final File mirrorDirectory;
+    private final Map<String, ReentrantLock> repositoryLocks = new ConcurrentHashMap<>();
+
+    public GitMirrorService(@Value("${org.terrakube.executor.git.mirror.enabled:false}") boolean enabled,
+                            @Value("${org.terrakube.executor.git.mirror.directory:}") String mirrorDirectory) {
+        this.enabled = enabled;
+        this.mirrorDirectory = mirrorDirectory == null || mirrorDirectory.isEmpty()
+                ? new File(String.format(MIRROR_DIRECTORY, FileUtils.getUserDirectoryPath()))
+                : new File(mirrorDirectory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Update the mirror of the repository and create a working tree for the branch inside workingDirectory. The
+     * mirror is always fetched with the credentials of the current job before it is used, a job without access to
+     * the repository fails the same way as a normal clone.
+     */
+    public void checkout(String repositoryUrl, String branch, File workingDirectory, CredentialsProvider credentialsProvider, TransportConfigCallback transportConfigCallback) throws GitAPIException, IOException {
+        ReentrantLock lock = repositoryLocks.computeIfAbsent(repositoryUrl, url -> new ReentrantLock());
+        lock.lock();
+        try {
+            File mirror = updateMirror(repositoryUrl, credentialsProvider, transportConfigCallback);
+            createWorkingTree(mirror, repositoryUrl, branch, workingDirectory);
+        } finally {
+            lock.unlock();
+        }
+
+        try (Git git = Git.open(workingDirectory)) {
+            git.submoduleInit().call();
+            git.submoduleUpdate()
+                    .setCredentialsProvider(credentialsProvider)
+                    .setTransportConfigCallback(transportConfigCallback)
+                    .call();
+        }
+    }
+
+    private File updateMirror(String repositoryUrl, CredentialsProvider credentialsProvider, TransportConfigCallback transportConfigCallback) throws GitAPIException, IOException {
+        File mirror = new File(mirrorDirectory, DigestUtils.sha256Hex(repositoryUrl) + ".git");
+        if (new File(mirror, "HEAD").exists()) {
+            log.info("Fetching mirror {} for {}", mirror.getPath(), repositoryUrl);
+            try (Git git = Git.open(mirror)) {
+                git.fetch()
+                        .setRemote(REMOTE_NAME)
+                        .setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*"), new RefSpec("+refs/tags/*:refs/tags/*"))
+                        .setRemoveDeletedRefs(true)
+                        .setCredentialsProvider(credentialsProvider)
+                        .setTransportConfigCallback(transportConfigCallback)
+                        .call();
+            }
+        } else {
+            log.info("Creating mirror {} for {}", mirror.getPath(), repositoryUrl);
+            FileUtils.deleteDirectory(mirror);
+            FileUtils.forceMkdir(mirrorDirectory);
+            try {
+                Git.cloneRepository()
+                        .setURI(repositoryUrl)
+                        .setDirectory(mirror)
+                        .setBare(true)
+                        .setCloneAllBranches(true)
+                        .setCredentialsProvider(credentialsProvider)
+                        .setTransportConfigCallback(transportConfigCallback)
+                        .call()
+                        .close();
+            } catch (GitAPIException e) {
+                FileUtils.deleteDirectory(mirror);
+                throw e;
+            }
+        }
+        return mirror;
+    }
+
+    private void createWorkingTree(File mirror, String repositoryUrl, String branch, File workingDirectory) throws GitAPIException, IOException {
+        try (Git git = Git.init().setDirectory(workingDirectory).call();
+             Repository mirrorRepository = Git.open(mirror).getRepository()) {
+            Repository repository = git.getRepository();
+            FileUtils.writeStringToFile(new File(repository.getDirectory(), ALTERNATES_FILE),
+                    new File(mirror, "objects").getAbsolutePath() + "\n", Charset.defaultCharset());
+
+            StoredConfig config = repository.getConfig();
+            config.setString("remote", REMOTE_NAME, "url", repositoryUrl);
+            config.setString("remote", REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
+            config.save();
+
+            ObjectId branchHead = mirrorRepository.resolve("refs/heads/" + branch);
+            if (branchHead == null) {
+                throw new IOException(String.format("Branch %s not found in %s", branch, repositoryUrl));
+            }
+            RefUpdate refUpdate = repository.updateRef("refs/remotes/origin/" + branch);
+            refUpdate.setNewObjectId(branchHead);
+            refUpdate.forceUpdate();
+
+            git.checkout()
+                    .setCreateBranch(true)
+                    .setName(branch)
+                    .setStartPoint("origin/" + branch)
+                    .call();
+            log.info("Working tree {} created from mirror at {}", workingDirectory.getPath(), branchHead.getName());
+        }
+    }
+}
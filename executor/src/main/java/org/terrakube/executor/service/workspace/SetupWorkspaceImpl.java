@@ -7,6 +7,7 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.transport.CredentialsProvider;
@@ -44,13 +45,16 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
     WorkspaceSecurity workspaceSecurity;
     boolean enableRegistrySecurity;
     TerraformExecutor terraformExecutor;
+    GitMirrorService gitMirrorService;
 
     public SetupWorkspaceImpl(WorkspaceSecurity workspaceSecurity,
             @Value("${org.terrakube.client.enableSecurity}") boolean enableRegistrySecurity,
-            TerraformExecutor terraformExecutor) {
+            TerraformExecutor terraformExecutor,
+            GitMirrorService gitMirrorService) {
         this.workspaceSecurity = workspaceSecurity;
         this.enableRegistrySecurity = enableRegistrySecurity;
         this.terraformExecutor = terraformExecutor;
+        this.gitMirrorService = gitMirrorService;
     }
 
     @Override
@@ -139,28 +143,34 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
 
     private void downloadWorkspace(File gitCloneFolder, TerraformJob terraformJob) throws IOException {
         try {
-            if (terraformJob.getVcsType().startsWith("SSH")) {
-                Git.cloneRepository()
-                        .setURI(terraformJob.getSource())
-                        .setDirectory(gitCloneFolder)
-                        .setBranch(terraformJob.getBranch())
-                        .setTransportConfigCallback(transport -> {
-                            ((SshTransport) transport).setSshSessionFactory(
-                                    getSshdSessionFactory(terraformJob.getVcsType(), terraformJob.getAccessToken(),
-                                            terraformJob.getOrganizationId(), terraformJob.getWorkspaceId()));
-                        })
-                        .setCloneSubmodules(true)
-                        .call();
+            boolean sshConnection = terraformJob.getVcsType().startsWith("SSH");
+            TransportConfigCallback transportConfigCallback = null;
+            CredentialsProvider credentialsProvider = null;
+            if (sshConnection) {
+                transportConfigCallback = transport -> ((SshTransport) transport).setSshSessionFactory(
+                        getSshdSessionFactory(terraformJob.getVcsType(), terraformJob.getAccessToken(),
+                                terraformJob.getOrganizationId(), terraformJob.getWorkspaceId()));
+            } else {
+                credentialsProvider = setupCredentials(terraformJob.getVcsType(),
+                        terraformJob.getConnectionType(), terraformJob.getAccessToken());
+            }
+
+            if (gitMirrorService.isEnabled()) {
+                gitMirrorService.checkout(terraformJob.getSource(), terraformJob.getBranch(), gitCloneFolder,
+                        credentialsProvider, transportConfigCallback);
             } else {
                 Git.cloneRepository()
                         .setURI(terraformJob.getSource())
                         .setDirectory(gitCloneFolder)
-                        .setCredentialsProvider(setupCredentials(terraformJob.getVcsType(),
-                                terraformJob.getConnectionType(), terraformJob.getAccessToken()))
+                        .setCredentialsProvider(credentialsProvider)
+                        .setTransportConfigCallback(transportConfigCallback)
                         .setBranch(terraformJob.getBranch())
                         .setCloneSubmodules(true)
-                        .call();
+                        .call()
+                        .close();
+            }
 
+            if (!sshConnection) {
                 if (terraformJob.getCommitId() != null && terraformJob.getCommitId().length() > 0) {
                     log.info("Checkout commit id {}", terraformJob.getCommitId());
                     Git.open(gitCloneFolder).checkout().setName(terraformJob.getCommitId()).call();
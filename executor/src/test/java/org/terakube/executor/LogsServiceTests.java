@@ -0,0 +1,162 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.text.TextStringBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.terrakube.executor.configuration.LogsProperties;
+import org.terrakube.executor.service.logs.LogsConsumer;
+import org.terrakube.executor.service.logs.LogsService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogsServiceTests {
+
+    private static final int TOTAL_LINES = 5000;
+
+    private final List<Map<String, String>> streamLines = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failingBatches = new AtomicInteger(0);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LogsService logsService;
+
+    @BeforeEach
+    void setup() {
+        StreamOperations streamOperations = mock(StreamOperations.class);
+        when(streamOperations.add(anyString(), anyMap())).thenAnswer(invocation -> {
+            streamLines.add(invocation.getArgument(1));
+            return null;
+        });
+        RedisOperations redisOperations = mock(RedisOperations.class);
+        when(redisOperations.opsForStream()).thenReturn(streamOperations);
+
+        RedisTemplate redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            if (failingBatches.getAndDecrement() > 0) {
+                throw new RedisConnectionFailureException("Connection refused");
+            }
+            SessionCallback sessionCallback = invocation.getArgument(0);
+            sessionCallback.execute(redisOperations);
+            return List.of();
+        });
+
+        LogsProperties logsProperties = new LogsProperties();
+        logsProperties.setBatchSize(50);
+        logsProperties.setFlushInterval(20);
+        logsProperties.setQueueCapacity(100);
+        logsProperties.setMaxRetries(2);
+        logsProperties.setRetryBackoff(1);
+
+        logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+        logsService.startShipper();
+    }
+
+    @AfterEach
+    void stop() {
+        logsService.stopShipper();
+    }
+
+    @Test
+    void completeWaitsForEveryLineReadBeforeTheProcessFinished() throws Exception {
+        TextStringBuilder jobOutput = new TextStringBuilder();
+        LogsConsumer output = LogsConsumer.builder()
+                .jobId(1)
+                .stepId("step")
+                .terraformOutput(jobOutput)
+                .processLogs(logsService)
+                .lineNumber(new AtomicInteger(0))
+                .build();
+
+        // the process launcher completes once the output reader reached the end of the stream, the lines are still
+        // queued in the shipper when the step completes
+        CompletableFuture<Void> outputReader = CompletableFuture.runAsync(() -> {
+            for (int i = 1; i <= TOTAL_LINES; i++) {
+                output.accept("line " + i);
+            }
+        });
+        outputReader.get(10, TimeUnit.SECONDS);
+
+        long start = System.currentTimeMillis();
+        assertTrue(output.complete());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 10000, "Completion took " + elapsed + " ms");
+        assertEquals(TOTAL_LINES, streamLines.size());
+        assertEquals(TOTAL_LINES, jobOutput.toString().split("\n").length);
+        for (int i = 0; i < TOTAL_LINES; i++) {
+            Map<String, String> streamLine = streamLines.get(i);
+            assertEquals(String.valueOf(i + 1), streamLine.get("lineNumber"));
+            assertEquals("line " + (i + 1), streamLine.get("output"));
+        }
+    }
+
+    @Test
+    void flushReturnsWhenEveryLineWasSent() {
+        for (int i = 1; i <= TOTAL_LINES; i++) {
+            logsService.sendLogs(2, "step", i, "line " + i);
+        }
+
+        assertTrue(logsService.flush(2));
+        assertEquals(TOTAL_LINES, streamLines.size());
+    }
+
+    @Test
+    void flushWithoutPendingLinesOfTheJobReturnsImmediately() {
+        logsService.sendLogs(3, "step", 1, "line 1");
+        assertTrue(logsService.flush(3));
+
+        assertTrue(logsService.flush(4));
+        assertEquals(1, streamLines.size());
+    }
+
+    @Test
+    void failedBatchIsSentAgain() {
+        failingBatches.set(2);
+        for (int i = 1; i <= 10; i++) {
+            logsService.sendLogs(5, "step", i, "line " + i);
+        }
+
+        assertTrue(logsService.flush(5));
+        assertEquals(10, streamLines.size());
+        assertEquals(2, meterRegistry.get("terrakube.executor.logs.retried").counter().count());
+        assertEquals(0, meterRegistry.get("terrakube.executor.logs.dropped").counter().count());
+    }
+
+    @Test
+    void linesAreDroppedAfterTheLastRetry() {
+        failingBatches.set(Integer.MAX_VALUE);
+        for (int i = 1; i <= 10; i++) {
+            logsService.sendLogs(6, "step", i, "line " + i);
+        }
+
+        assertFalse(logsService.flush(6));
+        assertEquals(0, streamLines.size());
+        assertEquals(10, meterRegistry.get("terrakube.executor.logs.dropped").counter().count());
+
+        // the dropped lines are reported once, lines sent after redis recovered flush again
+        failingBatches.set(0);
+        logsService.sendLogs(6, "step", 11, "line 11");
+        assertTrue(logsService.flush(6));
+        assertEquals(1, streamLines.size());
+    }
+}